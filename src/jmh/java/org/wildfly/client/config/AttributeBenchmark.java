@@ -0,0 +1,173 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.client.config;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.wildfly.common.net.CidrAddress;
+
+/**
+ * The typed attribute accessors, on a reader over a live parse or over a snapshot.  The reader stays positioned on
+ * one element, so only the accessor itself is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class AttributeBenchmark {
+    private static final int INT = 0;
+    private static final int LONG = 1;
+    private static final int BOOLEAN = 2;
+    private static final int INT_LIST = 3;
+    private static final int LONG_LIST = 4;
+    private static final int STRING_LIST = 5;
+    private static final int URI_VALUE = 6;
+    private static final int INET_ADDRESS = 7;
+    private static final int CIDR_ADDRESS = 8;
+    private static final int STRING = 9;
+
+    @Param({ "false", "true" })
+    public boolean snapshot;
+
+    @Param({ "16", "4096" })
+    public int listSize;
+
+    private Path dir;
+    private ConfigurationXMLStreamReader reader;
+
+    @Setup
+    public void setup() throws IOException, ConfigXMLParseException {
+        dir = Files.createTempDirectory("wildfly-config-bench");
+        final StringBuilder ints = new StringBuilder();
+        final StringBuilder longs = new StringBuilder();
+        final StringBuilder strings = new StringBuilder();
+        for (int i = 0; i < listSize; i ++) {
+            if (i > 0) {
+                ints.append(' ');
+                longs.append(' ');
+                strings.append(' ');
+            }
+            ints.append(1024 + i);
+            longs.append(4_000_000_000L + i);
+            strings.append("name-").append(i);
+        }
+        final StringBuilder b = new StringBuilder();
+        b.append("<configuration><e xmlns=\"").append(BenchmarkDocuments.FIRST_NS).append('"')
+            .append(" int=\"8080\" long=\"9223372036854775000\" boolean=\"true\"")
+            .append(" ints=\"").append(ints).append("\" longs=\"").append(longs).append("\" strings=\"").append(strings).append('"')
+            .append(" uri=\"https://example.com/some/path\" inet=\"192.168.1.10\" cidr=\"10.0.0.0/8\" string=\"plain-value\"/></configuration>");
+        final ClientConfiguration configuration = ClientConfiguration.getInstance(BenchmarkDocuments.write(dir.resolve("wildfly-config.xml"), b).toUri());
+        reader = (snapshot ? configuration.snapshot() : configuration).readConfiguration(Collections.singleton(BenchmarkDocuments.FIRST_NS));
+        reader.nextTag();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException, ConfigXMLParseException {
+        try {
+            reader.close();
+        } finally {
+            BenchmarkDocuments.delete(dir);
+        }
+    }
+
+    @Benchmark
+    public int intValue() throws ConfigXMLParseException {
+        return reader.getIntAttributeValue(INT);
+    }
+
+    @Benchmark
+    public int intValueInRange() throws ConfigXMLParseException {
+        return reader.getIntAttributeValue(INT, 1, 65535);
+    }
+
+    @Benchmark
+    public long longValue() throws ConfigXMLParseException {
+        return reader.getLongAttributeValue(LONG);
+    }
+
+    @Benchmark
+    public long longValueInRange() throws ConfigXMLParseException {
+        return reader.getLongAttributeValue(LONG, 0, Long.MAX_VALUE);
+    }
+
+    @Benchmark
+    public boolean booleanValue() {
+        return reader.getBooleanAttributeValue(BOOLEAN);
+    }
+
+    @Benchmark
+    public int[] intList() throws ConfigXMLParseException {
+        return reader.getIntListAttributeValue(INT_LIST);
+    }
+
+    @Benchmark
+    public long[] longList() throws ConfigXMLParseException {
+        return reader.getLongListAttributeValue(LONG_LIST);
+    }
+
+    @Benchmark
+    public String[] stringList() throws ConfigXMLParseException {
+        return reader.getListAttributeValueAsArray(STRING_LIST);
+    }
+
+    @Benchmark
+    public URI uriValue() throws ConfigXMLParseException {
+        return reader.getURIAttributeValue(URI_VALUE);
+    }
+
+    @Benchmark
+    public InetAddress inetAddressValue() throws ConfigXMLParseException {
+        return reader.getInetAddressAttributeValue(INET_ADDRESS);
+    }
+
+    @Benchmark
+    public CidrAddress cidrAddressValue() throws ConfigXMLParseException {
+        return reader.getCidrAddressAttributeValue(CIDR_ADDRESS);
+    }
+
+    @Benchmark
+    public String stringValue() {
+        return reader.getAttributeValue(STRING);
+    }
+
+    @Benchmark
+    public String stringValueResolved() throws ConfigXMLParseException {
+        return reader.getAttributeValueResolved(STRING);
+    }
+}
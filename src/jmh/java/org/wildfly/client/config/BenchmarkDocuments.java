@@ -0,0 +1,106 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.client.config;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+/**
+ * Generated documents and helpers shared by the benchmarks.
+ */
+final class BenchmarkDocuments {
+    static final String FIRST_NS = "urn:bench:first";
+    static final String LAST_NS = "urn:bench:last";
+    static final String XINCLUDE_NS = "http://www.w3.org/2001/XInclude";
+
+    private BenchmarkDocuments() {
+    }
+
+    /**
+     * Write a configuration document with the given number of items in the {@link #FIRST_NS} element, followed by
+     * a single-item {@link #LAST_NS} element.
+     */
+    static Path writeDocument(Path dir, String name, int items) throws IOException {
+        final StringBuilder b = new StringBuilder(items * 96 + 256);
+        b.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<configuration>\n    <first xmlns=\"").append(FIRST_NS).append("\">\n");
+        for (int i = 0; i < items; i ++) {
+            item(b, i);
+        }
+        b.append("    </first>\n    <last xmlns=\"").append(LAST_NS).append("\">\n");
+        item(b, items);
+        b.append("    </last>\n</configuration>\n");
+        return write(dir.resolve(name), b);
+    }
+
+    private static void item(StringBuilder b, int i) {
+        b.append("        <item id=\"").append(i).append("\" port=\"").append(1024 + (i & 0x7fff)).append("\" enabled=\"").append((i & 1) == 0)
+            .append("\" name=\"item-").append(i).append("\">value ").append(i).append("</item>\n");
+    }
+
+    static Path write(Path path, CharSequence content) throws IOException {
+        Files.write(path, content.toString().getBytes(StandardCharsets.UTF_8));
+        return path;
+    }
+
+    static String pemText(int chars) {
+        final StringBuilder b = new StringBuilder(chars + 128);
+        final String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/";
+        int n = 0;
+        while (b.length() < chars) {
+            b.append("-----BEGIN CERTIFICATE-----\n");
+            for (int line = 0; line < 20 && b.length() < chars; line ++) {
+                for (int i = 0; i < 64; i ++) {
+                    b.append(alphabet.charAt((n ++ * 31 + i) & 63));
+                }
+                b.append('\n');
+            }
+            b.append("-----END CERTIFICATE-----\n");
+        }
+        b.setLength(chars);
+        return b.toString();
+    }
+
+    /**
+     * Consume all remaining events of a reader.
+     *
+     * @return the number of events
+     */
+    static int drain(ConfigurationXMLStreamReader reader) throws ConfigXMLParseException {
+        int cnt = 0;
+        while (reader.hasNext()) {
+            reader.next();
+            cnt ++;
+        }
+        return cnt;
+    }
+
+    static void delete(Path dir) throws IOException {
+        if (dir != null) {
+            try (Stream<Path> paths = Files.walk(dir)) {
+                for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                    Files.deleteIfExists(path);
+                }
+            }
+        }
+    }
+}
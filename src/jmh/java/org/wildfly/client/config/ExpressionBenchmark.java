@@ -0,0 +1,115 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.client.config;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.wildfly.common.expression.Expression;
+
+/**
+ * Expression compilation and resolution of plain, {@code ${}}, {@code env.} and {@code ENC:} attribute values.
+ * Encrypted values are resolved by a stub provider which only strips the prefix.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ExpressionBenchmark {
+    private static final int PLAIN = 0;
+    private static final int PROPERTY = 1;
+    private static final int ENVIRONMENT = 2;
+    private static final int ENCRYPTED = 3;
+
+    private Path dir;
+    private ConfigurationXMLStreamReader reader;
+
+    @Setup
+    public void setup() throws IOException, ConfigXMLParseException {
+        System.setProperty("bench.value", "property-value");
+        ClientConfiguration.registerResolverProvider(value -> value.replace("ENC:", ""));
+        // any variable whose value is itself a valid, expression-free string
+        String variable = "PATH";
+        for (Map.Entry<String, String> entry : System.getenv().entrySet()) {
+            if (entry.getValue().indexOf('$') == -1 && entry.getValue().indexOf('\\') == -1 && ! entry.getValue().contains("ENC:")) {
+                variable = entry.getKey();
+                break;
+            }
+        }
+        dir = Files.createTempDirectory("wildfly-config-bench");
+        final String document = "<configuration><e xmlns=\"" + BenchmarkDocuments.FIRST_NS + "\" plain=\"plain-value\""
+            + " property=\"${bench.value:default}\" environment=\"env." + variable + "\" encrypted=\"ENC:secret\"/></configuration>";
+        final ClientConfiguration configuration = ClientConfiguration.getInstance(BenchmarkDocuments.write(dir.resolve("wildfly-config.xml"), document).toUri());
+        reader = configuration.readConfiguration(Collections.singleton(BenchmarkDocuments.FIRST_NS));
+        reader.nextTag();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException, ConfigXMLParseException {
+        ClientConfiguration.registerResolverProvider(null);
+        System.clearProperty("bench.value");
+        try {
+            reader.close();
+        } finally {
+            BenchmarkDocuments.delete(dir);
+        }
+    }
+
+    @Benchmark
+    public Expression plainExpression() throws ConfigXMLParseException {
+        return reader.getExpressionAttributeValue(PLAIN, Expression.Flag.ESCAPES);
+    }
+
+    @Benchmark
+    public String plainResolved() throws ConfigXMLParseException {
+        return reader.getAttributeValueResolved(PLAIN);
+    }
+
+    @Benchmark
+    public String propertyResolved() throws ConfigXMLParseException {
+        return reader.getAttributeValueResolved(PROPERTY);
+    }
+
+    @Benchmark
+    public String environmentResolved() throws ConfigXMLParseException {
+        return reader.getAttributeValueResolved(ENVIRONMENT);
+    }
+
+    @Benchmark
+    public String encryptedResolved() throws ConfigXMLParseException {
+        return reader.getAttributeValueResolved(ENCRYPTED);
+    }
+}
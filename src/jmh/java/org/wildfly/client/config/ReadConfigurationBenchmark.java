@@ -0,0 +1,88 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.client.config;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Reading a configuration over small, medium and huge documents.  {@code readFirst} consumes the whole first
+ * element; {@code selectLast} reads the last element, so it mostly measures the cost of skipping the content
+ * before it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ReadConfigurationBenchmark {
+
+    @Param({ "10", "1000", "100000" })
+    public int items;
+
+    @Param({ "false", "true" })
+    public boolean snapshot;
+
+    private Path dir;
+    private ClientConfiguration configuration;
+
+    @Setup
+    public void setup() throws IOException {
+        dir = Files.createTempDirectory("wildfly-config-bench");
+        final Path file = BenchmarkDocuments.writeDocument(dir, "wildfly-config.xml", items);
+        final ClientConfiguration configuration = ClientConfiguration.getInstance(file.toUri());
+        this.configuration = snapshot ? configuration.snapshot() : configuration;
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        BenchmarkDocuments.delete(dir);
+    }
+
+    @Benchmark
+    public int readFirst() throws ConfigXMLParseException {
+        try (ConfigurationXMLStreamReader reader = configuration.readConfiguration(Collections.singleton(BenchmarkDocuments.FIRST_NS))) {
+            return BenchmarkDocuments.drain(reader);
+        }
+    }
+
+    @Benchmark
+    public int selectLast() throws ConfigXMLParseException {
+        try (ConfigurationXMLStreamReader reader = configuration.readConfiguration(Collections.singleton(BenchmarkDocuments.LAST_NS))) {
+            return BenchmarkDocuments.drain(reader);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.client.config;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput of {@code parse="text"} inclusions of PEM-like content: position counting alone, the text event
+ * reader alone, and a full read of an including document event by event or as a stream.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class TextIncludeBenchmark {
+
+    @Param({ "4096", "1048576", "16777216" })
+    public int chars;
+
+    private Path dir;
+    private String text;
+    private URI textUri;
+    private ClientConfiguration configuration;
+    private final char[] buffer = new char[8192];
+
+    @Setup
+    public void setup() throws IOException {
+        dir = Files.createTempDirectory("wildfly-config-bench");
+        text = BenchmarkDocuments.pemText(chars);
+        textUri = BenchmarkDocuments.write(dir.resolve("bundle.pem"), text).toUri();
+        final String document = "<configuration xmlns:xi=\"" + BenchmarkDocuments.XINCLUDE_NS + "\"><t xmlns=\"" + BenchmarkDocuments.FIRST_NS
+            + "\"><xi:include href=\"bundle.pem\" parse=\"text\"/></t></configuration>";
+        configuration = ClientConfiguration.getInstance(BenchmarkDocuments.write(dir.resolve("wildfly-config.xml"), document).toUri());
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        BenchmarkDocuments.delete(dir);
+    }
+
+    @Benchmark
+    public int countingReader() throws IOException {
+        try (CountingReader reader = new CountingReader(new StringReader(text))) {
+            while (reader.read(buffer, 0, buffer.length) != -1) {
+                // count only
+            }
+            return reader.getLineNumber() + reader.getColumnNumber();
+        }
+    }
+
+    @Benchmark
+    public long textEvents() throws ConfigXMLParseException {
+        try (TextXMLStreamReader reader = new TextXMLStreamReader("UTF-8", new StringReader(text), new EmptyXMLStreamReader(textUri, null), textUri)) {
+            long total = 0;
+            while (reader.hasNext()) {
+                reader.next();
+                total += reader.getTextLength();
+            }
+            return total;
+        }
+    }
+
+    @Benchmark
+    public long includeEvents() throws ConfigXMLParseException {
+        try (ConfigurationXMLStreamReader reader = configuration.readConfiguration(Collections.singleton(BenchmarkDocuments.FIRST_NS))) {
+            reader.nextTag();
+            long total = 0;
+            while (reader.next() == ConfigurationXMLStreamReader.CHARACTERS) {
+                total += reader.getTextLength();
+            }
+            return total;
+        }
+    }
+
+    @Benchmark
+    public long includeTextReader() throws IOException, ConfigXMLParseException {
+        try (ConfigurationXMLStreamReader reader = configuration.readConfiguration(Collections.singleton(BenchmarkDocuments.FIRST_NS))) {
+            reader.nextTag();
+            long total = 0;
+            try (Reader textReader = reader.getElementTextReader()) {
+                int cnt;
+                while ((cnt = textReader.read(buffer, 0, buffer.length)) != -1) {
+                    total += cnt;
+                }
+            }
+            return total;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.client.config;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Reading a configuration whose root element includes {@code fanOut} distinct chains of {@code depth} nested
+ * XIncludes.  Run with {@code -Djmh.args="-jvmArgs -Dwildfly.config.include-cache.size=0"} to measure uncached
+ * includes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class XIncludeBenchmark {
+
+    @Param({ "1", "4", "16" })
+    public int depth;
+
+    @Param({ "1", "8", "64" })
+    public int fanOut;
+
+    private Path dir;
+    private ClientConfiguration configuration;
+
+    @Setup
+    public void setup() throws IOException {
+        dir = Files.createTempDirectory("wildfly-config-bench");
+        final StringBuilder b = new StringBuilder();
+        b.append("<configuration xmlns:xi=\"").append(BenchmarkDocuments.XINCLUDE_NS).append("\">\n    <first xmlns=\"").append(BenchmarkDocuments.FIRST_NS).append("\">\n");
+        for (int f = 0; f < fanOut; f ++) {
+            b.append("        <xi:include href=\"chain-").append(f).append("-0.xml\"/>\n");
+            for (int d = 0; d < depth; d ++) {
+                final StringBuilder c = new StringBuilder();
+                c.append("<item xmlns=\"").append(BenchmarkDocuments.FIRST_NS).append("\" xmlns:xi=\"").append(BenchmarkDocuments.XINCLUDE_NS)
+                    .append("\" chain=\"").append(f).append("\" level=\"").append(d).append("\">\n");
+                if (d + 1 < depth) {
+                    c.append("    <xi:include href=\"chain-").append(f).append('-').append(d + 1).append(".xml\"/>\n");
+                }
+                c.append("</item>\n");
+                BenchmarkDocuments.write(dir.resolve("chain-" + f + "-" + d + ".xml"), c);
+            }
+        }
+        b.append("    </first>\n</configuration>\n");
+        configuration = ClientConfiguration.getInstance(BenchmarkDocuments.write(dir.resolve("wildfly-config.xml"), b).toUri());
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        BenchmarkDocuments.delete(dir);
+    }
+
+    @Benchmark
+    public int read() throws ConfigXMLParseException {
+        try (ConfigurationXMLStreamReader reader = configuration.readConfiguration(Collections.singleton(BenchmarkDocuments.FIRST_NS))) {
+            return BenchmarkDocuments.drain(reader);
+        }
+    }
+}
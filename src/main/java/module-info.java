@@ -1,5 +1,6 @@
 module org.wildfly.client.config {
     requires java.xml;
+    requires static jdk.jfr;
 
     requires org.jboss.logging;
     requires static org.jboss.logging.annotations;
@@ -28,9 +28,10 @@ import javax.xml.stream.XMLStreamConstants;
 /**
  * @author <a href="mailto:david.lloyd@redhat.com">David M. Lloyd</a>
  */
-abstract class AbstractDelegatingXMLStreamReader implements ConfigurationXMLStreamReader {
+abstract class AbstractDelegatingXMLStreamReader implements ConfigurationXMLStreamReader, ResolutionContext.Holder, PositionSource {
     private final boolean closeDelegate;
     private final ConfigurationXMLStreamReader delegate;
+    private ResolutionContext resolutionContext;
 
     AbstractDelegatingXMLStreamReader(final boolean closeDelegate, final ConfigurationXMLStreamReader delegate) {
         this.closeDelegate = closeDelegate;
@@ -41,6 +42,14 @@ abstract class AbstractDelegatingXMLStreamReader implements ConfigurationXMLStre
         return delegate;
     }
 
+    public ResolutionContext getResolutionContext() {
+        ResolutionContext resolutionContext = this.resolutionContext;
+        if (resolutionContext == null) {
+            resolutionContext = this.resolutionContext = ResolutionContext.of(getDelegate());
+        }
+        return resolutionContext;
+    }
+
     public URI getUri() {
         return getDelegate().getUri();
     }
@@ -128,6 +137,10 @@ abstract class AbstractDelegatingXMLStreamReader implements ConfigurationXMLStre
         return getDelegate().getLocation();
     }
 
+    public void copyPosition(final int[] dest, final int offs) {
+        PositionSource.copyPosition(getDelegate(), dest, offs);
+    }
+
     public int getTextCharacters(final int sourceStart, final char[] target, final int targetStart, final int length) throws ConfigXMLParseException {
         return getDelegate().getTextCharacters(sourceStart, target, targetStart, length);
     }
@@ -172,6 +185,18 @@ abstract class AbstractDelegatingXMLStreamReader implements ConfigurationXMLStre
         return getDelegate().getAttributeValue(index);
     }
 
+    public int getIntAttributeValue(final int index) throws ConfigXMLParseException {
+        return getDelegate().getIntAttributeValue(index);
+    }
+
+    public long getLongAttributeValue(final int index) throws ConfigXMLParseException {
+        return getDelegate().getLongAttributeValue(index);
+    }
+
+    public boolean getBooleanAttributeValue(final int index) {
+        return getDelegate().getBooleanAttributeValue(index);
+    }
+
     public boolean isAttributeSpecified(final int index) {
         return getDelegate().isAttributeSpecified(index);
     }
@@ -24,6 +24,7 @@ import java.net.URI;
 
 import javax.xml.namespace.NamespaceContext;
 import javax.xml.namespace.QName;
+import javax.xml.stream.Location;
 import javax.xml.stream.XMLInputFactory;
 import javax.xml.stream.XMLStreamException;
 import javax.xml.stream.XMLStreamReader;
@@ -31,12 +32,16 @@ import javax.xml.stream.XMLStreamReader;
 /**
  * @author <a href="mailto:david.lloyd@redhat.com">David M. Lloyd</a>
  */
-final class BasicXMLStreamReader implements ConfigurationXMLStreamReader {
+final class BasicXMLStreamReader implements ConfigurationXMLStreamReader, ResolutionContext.Holder, PositionSource {
     private final XMLLocation includedFrom;
     private final XMLStreamReader xmlStreamReader;
     private final URI uri;
     private final XMLInputFactory inputFactory;
     private final Closeable underlying;
+    private ResolutionContext resolutionContext;
+    // the number of events read, for metrics
+    private long events;
+    private boolean metered;
 
     BasicXMLStreamReader(final XMLLocation includedFrom, final XMLStreamReader xmlStreamReader, final URI uri, final XMLInputFactory inputFactory, final Closeable underlying) {
         this.includedFrom = includedFrom;
@@ -44,6 +49,7 @@ final class BasicXMLStreamReader implements ConfigurationXMLStreamReader {
         this.uri = uri;
         this.inputFactory = inputFactory;
         this.underlying = underlying;
+        metered = underlying instanceof MeteredInputStream;
     }
 
     public URI getUri() {
@@ -58,6 +64,14 @@ final class BasicXMLStreamReader implements ConfigurationXMLStreamReader {
         return includedFrom;
     }
 
+    public ResolutionContext getResolutionContext() {
+        ResolutionContext resolutionContext = this.resolutionContext;
+        if (resolutionContext == null) {
+            resolutionContext = this.resolutionContext = new ResolutionContext();
+        }
+        return resolutionContext;
+    }
+
     public boolean hasNext() throws ConfigXMLParseException {
         try {
             return xmlStreamReader.hasNext();
@@ -68,6 +82,7 @@ final class BasicXMLStreamReader implements ConfigurationXMLStreamReader {
 
     public int next() throws ConfigXMLParseException {
         try {
+            events ++;
             return xmlStreamReader.next();
         } catch (XMLStreamException e) {
             throw ConfigXMLParseException.from(e, uri, includedFrom);
@@ -92,6 +107,7 @@ final class BasicXMLStreamReader implements ConfigurationXMLStreamReader {
 
     public int nextTag() throws ConfigXMLParseException {
         try {
+            events ++;
             return xmlStreamReader.nextTag();
         } catch (XMLStreamException e) {
             throw ConfigXMLParseException.from(e, uri, includedFrom);
@@ -102,6 +118,17 @@ final class BasicXMLStreamReader implements ConfigurationXMLStreamReader {
         return new XMLLocation(includedFrom, uri, xmlStreamReader.getLocation());
     }
 
+    public void copyPosition(final int[] dest, final int offs) {
+        final Location location = xmlStreamReader.getLocation();
+        if (location == null) {
+            dest[offs] = dest[offs + 1] = dest[offs + 2] = -1;
+        } else {
+            dest[offs] = location.getLineNumber();
+            dest[offs + 1] = location.getColumnNumber();
+            dest[offs + 2] = location.getCharacterOffset();
+        }
+    }
+
     public QName getName() {
         return xmlStreamReader.getName();
     }
@@ -171,6 +198,11 @@ final class BasicXMLStreamReader implements ConfigurationXMLStreamReader {
     }
 
     public void close() throws ConfigXMLParseException {
+        if (metered) {
+            metered = false;
+            final Location location = xmlStreamReader.getLocation();
+            Metrics.get().sourceRead(uri, ((MeteredInputStream) underlying).getCount(), location == null ? -1 : location.getCharacterOffset(), events);
+        }
         // use try-with-resources because it has nice suppressed exception behavior in this case
         try (Closeable underlying = this.underlying) {
             try {
@@ -0,0 +1,69 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.client.config;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * An input stream which reads the remaining content of a byte buffer.  Closing the stream releases the buffer
+ * reference.
+ */
+final class ByteBufferInputStream extends InputStream {
+    private static final ByteBuffer EMPTY = ByteBuffer.allocate(0);
+
+    private ByteBuffer buffer;
+
+    ByteBufferInputStream(final ByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    public int read() {
+        final ByteBuffer buffer = this.buffer;
+        return buffer.hasRemaining() ? buffer.get() & 0xff : -1;
+    }
+
+    public int read(final byte[] b, final int off, final int len) {
+        final ByteBuffer buffer = this.buffer;
+        final int rem = buffer.remaining();
+        if (len == 0) {
+            return 0;
+        } else if (rem == 0) {
+            return -1;
+        }
+        final int cnt = Math.min(rem, len);
+        buffer.get(b, off, cnt);
+        return cnt;
+    }
+
+    public long skip(final long n) {
+        final ByteBuffer buffer = this.buffer;
+        final int cnt = (int) Math.max(0, Math.min(buffer.remaining(), n));
+        buffer.position(buffer.position() + cnt);
+        return cnt;
+    }
+
+    public int available() {
+        return buffer.remaining();
+    }
+
+    public void close() {
+        buffer = EMPTY;
+    }
+}
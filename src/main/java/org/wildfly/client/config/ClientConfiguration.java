@@ -19,6 +19,7 @@
 package org.wildfly.client.config;
 
 import static java.lang.Boolean.FALSE;
+import static javax.xml.stream.XMLStreamConstants.END_ELEMENT;
 import static javax.xml.stream.XMLStreamConstants.START_ELEMENT;
 import static org.wildfly.client.config.ConfigurationXMLStreamReader.eventToString;
 import static org.wildfly.client.config._private.ConfigMessages.msg;
@@ -31,15 +32,28 @@ import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.net.URLConnection;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileSystemNotFoundException;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.security.AccessController;
 import java.security.PrivilegedAction;
+import java.util.Arrays;
+import java.util.Map;
 import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 
+import javax.xml.stream.FactoryConfigurationError;
 import javax.xml.stream.XMLInputFactory;
 import javax.xml.stream.XMLStreamException;
 
 import org.wildfly.common.Assert;
+import org.wildfly.common.function.ExceptionConsumer;
 import org.wildfly.common.function.ExceptionSupplier;
 
 /**
@@ -51,31 +65,114 @@ public class ClientConfiguration {
 
     private static final String WILDFLY_CLIENT_1_0 = "urn:wildfly:client:1.0";
 
+    private static final boolean SNAPSHOT = Boolean.getBoolean("wildfly.config.snapshot");
+    private static final boolean COMPILED = Boolean.getBoolean("wildfly.config.compiled");
+    // class loader -> ClientConfiguration, or NO_INSTANCE if the class loader has no configuration; a value must not
+    // refer to its class loader (not even through a resource URL, whose handler may belong to it), or it is never collected
+    private static final Map<ClassLoader, Object> INSTANCES = new WeakHashMap<>();
+    private static final Object NO_INSTANCE = new Object();
+    // the largest array that every VM can allocate
+    private static final int MAX_BUFFER_SIZE = Integer.MAX_VALUE - 8;
+    private static volatile XMLInputFactory sharedXmlInputFactory;
+
+    static {
+        if (ConfigurationPreloader.ENABLED) {
+            ConfigurationPreloader.startDefault();
+        }
+    }
+
     private final XMLInputFactory xmlInputFactory;
     private final URI configurationUri;
     private final ExceptionSupplier<InputStream, IOException> streamSupplier;
+    private final boolean snapshotMode;
+    private final boolean reloading;
+    private volatile ConfigurationSnapshot snapshot;
+    // incremented, under the instance lock, every time a new snapshot is published
+    private volatile long generation;
+    private volatile ConfigurationReloader reloader;
+    private boolean reloadingStopped;
+    private boolean preloading;
 
-    ClientConfiguration(final XMLInputFactory xmlInputFactory, final URI configurationUri, final ExceptionSupplier<InputStream, IOException> streamSupplier) {
+    ClientConfiguration(final XMLInputFactory xmlInputFactory, final URI configurationUri, final ExceptionSupplier<InputStream, IOException> streamSupplier, final boolean snapshotMode, final boolean reloading) {
         this.xmlInputFactory = xmlInputFactory;
         this.configurationUri = configurationUri;
-        this.streamSupplier = streamSupplier;
+        this.streamSupplier = streamSupplier == null ? this::streamOpener : streamSupplier;
+        this.snapshotMode = snapshotMode || reloading;
+        this.reloading = reloading;
+    }
+
+    ClientConfiguration(final XMLInputFactory xmlInputFactory, final URI configurationUri, final ExceptionSupplier<InputStream, IOException> streamSupplier, final boolean snapshotMode) {
+        this(xmlInputFactory, configurationUri, streamSupplier, snapshotMode, false);
+    }
+
+    ClientConfiguration(final XMLInputFactory xmlInputFactory, final URI configurationUri, final ExceptionSupplier<InputStream, IOException> streamSupplier) {
+        this(xmlInputFactory, configurationUri, streamSupplier, SNAPSHOT);
     }
 
     ClientConfiguration(final XMLInputFactory xmlInputFactory, final URI configurationUri) {
-        this.xmlInputFactory = xmlInputFactory;
-        this.configurationUri = configurationUri;
-        this.streamSupplier = this::streamOpener;
+        this(xmlInputFactory, configurationUri, null);
+    }
+
+    ClientConfiguration(final URI configurationUri, final ExceptionSupplier<InputStream, IOException> streamSupplier, final ConfigurationSnapshot compiled) {
+        this(null, configurationUri, streamSupplier, true);
+        snapshot = compiled;
+        generation = 1;
     }
 
     private InputStream streamOpener() throws IOException {
-        final URL url = configurationUri.toURL();
+        return openStream(configurationUri, "application/xml,text/xml,application/xhtml+xml", null);
+    }
+
+    /**
+     * Open a stream over the content of the given URI.  Local files are read directly through a file channel into a
+     * heap buffer sized from the file, bypassing URL connection setup, and are closed before this method returns; the
+     * parser reads the buffer itself, with no further copy.  Other URIs are opened as a URL connection with the given
+     * request properties.
+     *
+     * @param uri the URI to open (must be absolute)
+     * @param accept the value of the {@code Accept} request property
+     * @param acceptLanguage the value of the {@code Accept-Language} request property, or {@code null} for none
+     * @return the input stream
+     * @throws IOException if the stream could not be opened
+     */
+    static InputStream openStream(final URI uri, final String accept, final String acceptLanguage) throws IOException {
+        if ("file".equalsIgnoreCase(uri.getScheme()) && uri.getRawAuthority() == null) {
+            final Path path;
+            try {
+                path = Paths.get(uri);
+            } catch (IllegalArgumentException | FileSystemNotFoundException e) {
+                throw new MalformedURLException(e.getMessage());
+            }
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                // not mapped: a mapping would keep the file locked on some platforms until it is garbage collected
+                final long size = channel.size();
+                if (size >= MAX_BUFFER_SIZE) {
+                    throw msg.fileTooLarge(uri);
+                }
+                // one byte more than the size, so that the end of the file is seen without growing the buffer
+                ByteBuffer buffer = ByteBuffer.allocate((int) size + 1);
+                while (channel.read(buffer) != -1) {
+                    if (! buffer.hasRemaining()) {
+                        // the file grew while being read
+                        if (buffer.capacity() == MAX_BUFFER_SIZE) {
+                            throw msg.fileTooLarge(uri);
+                        }
+                        buffer = ByteBuffer.allocate((int) Math.min(MAX_BUFFER_SIZE, (long) buffer.capacity() << 1)).put(buffer.flip());
+                    }
+                }
+                return new ByteBufferInputStream(buffer.flip());
+            }
+        }
+        final URL url = uri.toURL();
         final URLConnection connection = url.openConnection();
-        connection.setRequestProperty("Accept", "application/xml,text/xml,application/xhtml+xml");
+        connection.setRequestProperty("Accept", accept);
+        if (acceptLanguage != null) connection.setRequestProperty("Accept-Language", acceptLanguage);
         return connection.getInputStream();
     }
 
     XMLInputFactory getXmlInputFactory() {
-        return xmlInputFactory;
+        final XMLInputFactory xmlInputFactory = this.xmlInputFactory;
+        return xmlInputFactory != null ? xmlInputFactory : getSharedXmlInputFactory();
     }
 
     /**
@@ -87,12 +184,152 @@ public class ClientConfiguration {
         return configurationUri;
     }
 
+    /**
+     * Determine whether this configuration is read from an in-memory snapshot.
+     *
+     * @return {@code true} if the configuration is read from a snapshot, {@code false} if it is parsed on every read
+     */
+    public boolean isSnapshot() {
+        return snapshotMode;
+    }
+
+    /**
+     * Get a snapshot of this configuration.  The returned configuration parses the document and all of its inclusions
+     * exactly once, on the first call to {@link #readConfiguration(Set)}, and replays the parsed content from memory
+     * on every subsequent call.  Selecting a configuration by namespace seeks directly to the matching element.  If
+     * the modification time or size of any local file which contributed to the snapshot changes, the snapshot is
+     * discarded and the document is parsed again on the next read; content from other sources is never re-read.
+     * <p>
+     * Snapshots may also be enabled for every configuration instance by setting the system property
+     * {@code wildfly.config.snapshot} to {@code true}.
+     *
+     * @return the snapshot configuration (may be this instance if it is already a snapshot)
+     */
+    public ClientConfiguration snapshot() {
+        return snapshotMode ? this : new ClientConfiguration(xmlInputFactory, configurationUri, streamSupplier, true);
+    }
+
+    /**
+     * Start reading a snapshot of this configuration in the background.  The returned configuration is a
+     * {@linkplain #snapshot() snapshot} whose document and inclusions are parsed on a background thread (a virtual
+     * thread if the runtime supports them), so that its first {@link #readConfiguration(Set)} usually finds the
+     * snapshot complete.  A read which arrives while the preload is still running waits for it to finish rather than
+     * parsing the document again.  If the preload fails, the failure is reported by the first read, and a later call
+     * to this method starts a new preload.
+     * <p>
+     * Nothing is preloaded unless this method is called, or the system property {@code wildfly.config.preload} is set
+     * to {@code true}; in that case the default configuration is preloaded when this class is initialized, and every
+     * instance found by {@link #getInstance()} or {@link #getInstance(ClassLoader)} is preloaded.
+     *
+     * @return the snapshot configuration being preloaded (may be this instance if it is already a snapshot)
+     */
+    public ClientConfiguration preload() {
+        final ClientConfiguration configuration = snapshot();
+        synchronized (configuration) {
+            if (configuration.preloading || configuration.snapshot != null) {
+                return configuration;
+            }
+            configuration.preloading = true;
+        }
+        boolean ok = false;
+        try {
+            ConfigurationPreloader.start(configuration);
+            ok = true;
+        } finally {
+            if (! ok) {
+                configuration.preloadFinished();
+            }
+        }
+        return configuration;
+    }
+
+    void preloadSnapshot() {
+        try {
+            getSnapshot();
+        } catch (ConfigXMLParseException | RuntimeException ignored) {
+            // reported again by the first read
+        } finally {
+            preloadFinished();
+        }
+    }
+
+    private synchronized void preloadFinished() {
+        preloading = false;
+    }
+
+    synchronized boolean isPreloading() {
+        return preloading;
+    }
+
+    /**
+     * Determine whether this configuration is reloaded in the background when its files change.
+     *
+     * @return {@code true} if this configuration is reloading, {@code false} otherwise
+     */
+    public boolean isReloading() {
+        return reloading;
+    }
+
+    /**
+     * Get a reloading snapshot of this configuration.  The returned configuration behaves like a {@linkplain #snapshot()
+     * snapshot}, except that once the document has been read, the local files of the document and all of its
+     * inclusions are watched for changes.  After a burst of changes settles, the document is parsed again in the
+     * background and the new snapshot is published atomically; reads never block on a reload and never observe a
+     * partially built snapshot.  If a reload fails, the previous snapshot remains in effect.
+     * <p>
+     * Every published snapshot increments the {@linkplain #getGeneration() generation} of the configuration, which
+     * consumers may poll to cheaply detect a change.  Content which is not read from a local file is never reloaded.
+     * If the platform does not support watching files, the configuration behaves like a plain snapshot.
+     *
+     * @return the reloading configuration (may be this instance if it is already reloading)
+     * @see #stopReloading()
+     */
+    public ClientConfiguration reloading() {
+        if (reloading) {
+            return this;
+        }
+        final ClientConfiguration configuration = new ClientConfiguration(xmlInputFactory, configurationUri, streamSupplier, true, true);
+        final ConfigurationSnapshot snapshot = this.snapshot;
+        if (snapshot != null) {
+            // snapshots are immutable and can be shared
+            configuration.snapshot = snapshot;
+            configuration.generation = 1;
+        }
+        return configuration;
+    }
+
+    /**
+     * Stop watching for changes to the files of this configuration.  The current snapshot remains in effect, and is
+     * thereafter revalidated on each read like a {@linkplain #snapshot() plain snapshot}.  This method has no effect
+     * if this configuration is not reloading.
+     */
+    public void stopReloading() {
+        final ConfigurationReloader reloader;
+        synchronized (this) {
+            reloader = this.reloader;
+            this.reloader = null;
+            reloadingStopped = true;
+        }
+        if (reloader != null) {
+            reloader.stop();
+        }
+    }
+
+    /**
+     * Get the generation of this configuration.  The generation starts at zero and is incremented each time a new
+     * snapshot of the configuration is published, whether because it was read for the first time, because it was
+     * found to be stale, or because it was reloaded in the background.  The generation of a configuration which is
+     * not a snapshot is always zero.
+     *
+     * @return the generation
+     */
+    public long getGeneration() {
+        return generation;
+    }
+
     static ConfigurationXMLStreamReader openUri(final URI uri, final XMLInputFactory xmlInputFactory) throws ConfigXMLParseException {
         try {
-            final URL url = uri.toURL();
-            final URLConnection connection = url.openConnection();
-            connection.setRequestProperty("Accept", "application/xml,text/xml,application/xhtml+xml");
-            final InputStream inputStream = connection.getInputStream();
+            final InputStream inputStream = Metrics.meter(openStream(uri, "application/xml,text/xml,application/xhtml+xml", null));
             try {
                 return openUri(uri, xmlInputFactory, inputStream);
             } catch (final Throwable t) {
@@ -128,16 +365,189 @@ public class ClientConfiguration {
      * @throws ConfigXMLParseException if a read error occurs
      */
     public ConfigurationXMLStreamReader readConfiguration(Set<String> recognizedNamespaces) throws ConfigXMLParseException {
-        final URI uri = this.configurationUri;
-        final InputStream inputStream;
+        final ConfigurationMetrics metrics = Metrics.get();
+        final Object event = ConfigurationEvents.beginRead();
+        if (metrics == ConfigurationMetrics.NONE && event == null) {
+            return snapshotMode ? selectSnapshot(recognizedNamespaces) : selectDocument(openDocument(openDocumentStream(), null, recognizedNamespaces), recognizedNamespaces);
+        }
+        final long start = System.nanoTime();
+        MeteredInputStream source = null;
+        ConfigurationXMLStreamReader reader = null;
+        boolean ok = false;
         try {
-            inputStream = streamSupplier.get();
-        } catch (MalformedURLException e) {
-            throw msg.invalidUrl(new XMLLocation(uri), e);
-        } catch (IOException e) {
-            throw msg.failedToReadInput(new XMLLocation(uri), e);
+            if (snapshotMode) {
+                reader = selectSnapshot(recognizedNamespaces);
+            } else {
+                final InputStream inputStream = openDocumentStream();
+                source = inputStream instanceof MeteredInputStream ? (MeteredInputStream) inputStream : new MeteredInputStream(inputStream);
+                reader = selectDocument(openDocument(source, null, recognizedNamespaces), recognizedNamespaces);
+            }
+            ok = true;
+        } finally {
+            if (reader == null) {
+                // no reader will end the measurement
+                endRead(metrics, event, recognizedNamespaces, source, start, ok);
+            }
         }
-        final ConfigurationXMLStreamReader reader = new XIncludeXMLStreamReader(openUri(uri, xmlInputFactory, inputStream));
+        return reader == null ? null : new MeteredXMLStreamReader(reader, metrics, event, configurationUri, recognizedNamespaces, source, start);
+    }
+
+    private ConfigurationXMLStreamReader selectSnapshot(Set<String> recognizedNamespaces) throws ConfigXMLParseException {
+        final ConfigurationSnapshot snapshot = getSnapshot();
+        try (ConfigurationXMLStreamReader root = openConfiguration(snapshot.newReader())) {
+            if (root == null) {
+                // no config found
+                return null;
+            }
+        }
+        // seek directly to the selected element
+        return snapshot.select(recognizedNamespaces);
+    }
+
+    private static ConfigurationXMLStreamReader selectDocument(ConfigurationXMLStreamReader document, Set<String> recognizedNamespaces) throws ConfigXMLParseException {
+        final ConfigurationXMLStreamReader reader = openConfiguration(document);
+        if (reader == null) {
+            // no config found
+            return null;
+        }
+        return new SelectingXMLStreamReader(true, reader, recognizedNamespaces);
+    }
+
+    /**
+     * Get a stream reader over a configuration without blocking the calling thread.  The document and all of its
+     * inclusions are read and parsed into a {@linkplain #snapshot() snapshot} by a task submitted to the given
+     * executor, and the future is completed with a reader which replays the snapshot from memory, so that consuming the
+     * reader never performs I/O.  The configuration is selected as by {@link #readConfiguration(Set)}.
+     * <p>
+     * If reading the configuration fails, the future is completed exceptionally with a
+     * {@link java.util.concurrent.CompletionException CompletionException} whose cause is the
+     * {@link ConfigXMLParseException}.
+     *
+     * @param recognizedNamespaces the recognized namespaces (must not be {@code null})
+     * @param executor the executor which reads the configuration (must not be {@code null})
+     * @return the future reader, which is completed with {@code null} if no configuration is found
+     */
+    public CompletableFuture<ConfigurationXMLStreamReader> readConfigurationAsync(Set<String> recognizedNamespaces, Executor executor) {
+        Assert.checkNotNullParam("recognizedNamespaces", recognizedNamespaces);
+        Assert.checkNotNullParam("executor", executor);
+        final ClientConfiguration snapshot = snapshot();
+        return supplyAsync(() -> snapshot.readConfiguration(recognizedNamespaces), executor);
+    }
+
+    /**
+     * Get a {@linkplain #snapshot() snapshot} of this configuration without blocking the calling thread.  The document
+     * and all of its inclusions are read and parsed by a task submitted to the given executor, and the future is
+     * completed with the snapshot configuration once its snapshot is complete, so that subsequent reads of the
+     * returned configuration replay the snapshot from memory.
+     * <p>
+     * If reading the configuration fails, the future is completed exceptionally with a
+     * {@link java.util.concurrent.CompletionException CompletionException} whose cause is the
+     * {@link ConfigXMLParseException}.
+     *
+     * @param executor the executor which reads the configuration (must not be {@code null})
+     * @return the future snapshot configuration
+     */
+    public CompletableFuture<ClientConfiguration> snapshotAsync(Executor executor) {
+        Assert.checkNotNullParam("executor", executor);
+        final ClientConfiguration snapshot = snapshot();
+        return supplyAsync(() -> {
+            snapshot.getSnapshot();
+            return snapshot;
+        }, executor);
+    }
+
+    private static <T> CompletableFuture<T> supplyAsync(final ExceptionSupplier<T, ConfigXMLParseException> supplier, final Executor executor) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return supplier.get();
+            } catch (ConfigXMLParseException e) {
+                throw new CompletionException(e);
+            }
+        }, executor);
+    }
+
+    /**
+     * Read the configuration in a single pass, passing each element within the root {@code configuration} element
+     * to the handler registered for its namespace.  Each handler receives a reader which is positioned before the
+     * start of the element and which ends after the end of the element; any content left unread by the handler is
+     * skipped.  Elements with no registered handler are skipped.  The document and its inclusions are read only once,
+     * regardless of the number of handlers.
+     *
+     * @param handlers the handlers, keyed by namespace URI (must not be {@code null})
+     * @throws ConfigXMLParseException if a read error occurs or if a handler fails
+     */
+    public void readConfiguration(Map<String, ? extends ExceptionConsumer<ConfigurationXMLStreamReader, ConfigXMLParseException>> handlers) throws ConfigXMLParseException {
+        Assert.checkNotNullParam("handlers", handlers);
+        final ConfigurationMetrics metrics = Metrics.get();
+        final Object event = ConfigurationEvents.beginRead();
+        if (metrics == ConfigurationMetrics.NONE && event == null) {
+            dispatchConfiguration(snapshotMode ? getSnapshot().newReader() : openDocument(), handlers);
+            return;
+        }
+        final long start = System.nanoTime();
+        MeteredInputStream source = null;
+        boolean ok = false;
+        try {
+            if (snapshotMode) {
+                dispatchConfiguration(getSnapshot().newReader(), handlers);
+            } else {
+                final InputStream inputStream = openDocumentStream();
+                source = inputStream instanceof MeteredInputStream ? (MeteredInputStream) inputStream : new MeteredInputStream(inputStream);
+                dispatchConfiguration(openDocument(source), handlers);
+            }
+            ok = true;
+        } finally {
+            endRead(metrics, event, handlers.keySet(), source, start, ok);
+        }
+    }
+
+    private void endRead(ConfigurationMetrics metrics, Object event, Set<String> namespaces, MeteredInputStream source, long start, boolean ok) {
+        final long nanos = System.nanoTime() - start;
+        if (ok) {
+            metrics.configurationRead(configurationUri, nanos);
+        } else {
+            metrics.configurationReadFailed(configurationUri, nanos);
+        }
+        ConfigurationEvents.endRead(event, configurationUri, namespaces, source == null ? 0 : source.getCount(), ! ok);
+    }
+
+    private static void dispatchConfiguration(ConfigurationXMLStreamReader document, Map<String, ? extends ExceptionConsumer<ConfigurationXMLStreamReader, ConfigXMLParseException>> handlers) throws ConfigXMLParseException {
+        try (ConfigurationXMLStreamReader reader = openConfiguration(document)) {
+            if (reader == null) {
+                // no config found
+                return;
+            }
+            while (reader.hasNext()) {
+                switch (reader.next()) {
+                    case START_ELEMENT: {
+                        final ExceptionConsumer<ConfigurationXMLStreamReader, ConfigXMLParseException> handler = handlers.get(reader.getNamespaceURI());
+                        if (handler == null) {
+                            reader.skipContent();
+                        } else {
+                            final ConfigurationXMLStreamReader elementReader = new SelectingXMLStreamReader(false, reader);
+                            handler.accept(elementReader);
+                            while (elementReader.hasNext()) {
+                                elementReader.next();
+                            }
+                        }
+                        break;
+                    }
+                    case END_ELEMENT: {
+                        return;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Position a reader over the configuration document on the root {@code configuration} element.
+     *
+     * @param reader the reader over the configuration document
+     * @return the reader, or {@code null} if the document is empty
+     * @throws ConfigXMLParseException if a read error occurs or the document does not have the expected root element
+     */
+    private static ConfigurationXMLStreamReader openConfiguration(final ConfigurationXMLStreamReader reader) throws ConfigXMLParseException {
         try {
             if (reader.hasNext()) {
                 switch (reader.nextTag()) {
@@ -157,7 +567,7 @@ public class ClientConfiguration {
                                 throw msg.unexpectedElement(localName, namespaceURI, reader.getLocation());
                             }
                         }
-                        return new SelectingXMLStreamReader(true, reader, recognizedNamespaces);
+                        return reader;
                     }
                     default: {
                         throw msg.unexpectedContent(eventToString(reader.getEventType()), reader.getLocation());
@@ -177,8 +587,105 @@ public class ClientConfiguration {
         }
     }
 
+    private ConfigurationXMLStreamReader openDocument() throws ConfigXMLParseException {
+        return openDocument(openDocumentStream());
+    }
+
+    private InputStream openDocumentStream() throws ConfigXMLParseException {
+        try {
+            return Metrics.meter(streamSupplier.get());
+        } catch (MalformedURLException e) {
+            throw msg.invalidUrl(new XMLLocation(configurationUri), e);
+        } catch (IOException e) {
+            throw msg.failedToReadInput(new XMLLocation(configurationUri), e);
+        }
+    }
+
+    private ConfigurationXMLStreamReader openDocument(final InputStream inputStream) throws ConfigXMLParseException {
+        return openDocument(inputStream, null, null);
+    }
+
     /**
-     * Get a client configuration instance for a certain URI.
+     * Open the document.
+     *
+     * @param inputStream the document content
+     * @param stamps the recorder to stamp each included local file with before it is opened, or {@code null} for none
+     * @param namespaces the namespaces of the only elements which will be read, or {@code null} if any may be read
+     * @return the reader over the document, with inclusions processed
+     * @throws ConfigXMLParseException if the document could not be read
+     */
+    private ConfigurationXMLStreamReader openDocument(final InputStream inputStream, final SourceStamp.Recorder stamps, final Set<String> namespaces) throws ConfigXMLParseException {
+        final URI uri = this.configurationUri;
+        if (IncludePrefetcher.ENABLED) {
+            return IncludePrefetcher.open(uri, getXmlInputFactory(), inputStream, stamps, namespaces);
+        }
+        return new XIncludeXMLStreamReader(openUri(uri, getXmlInputFactory(), inputStream), null, stamps);
+    }
+
+    ConfigurationSnapshot getSnapshot() throws ConfigXMLParseException {
+        ConfigurationSnapshot snapshot = this.snapshot;
+        // while a reloader is watching, the snapshot is kept current in the background
+        if (snapshot == null || reloader == null && ! snapshot.isCurrent()) {
+            synchronized (this) {
+                snapshot = this.snapshot;
+                if (snapshot == null || reloader == null && ! snapshot.isCurrent()) {
+                    snapshot = recordSnapshot();
+                }
+                if (reloading && reloader == null && ! reloadingStopped) {
+                    reloader = ConfigurationReloader.start(this, snapshot);
+                    // without file watching, fall back to revalidating the snapshot on each read instead of retrying
+                    reloadingStopped = reloader == null;
+                }
+            }
+        }
+        return snapshot;
+    }
+
+    /**
+     * Forget the given reloader, whose thread is exiting.  Reloading stops as if by {@link #stopReloading()}, so that
+     * the current snapshot is thereafter revalidated on each read.
+     *
+     * @param reloader the exiting reloader
+     */
+    synchronized void reloaderExited(final ConfigurationReloader reloader) {
+        if (this.reloader == reloader) {
+            this.reloader = null;
+            reloadingStopped = true;
+        }
+    }
+
+    /**
+     * Parse the document again and publish the new snapshot.  Called from the reloader thread.
+     *
+     * @return the new snapshot
+     * @throws ConfigXMLParseException if the document could not be parsed
+     */
+    ConfigurationSnapshot reload() throws ConfigXMLParseException {
+        synchronized (this) {
+            return recordSnapshot();
+        }
+    }
+
+    private ConfigurationSnapshot recordSnapshot() throws ConfigXMLParseException {
+        assert Thread.holdsLock(this);
+        final Object event = ConfigurationEvents.beginSnapshot();
+        final ConfigurationSnapshot snapshot;
+        // stamp the document before it is opened, so that a change made while it is read leaves the snapshot stale
+        final SourceStamp.Recorder stamps = new SourceStamp.Recorder();
+        stamps.stamp(configurationUri);
+        try (ConfigurationXMLStreamReader reader = openDocument(openDocumentStream(), stamps, null)) {
+            snapshot = ConfigurationSnapshot.record(reader, getXmlInputFactory(), stamps);
+        }
+        this.snapshot = snapshot;
+        final long generation = ++ this.generation;
+        ConfigurationEvents.endSnapshot(event, configurationUri, generation, snapshot);
+        return snapshot;
+    }
+
+    /**
+     * Get a client configuration instance for a certain URI.  If the system property {@code wildfly.config.compiled}
+     * is set to {@code true}, the URI names a local {@code .xml} file, and a compiled configuration produced by
+     * {@link ConfigurationCompiler} is found next to it, the compiled configuration is used instead of parsing the file.
      *
      * @param configurationUri the configuration URI
      * @return the client configuration instance
@@ -186,7 +693,31 @@ public class ClientConfiguration {
     public static ClientConfiguration getInstance(URI configurationUri) {
         Assert.checkNotNullParam("configurationUri", configurationUri);
 
-        return new ClientConfiguration(createXmlInputFactory(), configurationUri);
+        return getInstance(configurationUri, COMPILED);
+    }
+
+    /**
+     * Get a client configuration instance for a certain URI, using a compiled configuration found next to a local
+     * {@code .xml} file only if {@code compiled} is {@code true}.
+     *
+     * @param configurationUri the configuration URI
+     * @param compiled {@code true} to look for a compiled configuration, {@code false} to always parse the document
+     * @return the client configuration instance
+     */
+    static ClientConfiguration getInstance(URI configurationUri, boolean compiled) {
+        if (compiled && "file".equalsIgnoreCase(configurationUri.getScheme())) {
+            final URI compiledUri = compiledUriOf(configurationUri);
+            if (compiledUri != null) {
+                final SourceStamp stamp = SourceStamp.of(compiledUri);
+                if (stamp != null && stamp.getSize() > 0) {
+                    final ConfigurationSnapshot snapshot = loadCompiled(configurationUri, compiledUri);
+                    if (snapshot != null) {
+                        return new ClientConfiguration(configurationUri, null, snapshot);
+                    }
+                }
+            }
+        }
+        return new ClientConfiguration(null, configurationUri);
     }
 
     /**
@@ -198,11 +729,100 @@ public class ClientConfiguration {
     public static ClientConfiguration getInstance(URI configurationUri, ExceptionSupplier<InputStream, IOException> streamSupplier) {
         Assert.checkNotNullParam("configurationUri", configurationUri);
 
-        return new ClientConfiguration(createXmlInputFactory(), configurationUri, streamSupplier);
+        return new ClientConfiguration(null, configurationUri, streamSupplier);
+    }
+
+    /**
+     * Register the provider used to resolve encrypted ({@code ENC:}) expressions in configuration attributes.  A
+     * registered provider replaces any previously registered provider, and is used instead of searching for one with
+     * a service loader.
+     *
+     * @param provider the provider, or {@code null} to remove the registered provider and revert to the service loader
+     */
+    public static void registerResolverProvider(ResolverProvider provider) {
+        ResolverProviders.register(provider);
+    }
+
+    /**
+     * Register the receiver of the measurements taken while configurations are loaded.  A registered instance
+     * replaces any previously registered instance.  While no instance is registered, no measurements are taken.
+     *
+     * @param metrics the metrics receiver, or {@code null} to disable metrics
+     * @see InMemoryConfigurationMetrics
+     */
+    public static void registerMetrics(ConfigurationMetrics metrics) {
+        Metrics.register(metrics);
+    }
+
+    /**
+     * Get the number of times a compiled expression was found in the shared expression cache.
+     *
+     * @return the number of expression cache hits
+     */
+    public static long getExpressionCacheHits() {
+        return ExpressionCache.getHits();
+    }
+
+    /**
+     * Get the number of times an expression had to be compiled because it was not found in the shared expression
+     * cache.
+     *
+     * @return the number of expression cache misses
+     */
+    public static long getExpressionCacheMisses() {
+        return ExpressionCache.getMisses();
+    }
+
+    /**
+     * Get the XML input factory shared by all configurations.  The factory is created on first use, and is configured
+     * to neither validate nor support DTDs or external entities.  If the system property
+     * {@code wildfly.config.xml-input-factory} is set, it names the factory implementation class, which is
+     * instantiated directly instead of being looked up by JAXP.  Otherwise the factory is looked up by JAXP using
+     * the class loader of this library rather than the context class loader of the first caller, since the shared
+     * factory outlives any particular deployment.
+     *
+     * @return the shared factory
+     * @throws IllegalArgumentException if the configured factory implementation cannot be instantiated
+     */
+    static XMLInputFactory getSharedXmlInputFactory() {
+        XMLInputFactory xmlInputFactory = sharedXmlInputFactory;
+        if (xmlInputFactory == null) {
+            synchronized (ClientConfiguration.class) {
+                xmlInputFactory = sharedXmlInputFactory;
+                if (xmlInputFactory == null) {
+                    final SecurityManager sm = System.getSecurityManager();
+                    sharedXmlInputFactory = xmlInputFactory = sm == null ? createXmlInputFactory() : AccessController.doPrivileged((PrivilegedAction<XMLInputFactory>) ClientConfiguration::createXmlInputFactory);
+                }
+            }
+        }
+        return xmlInputFactory;
+    }
+
+    private static XMLInputFactory findXmlInputFactory() {
+        final ClassLoader classLoader = ClientConfiguration.class.getClassLoader();
+        // a null class loader would make JAXP fall back to the context class loader
+        if (classLoader != null) {
+            try {
+                return XMLInputFactory.newFactory(XMLInputFactory.class.getName(), classLoader);
+            } catch (FactoryConfigurationError e) {
+                // no implementation is visible to this library
+            }
+        }
+        return XMLInputFactory.newDefaultFactory();
     }
 
     private static XMLInputFactory createXmlInputFactory() {
-        final XMLInputFactory xmlInputFactory = XMLInputFactory.newFactory();
+        final String className = System.getProperty("wildfly.config.xml-input-factory");
+        final XMLInputFactory xmlInputFactory;
+        if (className == null) {
+            xmlInputFactory = findXmlInputFactory();
+        } else {
+            try {
+                xmlInputFactory = Class.forName(className, true, ClientConfiguration.class.getClassLoader()).asSubclass(XMLInputFactory.class).getConstructor().newInstance();
+            } catch (ReflectiveOperationException | ClassCastException | LinkageError e) {
+                throw msg.failedToCreateXmlInputFactory(className, e);
+            }
+        }
         xmlInputFactory.setProperty(XMLInputFactory.IS_VALIDATING, FALSE);
         xmlInputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, FALSE);
         xmlInputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, FALSE);
@@ -216,7 +836,8 @@ public class ClientConfiguration {
      * the current thread's context class loader is consulted for a file called {@code wildfly-config.xml}, either in the
      * root of the class loader or within the {@code META-INF} folder.  If no such resource is found, the same search
      * is done against the class loader of this library.  Finally, if no configurations are found or are loadable, {@code null}
-     * is returned.
+     * is returned.  If a compiled configuration produced by {@link ConfigurationCompiler} is found next to the
+     * configuration file, it is used instead of parsing the file.
      *
      * @return the client configuration instance, or {@code null} if no configuration is found
      */
@@ -224,6 +845,9 @@ public class ClientConfiguration {
         // specified URL overrides all
         final String wildFlyConfig = System.getProperty("wildfly.config.url");
         if (wildFlyConfig != null && !isBlank(wildFlyConfig)) {
+            if (ConfigurationPreloader.ENABLED) {
+                return ConfigurationPreloader.getUrlInstance(wildFlyConfig);
+            }
             return getInstance(propertyUrlToUri(wildFlyConfig));
         }
 
@@ -244,27 +868,151 @@ public class ClientConfiguration {
     /**
      * Get a client configuration instance loaded from a file called {@code wildfly-config.xml}, either from the
      * root of the specified class loader or within the {@code META-INF} folder.
-     * If no configurations are found or are loadable, {@code null} is returned.
+     * If no configurations are found or are loadable, {@code null} is returned.  If the system property
+     * {@code wildfly.config.compiled} is set to {@code true} and the class loader also provides a compiled
+     * configuration called {@code wildfly-config.bin} in the same location, it is used instead of parsing the file.
+     * <p>
+     * The result of the lookup, including the absence of a configuration, is remembered for each class loader (without
+     * preventing the class loader from being garbage collected), so that subsequent calls for the same class loader
+     * return the same instance without searching again.  Use {@link #invalidateInstance(ClassLoader)} to discard the
+     * remembered result, for example after the resources visible to the class loader have changed.
      *
      * @param classLoader the class loader from which to load the configuration resource
      * @return the client configuration instance, or {@code null} if no configuration is found
      */
     public static ClientConfiguration getInstance(ClassLoader classLoader) {
-        URL resource = classLoader.getResource("wildfly-config.xml");
+        Assert.checkNotNullParam("classLoader", classLoader);
+        Object instance;
+        synchronized (INSTANCES) {
+            instance = INSTANCES.get(classLoader);
+        }
+        if (instance == null) {
+            // search outside of the lock; if another thread wins the race, use its result
+            ClientConfiguration loaded = loadInstance(classLoader);
+            if (loaded != null && ConfigurationPreloader.ENABLED) {
+                loaded = loaded.preload();
+            }
+            synchronized (INSTANCES) {
+                instance = INSTANCES.putIfAbsent(classLoader, loaded == null ? NO_INSTANCE : loaded);
+            }
+            if (instance == null) {
+                return loaded;
+            }
+        }
+        return instance == NO_INSTANCE ? null : (ClientConfiguration) instance;
+    }
+
+    /**
+     * Discard the remembered client configuration instance of the given class loader, if any.  The next call to
+     * {@link #getInstance(ClassLoader)} for the class loader will search for the configuration again.
+     *
+     * @param classLoader the class loader (must not be {@code null})
+     */
+    public static void invalidateInstance(ClassLoader classLoader) {
+        Assert.checkNotNullParam("classLoader", classLoader);
+        synchronized (INSTANCES) {
+            INSTANCES.remove(classLoader);
+        }
+    }
+
+    /**
+     * Discard the remembered client configuration instances of all class loaders.
+     */
+    public static void invalidateInstances() {
+        synchronized (INSTANCES) {
+            INSTANCES.clear();
+        }
+    }
+
+    private static ClientConfiguration loadInstance(ClassLoader classLoader) {
+        String name = "wildfly-config";
+        URL resource = classLoader.getResource(name + ".xml");
         if (resource == null) {
-            resource = classLoader.getResource("META-INF/wildfly-config.xml");
+            name = "META-INF/wildfly-config";
+            resource = classLoader.getResource(name + ".xml");
             if (resource == null) {
                 return null;
             }
         }
 
+        final URI uri;
+        try {
+            uri = resource.toURI();
+        } catch (URISyntaxException e) {
+            return null;
+        }
+        if (COMPILED) {
+            final URL compiledResource = classLoader.getResource(name + ".bin");
+            if (compiledResource != null) {
+                try {
+                    final URI compiledUri = compiledResource.toURI();
+                    final ConfigurationSnapshot compiled = loadCompiled(uri, compiledUri);
+                    if (compiled != null) {
+                        return new ClientConfiguration(uri, null, compiled);
+                    }
+                } catch (URISyntaxException ignored) {
+                    // fall back to the XML
+                }
+            }
+        }
+        return new ClientConfiguration(null, uri);
+    }
+
+    /**
+     * Get the URI of the compiled form of the given configuration document, which is the file next to the document
+     * with the {@code .xml} extension replaced by {@code .bin}.
+     *
+     * @param uri the configuration document URI
+     * @return the compiled configuration URI, or {@code null} if the URI does not name an {@code .xml} file
+     */
+    static URI compiledUriOf(URI uri) {
+        final String path = uri.getPath();
+        if (uri.isOpaque() || path == null || ! path.endsWith(".xml")) {
+            return null;
+        }
         try {
-            return new ClientConfiguration(XMLInputFactory.newFactory(), resource.toURI(), resource::openStream);
+            return uri.resolve(new URI(null, null, path.substring(path.lastIndexOf('/') + 1, path.length() - 4) + ".bin", null));
         } catch (URISyntaxException e) {
             return null;
         }
     }
 
+    /**
+     * Load a compiled configuration.  A compiled configuration is ignored if it is unreadable or invalid, or if
+     * the content of any local file that it was compiled from differs from the content it was compiled from.
+     *
+     * @param uri the configuration document URI
+     * @param compiledUri the compiled configuration URI
+     * @return the compiled snapshot, or {@code null} if the compiled configuration cannot be used
+     */
+    private static ConfigurationSnapshot loadCompiled(final URI uri, final URI compiledUri) {
+        final EventTape tape;
+        try (InputStream is = openStream(compiledUri, "application/octet-stream", null)) {
+            tape = EventTape.readFrom(ByteBuffer.wrap(is.readAllBytes()), uri);
+        } catch (IOException | SecurityException e) {
+            return null;
+        }
+        final SourceStamp.Recorder stamps = new SourceStamp.Recorder();
+        final int cnt = tape.getSourceCount();
+        for (int i = 0; i < cnt; i ++) {
+            final URI sourceUri = tape.getSourceUri(i);
+            // stamp before hashing, so that a later modification is seen by the snapshot
+            stamps.stamp(sourceUri);
+            final byte[] expected = tape.getSourceDigest(i);
+            final byte[] actual;
+            try {
+                actual = SourceStamp.digestOf(sourceUri);
+            } catch (IOException | SecurityException e) {
+                return null;
+            }
+            if (! Arrays.equals(expected, actual)) {
+                // out of date, or a local file without a recorded digest
+                return null;
+            }
+        }
+        return new ConfigurationSnapshot(null, tape, stamps.toArray());
+    }
+
     static URI propertyUrlToUri(String wildFlyConfig) {
         if (File.separator.equals("\\") && wildFlyConfig.contains("\\")) { // we are on the windows and path is for windows
             File f = new File(wildFlyConfig);
@@ -0,0 +1,120 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.client.config;
+
+import static org.wildfly.client.config._private.ConfigMessages.msg;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+
+import org.wildfly.common.Assert;
+
+/**
+ * A build-time compiler for client configuration files.  The compiler parses a configuration document, inlines all
+ * of its inclusions, and writes the resulting event stream in a compact binary form.  When the compiled file is found
+ * next to the document (for example {@code wildfly-config.bin} next to {@code wildfly-config.xml}),
+ * {@link ClientConfiguration#getInstance(URI)} and {@link ClientConfiguration#getInstance(ClassLoader)} replay it
+ * instead of parsing the XML, if the system property {@code wildfly.config.compiled} is set to {@code true}.
+ * <p>
+ * The compiled file records a digest of the content of each local file that it was compiled from, and is ignored if
+ * any of those files no longer has the recorded content, regardless of modification times.  The content of sources
+ * which are not local files, such as remote inclusions, is not verified.
+ */
+public final class ConfigurationCompiler {
+
+    private ConfigurationCompiler() {
+    }
+
+    /**
+     * Compile a configuration document.
+     *
+     * @param configurationUri the URI of the configuration document (must not be {@code null})
+     * @param output the file to write the compiled configuration to (must not be {@code null})
+     * @throws ConfigXMLParseException if the configuration document could not be read
+     * @throws IOException if the compiled configuration could not be written
+     */
+    public static void compile(URI configurationUri, Path output) throws ConfigXMLParseException, IOException {
+        Assert.checkNotNullParam("configurationUri", configurationUri);
+        Assert.checkNotNullParam("output", output);
+        final EventTape tape;
+        final SourceStamp.Recorder stamps = new SourceStamp.Recorder();
+        stamps.stamp(configurationUri);
+        try (ConfigurationXMLStreamReader reader = new XIncludeXMLStreamReader(ClientConfiguration.openUri(configurationUri, ClientConfiguration.getSharedXmlInputFactory()), null, stamps)) {
+            tape = EventTape.record(reader);
+        }
+        final int cnt = tape.getSourceCount();
+        final byte[][] digests = new byte[cnt][];
+        for (int i = 0; i < cnt; i ++) {
+            digests[i] = SourceStamp.digestOf(tape.getSourceUri(i));
+        }
+        // the digests must be of the content which was recorded
+        if (! stamps.isCurrent()) {
+            throw msg.sourceModifiedWhileCompiling(configurationUri);
+        }
+        final Path absolute = output.toAbsolutePath();
+        final Path temp = Files.createTempFile(absolute.getParent(), absolute.getFileName().toString(), ".tmp");
+        try {
+            try (OutputStream os = Files.newOutputStream(temp)) {
+                tape.writeTo(os, digests);
+            }
+            Files.move(temp, absolute, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Compile the configuration document named by the first argument, which may be a file name or a URI.  The
+     * compiled configuration is written to the file named by the second argument, or, if it is not given, next to
+     * the document.
+     *
+     * @param args the command line arguments
+     */
+    public static void main(String[] args) {
+        if (args.length < 1 || args.length > 2) {
+            System.err.println(msg.compilerUsage(ConfigurationCompiler.class.getName()));
+            System.exit(1);
+            return;
+        }
+        final URI uri = ClientConfiguration.propertyUrlToUri(args[0]);
+        final Path output;
+        if (args.length == 2) {
+            output = Paths.get(args[1]);
+        } else {
+            final URI compiledUri = uri == null ? null : ClientConfiguration.compiledUriOf(uri);
+            if (compiledUri == null || ! "file".equalsIgnoreCase(compiledUri.getScheme())) {
+                System.err.println(msg.compilerUsage(ConfigurationCompiler.class.getName()));
+                System.exit(1);
+                return;
+            }
+            output = Paths.get(compiledUri);
+        }
+        try {
+            compile(uri, output);
+        } catch (ConfigXMLParseException | IOException e) {
+            System.err.println(e);
+            System.exit(1);
+        }
+    }
+}
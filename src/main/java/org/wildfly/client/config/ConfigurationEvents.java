@@ -0,0 +1,111 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.client.config;
+
+import java.net.URI;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * The entry point for emitting Flight Recorder events.  Events are only created while a recording which enables them
+ * is running; otherwise each method returns {@code null} or does nothing.  No type from {@code jdk.jfr} appears in
+ * this class, so that the library still works on a runtime without the {@code jdk.jfr} module.  Events may be
+ * disabled entirely by setting the system property {@code wildfly.config.jfr} to {@code false}.
+ */
+final class ConfigurationEvents {
+    static final boolean AVAILABLE;
+
+    static {
+        AVAILABLE = Boolean.parseBoolean(System.getProperty("wildfly.config.jfr", "true")) && isJfrPresent();
+    }
+
+    private ConfigurationEvents() {
+    }
+
+    /**
+     * Determine whether the Flight Recorder API can be used from this class.  The module must be present and readable,
+     * and its classes must be visible to this class's class loader, which may not delegate to the platform loader
+     * (for example in a modular container which does not export {@code jdk.jfr} to this library).
+     *
+     * @return {@code true} if events can be created, {@code false} otherwise
+     */
+    private static boolean isJfrPresent() {
+        final Optional<Module> jfr = ModuleLayer.boot().findModule("jdk.jfr");
+        if (jfr.isEmpty() || ! ConfigurationEvents.class.getModule().canRead(jfr.get())) {
+            return false;
+        }
+        try {
+            Class.forName("jdk.jfr.Event", false, ConfigurationEvents.class.getClassLoader());
+            return true;
+        } catch (ClassNotFoundException | LinkageError ignored) {
+            return false;
+        }
+    }
+
+    static Object beginRead() {
+        return AVAILABLE ? JfrEvents.beginRead() : null;
+    }
+
+    static void endRead(Object event, URI uri, Set<String> namespaces, long bytes, boolean failed) {
+        if (event != null) JfrEvents.endRead(event, uri, namespaces, bytes, failed);
+    }
+
+    static Object beginInclude() {
+        return AVAILABLE ? JfrEvents.beginInclude() : null;
+    }
+
+    static void endInclude(Object event, URI href, boolean parseAsText, String outcome) {
+        if (event != null) JfrEvents.endInclude(event, href, parseAsText, outcome);
+    }
+
+    static Object beginExpression() {
+        return AVAILABLE ? JfrEvents.beginExpression() : null;
+    }
+
+    static void endExpression(Object event, String kind) {
+        if (event != null) JfrEvents.endExpression(event, kind);
+    }
+
+    static Object beginSnapshot() {
+        return AVAILABLE ? JfrEvents.beginSnapshot() : null;
+    }
+
+    static void endSnapshot(Object event, URI uri, long generation, ConfigurationSnapshot snapshot) {
+        if (event != null) JfrEvents.endSnapshot(event, uri, generation, snapshot);
+    }
+
+    /**
+     * Get the kind of an expression attribute value, following the same rules as
+     * {@link ConfigurationXMLStreamReader#getExpressionAttributeValue(int, org.wildfly.common.expression.Expression.Flag...)}.
+     *
+     * @param attributeValue the attribute value (must not be {@code null})
+     * @return the kind
+     */
+    static String expressionKind(String attributeValue) {
+        if (attributeValue.startsWith("env.") || attributeValue.contains("env") || attributeValue.contains("ENV")) {
+            return "env";
+        } else if (attributeValue.startsWith("prop.") || attributeValue.contains("prop") || attributeValue.contains("PROP")) {
+            return "prop";
+        } else if (attributeValue.contains("ENC:")) {
+            return "ENC";
+        } else {
+            return "expression";
+        }
+    }
+}
@@ -0,0 +1,225 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.client.config;
+
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+
+import org.wildfly.common.Assert;
+
+/**
+ * A non-blocking source of a client configuration, which parses a configuration document from buffers of bytes as
+ * they arrive.  Each buffer is parsed as soon as it is given to the feed, so that a document received over the
+ * network is parsed while it is being transferred, without blocking a thread on the input; when the document ends,
+ * the result is a {@linkplain ClientConfiguration#snapshot() snapshot} configuration.
+ * <p>
+ * The feed may be given its input directly, by way of {@link #feed(ByteBuffer)} and {@link #end()}, or it may be
+ * subscribed to a {@linkplain Flow.Publisher publisher} of byte buffers, such as the body of an asynchronous HTTP
+ * response:
+ * <pre>{@code
+ * ConfigurationFeed feed = new ConfigurationFeed(uri, executor);
+ * httpClient.sendAsync(request, HttpResponse.BodyHandlers.fromSubscriber(feed));
+ * feed.getResult().thenAccept(configuration -> ...);
+ * }</pre>
+ * The document is parsed by the same rules as a document read by {@link ClientConfiguration}.  Its inclusions are
+ * resolved against the given URI once the document is complete; since this requires blocking I/O, a feed which
+ * is completed by its publisher resolves them using a task submitted to the given executor.
+ * <p>
+ * Only the parsing of the document overlaps with its transfer: the parsed events are not available to be read until
+ * the document has ended, so the configuration is consumed after the transfer is complete, as with any other source.
+ * Since a document may come from an untrusted source, the size of its tokens, the depth to which its elements are
+ * nested, the number of attributes of an element and the length of a name are limited; the limits are set by the
+ * {@code wildfly.config.feed.max-token-size}, {@code wildfly.config.feed.max-depth},
+ * {@code wildfly.config.feed.max-attributes} and {@code wildfly.config.feed.max-name-length} system properties, and a
+ * document which exceeds one is rejected.
+ * <p>
+ * A feed reads a single document, and is not reusable.  Input may be given to a feed from any thread, but not from
+ * more than one thread at a time.
+ */
+public final class ConfigurationFeed implements Flow.Subscriber<List<ByteBuffer>> {
+    private final URI uri;
+    private final Executor executor;
+    private final FeedParser parser;
+    private final CompletableFuture<ClientConfiguration> result = new CompletableFuture<>();
+    private Flow.Subscription subscription;
+    private long bytes;
+
+    /**
+     * Construct a new instance.
+     *
+     * @param uri the URI of the configuration document, against which inclusions are resolved (must not be {@code null})
+     * @param executor the executor used to resolve the inclusions of a document completed by its publisher (must not be {@code null})
+     */
+    public ConfigurationFeed(final URI uri, final Executor executor) {
+        Assert.checkNotNullParam("uri", uri);
+        Assert.checkNotNullParam("executor", executor);
+        this.uri = uri;
+        this.executor = executor;
+        parser = new FeedParser(uri);
+    }
+
+    /**
+     * Parse the next part of the document.  All of the remaining bytes of the buffer are consumed; the buffer may be
+     * reused once this method returns.  Any event which is completed by the given bytes is parsed before this method
+     * returns.
+     *
+     * @param buffer the next part of the document (must not be {@code null})
+     * @throws ConfigXMLParseException if the document is not well-formed
+     * @throws IllegalStateException if the feed has already ended
+     */
+    public void feed(ByteBuffer buffer) throws ConfigXMLParseException {
+        Assert.checkNotNullParam("buffer", buffer);
+        bytes += buffer.remaining();
+        try {
+            parser.feed(buffer);
+        } catch (Throwable t) {
+            result.completeExceptionally(t);
+            throw t;
+        }
+    }
+
+    /**
+     * End the document, resolving its inclusions on the calling thread.  The {@linkplain #getResult() result} is
+     * completed with the returned configuration.
+     *
+     * @return the snapshot configuration
+     * @throws ConfigXMLParseException if the document is incomplete or not well-formed, or an inclusion fails
+     * @throws IllegalStateException if the feed has already ended
+     */
+    public ClientConfiguration end() throws ConfigXMLParseException {
+        final ClientConfiguration configuration;
+        try {
+            final EventTape tape = parser.end();
+            Metrics.get().sourceRead(uri, bytes, parser.getCharacterCount(), parser.getEventCount());
+            final ConfigurationSnapshot snapshot;
+            if (parser.hasIncludes()) {
+                final SourceStamp.Recorder stamps = new SourceStamp.Recorder();
+                stamps.stamp(uri);
+                snapshot = ConfigurationSnapshot.record(new XIncludeXMLStreamReader(tape.newReader(null, null), null, stamps), null, stamps);
+            } else {
+                snapshot = new ConfigurationSnapshot(null, tape, ConfigurationSnapshot.stampsOf(tape));
+            }
+            configuration = new ClientConfiguration(uri, null, snapshot);
+        } catch (Throwable t) {
+            result.completeExceptionally(t);
+            throw t;
+        }
+        result.complete(configuration);
+        return configuration;
+    }
+
+    /**
+     * Get the number of events parsed from the document so far.
+     *
+     * @return the number of events
+     */
+    public long getEventCount() {
+        return parser.getEventCount();
+    }
+
+    /**
+     * Get the result of this feed.  The future is completed with the snapshot configuration when the document ends,
+     * or exceptionally with a {@link ConfigXMLParseException} if the document is not valid.  If the feed's publisher
+     * fails, or reading the document fails for any other reason, the future is completed exceptionally with the
+     * failure.
+     *
+     * @return the future result
+     */
+    public CompletableFuture<ClientConfiguration> getResult() {
+        return result;
+    }
+
+    /**
+     * Accept the subscription to a publisher of the document, requesting all of its content.
+     *
+     * @param subscription the subscription (must not be {@code null})
+     */
+    public void onSubscribe(final Flow.Subscription subscription) {
+        Assert.checkNotNullParam("subscription", subscription);
+        if (this.subscription != null || result.isDone()) {
+            subscription.cancel();
+            return;
+        }
+        this.subscription = subscription;
+        // parsing never blocks, so there is no reason to hold the publisher back
+        subscription.request(Long.MAX_VALUE);
+    }
+
+    /**
+     * Parse the next buffers of the document.  If the document is not well-formed, the subscription is cancelled.
+     *
+     * @param buffers the buffers (must not be {@code null})
+     */
+    public void onNext(final List<ByteBuffer> buffers) {
+        Assert.checkNotNullParam("buffers", buffers);
+        if (result.isDone()) {
+            return;
+        }
+        try {
+            for (ByteBuffer buffer : buffers) {
+                feed(buffer);
+            }
+        } catch (Throwable ignored) {
+            // the result has been completed
+            subscription.cancel();
+        }
+    }
+
+    /**
+     * Fail the feed with the publisher's failure.
+     *
+     * @param throwable the failure (must not be {@code null})
+     */
+    public void onError(final Throwable throwable) {
+        Assert.checkNotNullParam("throwable", throwable);
+        result.completeExceptionally(throwable);
+    }
+
+    /**
+     * End the document.  If the document contains inclusions, they are resolved using a task submitted to this
+     * feed's executor; otherwise the result is completed immediately.
+     */
+    public void onComplete() {
+        if (result.isDone()) {
+            return;
+        }
+        if (parser.hasIncludes()) {
+            try {
+                executor.execute(this::complete);
+            } catch (Throwable t) {
+                result.completeExceptionally(t);
+            }
+        } else {
+            complete();
+        }
+    }
+
+    private void complete() {
+        try {
+            end();
+        } catch (Throwable t) {
+            // normally the result has already been completed by end()
+            result.completeExceptionally(t);
+        }
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.client.config;
+
+import java.net.URI;
+
+/**
+ * A receiver of measurements taken while configurations are loaded.  All methods have empty default
+ * implementations, so an implementation only needs to override the measurements it is interested in.  Methods may
+ * be called concurrently from any thread, and should return quickly.
+ * <p>
+ * Metrics are enabled by registering an implementation with {@link ClientConfiguration#registerMetrics(ConfigurationMetrics)}.
+ * While {@link #NONE} is registered, which is the default, no measurements are taken at all.
+ */
+public interface ConfigurationMetrics {
+
+    /**
+     * The metrics instance which discards all measurements.
+     */
+    ConfigurationMetrics NONE = new ConfigurationMetrics() {};
+
+    /**
+     * The shared caches which report hits and misses.
+     */
+    enum Cache {
+        /**
+         * The cache of parsed XInclude targets.
+         */
+        INCLUDE,
+        /**
+         * The cache of compiled expressions.
+         */
+        EXPRESSION,
+    }
+
+    /**
+     * A configuration read has completed.  For a reader returned by {@link ClientConfiguration#readConfiguration(java.util.Set)},
+     * the time runs from the call until the reader is closed.
+     *
+     * @param uri the configuration URI
+     * @param nanos the elapsed time in nanoseconds
+     */
+    default void configurationRead(URI uri, long nanos) {
+    }
+
+    /**
+     * A configuration read has failed, for example because the document could not be opened or parsed, or because a
+     * handler passed to {@link ClientConfiguration#readConfiguration(java.util.Map)} failed.
+     *
+     * @param uri the configuration URI
+     * @param nanos the elapsed time in nanoseconds
+     */
+    default void configurationReadFailed(URI uri, long nanos) {
+    }
+
+    /**
+     * A document or text inclusion has been read and closed.
+     *
+     * @param uri the source URI
+     * @param bytes the number of bytes read from the source stream
+     * @param characters the number of characters parsed
+     * @param events the number of events produced
+     */
+    default void sourceRead(URI uri, long bytes, long characters, long events) {
+    }
+
+    /**
+     * The target of an XInclude has been fetched, or obtained from the include cache.
+     *
+     * @param href the resolved include URI
+     * @param nanos the elapsed time in nanoseconds
+     */
+    default void includeFetched(URI href, long nanos) {
+    }
+
+    /**
+     * A shared cache lookup has found its entry.
+     *
+     * @param cache the cache
+     */
+    default void cacheHit(Cache cache) {
+    }
+
+    /**
+     * A shared cache lookup has not found its entry.
+     *
+     * @param cache the cache
+     */
+    default void cacheMiss(Cache cache) {
+    }
+
+    /**
+     * An attribute value has been resolved by evaluating its expression.
+     *
+     * @param nanos the elapsed time in nanoseconds
+     */
+    default void expressionResolved(long nanos) {
+    }
+
+    /**
+     * An encrypted ({@code ENC:}) expression has been resolved by the resolver provider.
+     *
+     * @param nanos the elapsed time in nanoseconds
+     */
+    default void encryptedExpressionResolved(long nanos) {
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.client.config;
+
+import java.security.AccessController;
+import java.security.PrivilegedAction;
+
+/**
+ * Reads configuration snapshots in the background, so that the first read of a configuration finds its snapshot
+ * already parsed.  The background read takes the same lock as a foreground read, so a read which arrives while the
+ * preload is still running simply waits for it to finish instead of parsing the document a second time.
+ * <p>
+ * If the system property {@code wildfly.config.preload} is {@code true}, the default configuration is preloaded as
+ * soon as this library is initialized.
+ */
+final class ConfigurationPreloader {
+    static final boolean ENABLED = Boolean.getBoolean("wildfly.config.preload");
+
+    private static String defaultUrl;
+    private static ClientConfiguration defaultUrlInstance;
+
+    private ConfigurationPreloader() {
+    }
+
+    /**
+     * Start reading the snapshot of the given configuration in the background.
+     *
+     * @param configuration the snapshot configuration
+     */
+    static void start(final ClientConfiguration configuration) {
+        start("wildfly-client-config preload for " + configuration.getConfigurationUri(), configuration::preloadSnapshot);
+    }
+
+    /**
+     * Start locating and preloading the default configuration in the background.  The lookup uses the context class
+     * loader of the calling thread.
+     */
+    static void startDefault() {
+        final ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        start("wildfly-client-config preload", () -> {
+            Thread.currentThread().setContextClassLoader(classLoader);
+            try {
+                // the lookup preloads whatever it finds
+                ClientConfiguration.getInstance();
+            } catch (RuntimeException ignored) {
+                // reported again by the first foreground lookup
+            }
+        });
+    }
+
+    /**
+     * Get the preloaded instance for the configuration named by the {@code wildfly.config.url} property, so that
+     * every lookup with the same property value shares one preloaded snapshot.
+     *
+     * @param url the property value
+     * @return the preloaded configuration
+     */
+    static synchronized ClientConfiguration getUrlInstance(final String url) {
+        if (! url.equals(defaultUrl)) {
+            defaultUrlInstance = ClientConfiguration.getInstance(ClientConfiguration.propertyUrlToUri(url)).preload();
+            defaultUrl = url;
+        }
+        return defaultUrlInstance;
+    }
+
+    private static void start(final String name, final Runnable task) {
+        final SecurityManager sm = System.getSecurityManager();
+        if (sm == null) {
+            startThread(name, task);
+        } else {
+            AccessController.doPrivileged((PrivilegedAction<Void>) () -> {
+                startThread(name, task);
+                return null;
+            });
+        }
+    }
+
+    private static void startThread(final String name, final Runnable task) {
+        try {
+            final Thread thread = (Thread) Thread.class.getMethod("startVirtualThread", Runnable.class).invoke(null, task);
+            thread.setName(name);
+            return;
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // no virtual threads
+        }
+        final Thread thread = new Thread(task, name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+}
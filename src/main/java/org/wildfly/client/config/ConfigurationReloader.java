@@ -0,0 +1,180 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.client.config;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A background watcher which reloads a configuration when any of the local files of its current snapshot change.
+ * The watcher only holds a weak reference to the configuration, and stops by itself once the configuration is
+ * no longer reachable.
+ */
+final class ConfigurationReloader implements Runnable {
+    // how long the watched files must be quiet before reloading, in milliseconds
+    private static final long DEBOUNCE = Long.getLong("wildfly.config.reload.debounce", 200L).longValue();
+    // how often to check whether the configuration is still reachable, in milliseconds
+    private static final long IDLE = 5000L;
+
+    private final WeakReference<ClientConfiguration> configurationRef;
+    private final WatchService watchService;
+    // only accessed from the watcher thread once started
+    private final Map<Path, WatchKey> keys = new HashMap<>();
+    private Set<Path> files = new HashSet<>();
+    // whether the snapshot being watched changed before its directories were registered
+    private boolean stale;
+
+    private ConfigurationReloader(final ClientConfiguration configuration, final WatchService watchService) {
+        configurationRef = new WeakReference<>(configuration);
+        this.watchService = watchService;
+    }
+
+    /**
+     * Start watching the files of the given snapshot.
+     *
+     * @param configuration the configuration to reload
+     * @param snapshot the current snapshot of the configuration
+     * @return the reloader, or {@code null} if file watching is not available
+     */
+    static ConfigurationReloader start(final ClientConfiguration configuration, final ConfigurationSnapshot snapshot) {
+        final FileSystem fileSystem = FileSystems.getDefault();
+        final ConfigurationReloader reloader;
+        try {
+            reloader = new ConfigurationReloader(configuration, fileSystem.newWatchService());
+        } catch (IOException | UnsupportedOperationException e) {
+            return null;
+        }
+        reloader.watch(snapshot);
+        // a change made before the directories were registered is not reported by the watch service
+        reloader.stale = ! snapshot.isCurrent();
+        final Thread thread = new Thread(reloader, "wildfly-client-config reloader for " + configuration.getConfigurationUri());
+        thread.setDaemon(true);
+        thread.start();
+        return reloader;
+    }
+
+    void stop() {
+        try {
+            watchService.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    private void watch(final ConfigurationSnapshot snapshot) {
+        final Set<Path> files = new HashSet<>();
+        final Set<Path> dirs = new HashSet<>();
+        final FileSystem fileSystem = FileSystems.getDefault();
+        for (SourceStamp stamp : snapshot.getStamps()) {
+            final Path path = stamp.getPath().toAbsolutePath();
+            final Path dir = path.getParent();
+            if (dir != null && path.getFileSystem() == fileSystem) {
+                files.add(path);
+                dirs.add(dir);
+            }
+        }
+        final Iterator<Map.Entry<Path, WatchKey>> iterator = keys.entrySet().iterator();
+        while (iterator.hasNext()) {
+            final Map.Entry<Path, WatchKey> entry = iterator.next();
+            if (! dirs.remove(entry.getKey())) {
+                entry.getValue().cancel();
+                iterator.remove();
+            }
+        }
+        for (Path dir : dirs) {
+            try {
+                keys.put(dir, dir.register(watchService, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE));
+            } catch (IOException | SecurityException ignored) {
+                // the directory is gone or inaccessible; changes to it will not be noticed
+            }
+        }
+        this.files = files;
+    }
+
+    public void run() {
+        try {
+            for (;;) {
+                WatchKey key;
+                if (! stale) {
+                    key = watchService.poll(IDLE, TimeUnit.MILLISECONDS);
+                    if (configurationRef.get() == null) {
+                        return;
+                    }
+                    if (key == null || ! isRelevant(key)) {
+                        continue;
+                    }
+                }
+                // wait for the burst of changes to settle
+                while ((key = watchService.poll(DEBOUNCE, TimeUnit.MILLISECONDS)) != null) {
+                    isRelevant(key);
+                }
+                final ClientConfiguration configuration = configurationRef.get();
+                if (configuration == null) {
+                    return;
+                }
+                stale = false;
+                try {
+                    final ConfigurationSnapshot snapshot = configuration.reload();
+                    watch(snapshot);
+                    stale = ! snapshot.isCurrent();
+                } catch (ConfigXMLParseException | RuntimeException ignored) {
+                    // keep the previous snapshot; retry on the next change
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException ignored) {
+            // stopped
+        } finally {
+            stop();
+            // if this watcher is going away unexpectedly, fall back to revalidating the snapshot on each read
+            final ClientConfiguration configuration = configurationRef.get();
+            if (configuration != null) {
+                configuration.reloaderExited(this);
+            }
+        }
+    }
+
+    private boolean isRelevant(final WatchKey key) {
+        boolean relevant = false;
+        final Path dir = (Path) key.watchable();
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == OVERFLOW || files.contains(dir.resolve((Path) event.context()))) {
+                relevant = true;
+            }
+        }
+        key.reset();
+        return relevant;
+    }
+}
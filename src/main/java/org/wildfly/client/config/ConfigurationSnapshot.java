@@ -0,0 +1,190 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.client.config;
+
+import static javax.xml.stream.XMLStreamConstants.END_ELEMENT;
+import static javax.xml.stream.XMLStreamConstants.START_ELEMENT;
+import static org.wildfly.client.config.EventTape.HEADER_LENGTH;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.xml.stream.XMLInputFactory;
+
+/**
+ * An immutable, fully parsed copy of a configuration document and all of its inclusions.  Any number of readers
+ * may replay a snapshot concurrently without performing any I/O or XML parsing.
+ * <p>
+ * A snapshot also indexes the children of the root element by namespace, so that selecting a configuration by
+ * namespace seeks directly to the matching element instead of scanning over the content which precedes it.  The
+ * snapshot remembers the modification time and size of every local file which contributed to it, as they were before
+ * the file was opened, so that it can be discarded when any of them changes, even while it is being read.
+ */
+final class ConfigurationSnapshot {
+    private static final int[] NO_INTS = new int[0];
+
+    private final XMLInputFactory xmlInputFactory;
+    private final EventTape tape;
+    private final SourceStamp[] stamps;
+    private final int rootPos;
+    // namespace URI -> start record positions of the root element children in that namespace
+    private final Map<String, int[]> index;
+
+    ConfigurationSnapshot(final XMLInputFactory xmlInputFactory, final EventTape tape, final SourceStamp[] stamps) {
+        this.xmlInputFactory = xmlInputFactory;
+        this.tape = tape;
+        this.stamps = stamps;
+        final int[] ops = tape.getOps();
+        final String[] symbols = tape.getSymbols();
+        final Map<String, List<Integer>> found = new LinkedHashMap<>();
+        int rootPos = -1;
+        int depth = 0;
+        for (int pos = 0; pos < ops.length; pos += tape.recordLength(pos)) {
+            switch (ops[pos] & 0xff) {
+                case START_ELEMENT: {
+                    if (depth == 0 && rootPos == -1) {
+                        rootPos = pos;
+                    } else if (depth == 1) {
+                        found.computeIfAbsent(symbols[ops[pos + HEADER_LENGTH]], k -> new ArrayList<>()).add(Integer.valueOf(pos));
+                    }
+                    depth ++;
+                    break;
+                }
+                case END_ELEMENT: {
+                    depth --;
+                    break;
+                }
+            }
+        }
+        final Map<String, int[]> index = new HashMap<>(found.size() * 2);
+        for (Map.Entry<String, List<Integer>> entry : found.entrySet()) {
+            index.put(entry.getKey(), entry.getValue().stream().mapToInt(Integer::intValue).toArray());
+        }
+        this.rootPos = rootPos;
+        this.index = index;
+    }
+
+    /**
+     * Record the remaining content of the given reader, starting with its current event.  The reader is consumed
+     * but not closed.
+     *
+     * @param reader the reader to record
+     * @param xmlInputFactory the XML input factory to report from replaying readers
+     * @param stamps the recorder which the reader stamps each local file with before opening it
+     * @return the snapshot
+     * @throws ConfigXMLParseException if reading the document fails
+     */
+    static ConfigurationSnapshot record(final ConfigurationXMLStreamReader reader, final XMLInputFactory xmlInputFactory, final SourceStamp.Recorder stamps) throws ConfigXMLParseException {
+        final EventTape tape = EventTape.record(reader);
+        return new ConfigurationSnapshot(xmlInputFactory, tape, stamps.toArray());
+    }
+
+    /**
+     * Get the current stamps of the local files of the sources of the given tape.  Only suitable for tapes which were
+     * not read from those files by this library.
+     *
+     * @param tape the tape
+     * @return the stamps
+     */
+    static SourceStamp[] stampsOf(final EventTape tape) {
+        final SourceStamp.Recorder stamps = new SourceStamp.Recorder();
+        final int cnt = tape.getSourceCount();
+        for (int i = 0; i < cnt; i ++) {
+            stamps.stamp(tape.getSourceUri(i));
+        }
+        return stamps.toArray();
+    }
+
+    /**
+     * Get a new reader which replays this snapshot from the beginning.
+     *
+     * @return the new reader
+     */
+    ConfigurationXMLStreamReader newReader() {
+        return tape.newReader(null, xmlInputFactory);
+    }
+
+    /**
+     * Get a new reader over the first child of the root element whose namespace is one of the given namespaces.
+     * The reader is positioned before the start of the element and ends after its end.
+     *
+     * @param namespaces the recognized namespaces
+     * @return the new reader (not {@code null})
+     */
+    ConfigurationXMLStreamReader select(final Set<String> namespaces) {
+        int found = Integer.MAX_VALUE;
+        for (String namespace : namespaces) {
+            final int[] positions = index.getOrDefault(namespace, NO_INTS);
+            if (positions.length > 0 && positions[0] < found) {
+                found = positions[0];
+            }
+        }
+        if (found == Integer.MAX_VALUE) {
+            return new EmptyXMLStreamReader(getUri(), null);
+        }
+        return new SelectingXMLStreamReader(true, tape.newReader(null, xmlInputFactory, found, rootPos));
+    }
+
+    /**
+     * Get the start record positions of the children of the root element in the given namespace.
+     *
+     * @param namespace the namespace URI
+     * @return the positions (not {@code null})
+     */
+    int[] getIndex(final String namespace) {
+        final int[] positions = index.getOrDefault(namespace, NO_INTS);
+        return positions.length == 0 ? positions : Arrays.copyOf(positions, positions.length);
+    }
+
+    /**
+     * Determine whether every local file which contributed to this snapshot is unchanged.
+     *
+     * @return {@code true} if the snapshot is current, {@code false} if it is stale
+     */
+    boolean isCurrent() {
+        for (SourceStamp stamp : stamps) {
+            if (! stamp.isCurrent()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    URI getUri() {
+        return tape.getSourceUri(0);
+    }
+
+    XMLInputFactory getXmlInputFactory() {
+        return xmlInputFactory;
+    }
+
+    EventTape getTape() {
+        return tape;
+    }
+
+    SourceStamp[] getStamps() {
+        return stamps;
+    }
+}
@@ -20,14 +20,13 @@ package org.wildfly.client.config;
 
 import static org.wildfly.client.config._private.ConfigMessages.msg;
 
+import java.io.Reader;
 import java.net.InetAddress;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
-import java.util.ServiceConfigurationError;
-import java.util.ServiceLoader;
 
 import javax.xml.stream.XMLInputFactory;
 import javax.xml.stream.XMLStreamReader;
@@ -164,6 +163,24 @@ public interface ConfigurationXMLStreamReader extends XMLStreamReader, AutoClose
         }
     }
 
+    /**
+     * Get a reader over the text content of the current element, so that large content can be consumed without
+     * building a single string.  Each read advances this stream reader as needed; once the returned reader reports
+     * the end of input, this stream reader is positioned on the corresponding end element.  Parse errors are reported
+     * as an {@link java.io.IOException} caused by a {@link ConfigXMLParseException}.  This stream reader must not be
+     * used otherwise until the returned reader is exhausted.
+     *
+     * @return the text content reader (not {@code null})
+     * @throws ConfigXMLParseException if the current event is not a start element
+     */
+    default Reader getElementTextReader() throws ConfigXMLParseException {
+        final int eventType = getEventType();
+        if (eventType != START_ELEMENT) {
+            throw msg.expectedStartElement(eventToString(eventType), getLocation());
+        }
+        return new ElementTextReader(this);
+    }
+
     /**
      * Get the element text content as an expression.
      *
@@ -173,7 +190,7 @@ public interface ConfigurationXMLStreamReader extends XMLStreamReader, AutoClose
      */
     default Expression getElementExpression(Expression.Flag... flags) throws ConfigXMLParseException {
         try {
-            return Expression.compile(getElementText(), flags);
+            return ExpressionCache.compile(getElementText(), flags);
         } catch (IllegalArgumentException ex) {
             throw msg.expressionTextParseException(ex, getLocation());
         }
@@ -375,8 +392,20 @@ public interface ConfigurationXMLStreamReader extends XMLStreamReader, AutoClose
      * @throws ConfigXMLParseException if an error occurs
      */
     default String getAttributeValueResolved(int index) throws ConfigXMLParseException {
-        final Expression expression = getExpressionAttributeValue(index, Expression.Flag.ESCAPES);
-        return expression.evaluateWithPropertiesAndEnvironment(false);
+        final ConfigurationMetrics metrics = Metrics.get();
+        final String attributeValue = getAttributeValue(index);
+        // the event covers the evaluation as well as the compilation, like the metrics
+        final Object event = attributeValue == null ? null : ConfigurationEvents.beginExpression();
+        if (metrics == ConfigurationMetrics.NONE && event == null) {
+            return ResolutionContext.of(this).evaluate(attributeValue == null ? null : compileAttributeValue(index, attributeValue, Expression.Flag.ESCAPES));
+        }
+        final long start = System.nanoTime();
+        final String value = ResolutionContext.of(this).evaluate(attributeValue == null ? null : compileAttributeValue(index, attributeValue, Expression.Flag.ESCAPES));
+        metrics.expressionResolved(System.nanoTime() - start);
+        if (event != null) {
+            ConfigurationEvents.endExpression(event, ConfigurationEvents.expressionKind(attributeValue));
+        }
+        return value;
     }
 
     /**
@@ -727,39 +756,48 @@ public interface ConfigurationXMLStreamReader extends XMLStreamReader, AutoClose
         final String attributeValue = getAttributeValue(index);
         if (attributeValue == null) {
             return null;
-        } else if (attributeValue.startsWith("env.")) {
-            String envVar = System.getenv().get(attributeValue.substring(4));
+        }
+        final Object event = ConfigurationEvents.beginExpression();
+        if (event == null) {
+            return compileAttributeValue(index, attributeValue, flags);
+        }
+        final Expression expression = compileAttributeValue(index, attributeValue, flags);
+        ConfigurationEvents.endExpression(event, ConfigurationEvents.expressionKind(attributeValue));
+        return expression;
+    }
+
+    private Expression compileAttributeValue(int index, String attributeValue, Expression.Flag... flags) throws ConfigXMLParseException {
+        final ResolutionContext context = ResolutionContext.of(this);
+        if (attributeValue.startsWith("env.")) {
+            String envVar = context.getEnvironmentVariable(attributeValue.substring(4));
             return getExpressionFromVariable(envVar, flags);
         } else if (attributeValue.contains("env") || attributeValue.contains("ENV")) {
             String envVar = replaceNonAlphanumericByUnderscoresAndMakeUpperCase(attributeValue);
             return getExpressionFromVariable(envVar, flags);
         } else if (attributeValue.startsWith("prop.")) {
-            String propertyValue = System.getProperty(attributeValue.substring(5));
+            String propertyValue = context.getProperty(attributeValue.substring(5));
             return getExpressionFromVariable(propertyValue, flags);
         } else if (attributeValue.contains("prop") || attributeValue.contains("PROP")) {
-            String propertyValue = System.getProperty(replaceNonAlphanumericByUnderscoresAndMakeUpperCase(attributeValue));
+            String propertyValue = context.getProperty(replaceNonAlphanumericByUnderscoresAndMakeUpperCase(attributeValue));
             return getExpressionFromVariable(propertyValue, flags);
         } else if (attributeValue.contains("ENC:")) {
             return resolveEncryptedExpression(attributeValue, flags);
         } else try {
-            return Expression.compile(attributeValue, flags);
+            return ExpressionCache.compile(attributeValue, flags);
         } catch (IllegalArgumentException ex) {
             throw msg.expressionParseException(ex, getAttributeName(index), getLocation());
         }
     }
 
     default Expression resolveEncryptedExpression(String attributeValue,  Expression.Flag... flags) throws ConfigXMLParseException {
-        try {
-            Iterator<ResolverProvider> resolverProviderIterator = ServiceLoader.load(ResolverProvider.class, ConfigurationXMLStreamReader.class.getClassLoader()).iterator();
-            if (resolverProviderIterator.hasNext()) {
-                final ResolverProvider resolverProvider = resolverProviderIterator.next();
-                return Expression.compile(resolverProvider.resolveExpression(attributeValue), flags);
-            } else {
-                throw msg.failedToLoadResolver();
-            }
-        } catch (ServiceConfigurationError e) {
-            throw msg.failedToLoadUsingServiceLoader(ResolverProvider.class.getName());
+        final ConfigurationMetrics metrics = Metrics.get();
+        if (metrics == ConfigurationMetrics.NONE) {
+            return Expression.compile(ResolverProviders.get().resolveExpression(attributeValue), flags);
         }
+        final long start = System.nanoTime();
+        final String resolved = ResolverProviders.get().resolveExpression(attributeValue);
+        metrics.encryptedExpressionResolved(System.nanoTime() - start);
+        return Expression.compile(resolved, flags);
     }
 
     /**
@@ -843,25 +881,14 @@ public interface ConfigurationXMLStreamReader extends XMLStreamReader, AutoClose
     }
 
     default String replaceNonAlphanumericByUnderscoresAndMakeUpperCase(final String name) {
-        StringBuilder sb = new StringBuilder();
-        int c;
-        for (int i = 0; i < name.length(); i += Character.charCount(c)) {
-            c = Character.toUpperCase(name.codePointAt(i));
-            if ('A' <= c && c <= 'Z' || '0' <= c && c <= '9') {
-                sb.appendCodePoint(c);
-            } else if (c == '{' || c == '}' || c == '$') {
-                //ignore these characters
-            }else {
-                sb.append('_');
-            }
-        }
-        return sb.toString();
+        return ResolutionContext.mangle(name);
     }
 
     default Expression getExpressionFromVariable(final String variable, Expression.Flag... flags) throws ConfigXMLParseException {
         if (variable.contains("ENC:")) {
             return resolveEncryptedExpression(variable, flags);
         } else {
+            // values taken from the environment or system properties are not cached, as they may be secrets
             return Expression.compile(variable, flags);
         }
     }
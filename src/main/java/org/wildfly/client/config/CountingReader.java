@@ -61,25 +61,49 @@ final class CountingReader extends Reader {
     }
 
     public int read(final char[] cbuf) throws IOException {
-        int cnt = reader.read(cbuf);
-        if (cnt > 0) {
-            for (int i = 0; i < cnt; i ++) {
-                processChar(cbuf[i]);
-            }
-        }
-        return cnt;
+        return read(cbuf, 0, cbuf.length);
     }
 
     public int read(final char[] cbuf, final int off, final int len) throws IOException {
         int cnt = reader.read(cbuf, off, len);
         if (cnt > 0) {
-            for (int i = 0; i < cnt; i ++) {
-                processChar(cbuf[i + off]);
-            }
+            processChars(cbuf, off, cnt);
         }
         return cnt;
     }
 
+    /**
+     * Account for a span of characters at once.  Only the characters after the last newline affect the column
+     * number, so they are scanned first; the remainder only needs its newlines and low surrogates counted.
+     */
+    private void processChars(final char[] cbuf, final int off, final int len) {
+        final int end = off + len;
+        int last = end - 1;
+        int tailSurrogates = 0;
+        char ch;
+        while (last >= off && (ch = cbuf[last]) != '\n') {
+            if (Character.isLowSurrogate(ch)) {
+                tailSurrogates ++;
+            }
+            last --;
+        }
+        if (last < off) {
+            characterOffset += len - tailSurrogates;
+            columnNumber += len - tailSurrogates;
+            return;
+        }
+        int lines = 0;
+        int surrogates = 0;
+        for (int i = off; i <= last; i ++) {
+            ch = cbuf[i];
+            lines += ch == '\n' ? 1 : 0;
+            surrogates += Character.isLowSurrogate(ch) ? 1 : 0;
+        }
+        characterOffset += len - tailSurrogates - surrogates;
+        lineNumber += lines;
+        columnNumber = end - last - tailSurrogates;
+    }
+
     public void close() throws IOException {
         reader.close();
     }
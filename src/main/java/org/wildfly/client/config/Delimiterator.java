@@ -18,6 +18,7 @@
 
 package org.wildfly.client.config;
 
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
 
@@ -65,48 +66,84 @@ final class Delimiterator implements Iterator<String> {
     }
 
     public String[] toStringArray() {
-        return toStringArray(0);
-    }
-
-    String[] toStringArray(int count) {
-        if (hasNext()) {
-            final String next = next();
-            final String[] strings = toStringArray(count + 1);
-            strings[count] = next;
-            return strings;
-        } else {
-            return count == 0 ? NO_STRINGS : new String[count];
+        if (! hasNext()) {
+            return NO_STRINGS;
         }
+        // every element is copied out anyway, so a counting pass would cost more than growing the array
+        String[] strings = new String[8];
+        int count = 0;
+        do {
+            if (count == strings.length) {
+                strings = Arrays.copyOf(strings, count << 1);
+            }
+            strings[count ++] = next();
+        } while (hasNext());
+        return count == strings.length ? strings : Arrays.copyOf(strings, count);
     }
 
     public int[] toIntArray() throws NumberFormatException {
-        return toIntArray(0);
+        final int count = remaining();
+        if (count == 0) {
+            return NO_INTS;
+        }
+        final String subject = this.subject;
+        final int[] ints = new int[count];
+        for (int j = 0; j < count; j ++) {
+            final int start = i;
+            final int end = nextEnd();
+            ints[j] = Integer.parseInt(subject, start, end, 10);
+        }
+        return ints;
     }
 
-    int[] toIntArray(int count) {
-        if (hasNext()) {
-            final String next = next();
-            final int[] ints = toIntArray(count + 1);
-            ints[count] = Integer.parseInt(next);
-            return ints;
-        } else {
-            return count == 0 ? NO_INTS : new int[count];
+    public long[] toLongArray() throws NumberFormatException {
+        final int count = remaining();
+        if (count == 0) {
+            return NO_LONGS;
         }
+        final String subject = this.subject;
+        final long[] longs = new long[count];
+        for (int j = 0; j < count; j ++) {
+            final int start = i;
+            final int end = nextEnd();
+            longs[j] = Long.parseLong(subject, start, end, 10);
+        }
+        return longs;
     }
 
-    public long[] toLongArray() throws NumberFormatException {
-        return toLongArray(0);
+    /**
+     * Count the elements which have not yet been consumed.
+     *
+     * @return the number of remaining elements
+     */
+    private int remaining() {
+        int n = i;
+        if (n == -1) {
+            return 0;
+        }
+        final String subject = this.subject;
+        final char delimiter = this.delimiter;
+        int count = 1;
+        while ((n = subject.indexOf(delimiter, n)) != -1) {
+            count ++;
+            n ++;
+        }
+        return count;
     }
 
-    long[] toLongArray(int count) {
-        if (hasNext()) {
-            final String next = next();
-            final long[] longs = toLongArray(count + 1);
-            longs[count] = Long.parseLong(next);
-            return longs;
-        } else {
-            return count == 0 ? NO_LONGS : new long[count];
+    /**
+     * Consume the next element without materializing it.
+     *
+     * @return the end index (exclusive) of the consumed element
+     */
+    private int nextEnd() {
+        final int n = subject.indexOf(delimiter, i);
+        if (n == -1) {
+            i = -1;
+            return subject.length();
         }
+        i = n + 1;
+        return n;
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,125 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.client.config;
+
+import static javax.xml.stream.XMLStreamConstants.CDATA;
+import static javax.xml.stream.XMLStreamConstants.CHARACTERS;
+import static javax.xml.stream.XMLStreamConstants.COMMENT;
+import static javax.xml.stream.XMLStreamConstants.END_DOCUMENT;
+import static javax.xml.stream.XMLStreamConstants.END_ELEMENT;
+import static javax.xml.stream.XMLStreamConstants.ENTITY_REFERENCE;
+import static javax.xml.stream.XMLStreamConstants.PROCESSING_INSTRUCTION;
+import static javax.xml.stream.XMLStreamConstants.SPACE;
+import static javax.xml.stream.XMLStreamConstants.START_ELEMENT;
+import static org.wildfly.client.config.ConfigurationXMLStreamReader.eventToString;
+import static org.wildfly.client.config._private.ConfigMessages.msg;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * A reader over the text content of an element, which advances the underlying stream reader one event at a time
+ * as characters are consumed.
+ */
+final class ElementTextReader extends Reader {
+    private static final char[] NO_CHARS = new char[0];
+
+    private final ConfigurationXMLStreamReader reader;
+    private char[] text = NO_CHARS;
+    private int pos;
+    private int end;
+    private boolean done;
+
+    ElementTextReader(final ConfigurationXMLStreamReader reader) {
+        this.reader = reader;
+    }
+
+    public int read(final char[] cbuf, final int off, final int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (pos == end && ! advance()) {
+            return -1;
+        }
+        final int cnt = Math.min(len, end - pos);
+        System.arraycopy(text, pos, cbuf, off, cnt);
+        pos += cnt;
+        return cnt;
+    }
+
+    private boolean advance() throws IOException {
+        final ConfigurationXMLStreamReader reader = this.reader;
+        try {
+            while (! done) {
+                final int eventType = reader.next();
+                switch (eventType) {
+                    case END_ELEMENT: {
+                        done = true;
+                        break;
+                    }
+                    case CHARACTERS:
+                    case CDATA:
+                    case SPACE: {
+                        final int length = reader.getTextLength();
+                        if (length > 0) {
+                            text = reader.getTextCharacters();
+                            pos = reader.getTextStart();
+                            end = pos + length;
+                            return true;
+                        }
+                        break;
+                    }
+                    case ENTITY_REFERENCE: {
+                        final String str = reader.getText();
+                        if (! str.isEmpty()) {
+                            text = str.toCharArray();
+                            pos = 0;
+                            end = text.length;
+                            return true;
+                        }
+                        break;
+                    }
+                    case PROCESSING_INSTRUCTION:
+                    case COMMENT: {
+                        // skip
+                        break;
+                    }
+                    case END_DOCUMENT: {
+                        throw msg.unexpectedDocumentEnd(reader.getLocation());
+                    }
+                    case START_ELEMENT: {
+                        throw msg.textCannotContainElements(reader.getLocation());
+                    }
+                    default: {
+                        throw msg.unexpectedContent(eventToString(eventType), reader.getLocation());
+                    }
+                }
+            }
+        } catch (ConfigXMLParseException e) {
+            done = true;
+            throw new IOException(e.getMessage(), e);
+        }
+        text = NO_CHARS;
+        pos = end = 0;
+        return false;
+    }
+
+    public void close() {
+    }
+}
@@ -0,0 +1,891 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.client.config;
+
+import static javax.xml.stream.XMLStreamConstants.CDATA;
+import static javax.xml.stream.XMLStreamConstants.CHARACTERS;
+import static javax.xml.stream.XMLStreamConstants.COMMENT;
+import static javax.xml.stream.XMLStreamConstants.DTD;
+import static javax.xml.stream.XMLStreamConstants.END_DOCUMENT;
+import static javax.xml.stream.XMLStreamConstants.END_ELEMENT;
+import static javax.xml.stream.XMLStreamConstants.ENTITY_REFERENCE;
+import static javax.xml.stream.XMLStreamConstants.PROCESSING_INSTRUCTION;
+import static javax.xml.stream.XMLStreamConstants.SPACE;
+import static javax.xml.stream.XMLStreamConstants.START_DOCUMENT;
+import static javax.xml.stream.XMLStreamConstants.START_ELEMENT;
+import static org.wildfly.client.config._private.ConfigMessages.msg;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Objects;
+
+import javax.xml.stream.XMLInputFactory;
+
+/**
+ * A compact, immutable recording of a stream of configuration reader events.  A tape consists of a packed
+ * {@code int} array of event records, a shared symbol table for names and attribute values, a single {@code char}
+ * slab holding all text content, and a table of the documents which contributed events (the inclusion chain).
+ * <p>
+ * Each record starts with a header word holding the event type in the low eight bits and the source document index
+ * in the remaining bits, followed by the line number, column number and character offset of the event, followed by
+ * event-specific words:
+ * <ul>
+ *     <li>{@code START_DOCUMENT}: version, encoding, encoding scheme, standalone flags</li>
+ *     <li>{@code START_ELEMENT}: namespace URI, local name, prefix, namespace count, attribute count, then a
+ *     (prefix, URI) pair for each namespace and a (namespace URI, local name, prefix, type, value, specified)
+ *     group for each attribute</li>
+ *     <li>{@code END_ELEMENT}: namespace URI, local name, prefix, position of the matching start record (or -1)</li>
+ *     <li>text events: text offset, text length</li>
+ *     <li>{@code ENTITY_REFERENCE}: name, text offset, text length</li>
+ *     <li>{@code PROCESSING_INSTRUCTION}: target, data</li>
+ * </ul>
+ * Strings are stored as indexes into the symbol table, with index 0 standing for {@code null}.
+ * <p>
+ * Tapes are safe to share between threads; each reader returned by {@link #newReader(XMLLocation, XMLInputFactory)}
+ * is an independent cursor which is not itself thread-safe.
+ */
+final class EventTape {
+
+    static final int HEADER_LENGTH = 4;
+
+    // "WFCB"
+    static final int BINARY_MAGIC = 0x57464342;
+    static final int BINARY_VERSION = 2;
+
+    static final int FLAG_STANDALONE = 1;
+    static final int FLAG_STANDALONE_SET = 2;
+
+    private static final int[] NO_INTS = new int[0];
+    private static final byte[] NO_BYTES = new byte[0];
+
+    private final int[] ops;
+    private final String[] symbols;
+    private final char[] text;
+    private final URI[] sourceUris;
+    // parent index, line, column, offset for each source
+    private final int[] sourceSites;
+    // the content digest of each source, as read from the binary form, or null
+    private final byte[][] sourceDigests;
+    private volatile SymbolValues symbolValues;
+
+    EventTape(final int[] ops, final String[] symbols, final char[] text, final URI[] sourceUris, final int[] sourceSites) {
+        this(ops, symbols, text, sourceUris, sourceSites, null);
+    }
+
+    private EventTape(final int[] ops, final String[] symbols, final char[] text, final URI[] sourceUris, final int[] sourceSites, final byte[][] sourceDigests) {
+        this.ops = ops;
+        this.symbols = symbols;
+        this.text = text;
+        this.sourceUris = sourceUris;
+        this.sourceSites = sourceSites;
+        this.sourceDigests = sourceDigests;
+    }
+
+    /**
+     * Record the remaining content of the given reader, starting with its current event.  The reader is consumed
+     * but not closed.  The inclusion chain of the reader at the time of recording becomes the base of the tape,
+     * to be replaced by the inclusion location given to {@link #newReader(XMLLocation, XMLInputFactory)}.
+     *
+     * @param reader the reader to record
+     * @return the recorded tape
+     * @throws ConfigXMLParseException if reading the document fails
+     */
+    static EventTape record(final ConfigurationXMLStreamReader reader) throws ConfigXMLParseException {
+        final Builder builder = new Builder(reader.getUri(), reader.getIncludedFrom());
+        builder.add(reader, reader.getEventType());
+        while (reader.hasNext()) {
+            builder.add(reader, reader.next());
+        }
+        return builder.build();
+    }
+
+    /**
+     * Get a new reader which replays this tape from the beginning.
+     *
+     * @param includedFrom the location that the recorded document is included from, or {@code null} if it is a root
+     * @param xmlInputFactory the XML input factory to report from the reader
+     * @return the new reader
+     */
+    ConfigurationXMLStreamReader newReader(final XMLLocation includedFrom, final XMLInputFactory xmlInputFactory) {
+        return new EventTapeXMLStreamReader(this, includedFrom, xmlInputFactory);
+    }
+
+    /**
+     * Get a new reader which replays this tape starting at the start element record at the given position.
+     *
+     * @param includedFrom the location that the recorded document is included from, or {@code null} if it is a root
+     * @param xmlInputFactory the XML input factory to report from the reader
+     * @param pos the position of the start element record
+     * @param ancestors the positions of the start element records of the enclosing elements, outermost first
+     * @return the new reader
+     */
+    ConfigurationXMLStreamReader newReader(final XMLLocation includedFrom, final XMLInputFactory xmlInputFactory, final int pos, final int... ancestors) {
+        return new EventTapeXMLStreamReader(this, includedFrom, xmlInputFactory, pos, ancestors);
+    }
+
+    int[] getOps() {
+        return ops;
+    }
+
+    String[] getSymbols() {
+        return symbols;
+    }
+
+    char[] getText() {
+        return text;
+    }
+
+    int getSourceCount() {
+        return sourceUris.length;
+    }
+
+    URI getSourceUri(int source) {
+        return sourceUris[source];
+    }
+
+    int getSourceParent(int source) {
+        return sourceSites[source << 2];
+    }
+
+    int getSourceLine(int source) {
+        return sourceSites[(source << 2) + 1];
+    }
+
+    int getSourceColumn(int source) {
+        return sourceSites[(source << 2) + 2];
+    }
+
+    int getSourceOffset(int source) {
+        return sourceSites[(source << 2) + 3];
+    }
+
+    /**
+     * Get the digest of the content of a source which was written with the binary form of this tape.
+     *
+     * @param source the source index
+     * @return the digest, or {@code null} if none was written
+     */
+    byte[] getSourceDigest(int source) {
+        final byte[][] sourceDigests = this.sourceDigests;
+        return sourceDigests == null ? null : sourceDigests[source];
+    }
+
+    /**
+     * Get the numeric and boolean interpretations of the symbols of this tape, computing them on first use.
+     *
+     * @return the symbol values
+     */
+    SymbolValues getSymbolValues() {
+        SymbolValues symbolValues = this.symbolValues;
+        if (symbolValues == null) {
+            // a racing thread may compute an equal instance; either one may be kept
+            symbolValues = this.symbolValues = new SymbolValues(symbols);
+        }
+        return symbolValues;
+    }
+
+    /**
+     * Get an estimate of the number of bytes of heap retained by this tape.
+     *
+     * @return the estimated size
+     */
+    long getSize() {
+        long size = 64L + ((long) ops.length << 2) + ((long) text.length << 1) + ((long) sourceSites.length << 2) + (long) sourceUris.length * 80;
+        for (String symbol : symbols) {
+            if (symbol != null) {
+                size += 48 + ((long) symbol.length() << 1);
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Get the length of the record at the given position.
+     *
+     * @param pos the record position
+     * @return the record length
+     */
+    int recordLength(int pos) {
+        final int[] ops = this.ops;
+        switch (ops[pos] & 0xff) {
+            case START_DOCUMENT: return HEADER_LENGTH + 4;
+            case START_ELEMENT: return HEADER_LENGTH + 5 + (ops[pos + HEADER_LENGTH + 3] << 1) + ops[pos + HEADER_LENGTH + 4] * 6;
+            case END_ELEMENT: return HEADER_LENGTH + 4;
+            case ENTITY_REFERENCE: return HEADER_LENGTH + 3;
+            case PROCESSING_INSTRUCTION: return HEADER_LENGTH + 2;
+            case CHARACTERS:
+            case CDATA:
+            case SPACE:
+            case COMMENT:
+            case DTD: return HEADER_LENGTH + 2;
+            default: return HEADER_LENGTH;
+        }
+    }
+
+    /**
+     * Write this tape in its binary form.  The URIs of included documents are written relative to the URI of the root
+     * document where possible, so that a tape may be read back from a different location.
+     *
+     * @param os the output stream to write to
+     * @param digests the digest of the content of each source, with {@code null} elements for sources without one, or
+     *     {@code null} to write no digests
+     * @throws IOException if writing fails
+     */
+    void writeTo(final OutputStream os, final byte[][] digests) throws IOException {
+        final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(os));
+        out.writeInt(BINARY_MAGIC);
+        out.writeInt(BINARY_VERSION);
+        final URI base = sourceUris[0];
+        out.writeInt(sourceUris.length);
+        for (int i = 0; i < sourceUris.length; i ++) {
+            final URI uri = sourceUris[i];
+            out.writeUTF(i == 0 || uri == null ? "" : relativize(base, uri));
+            for (int j = 0; j < 4; j ++) {
+                out.writeInt(sourceSites[(i << 2) + j]);
+            }
+            final byte[] digest = digests == null || digests[i] == null ? NO_BYTES : digests[i];
+            out.writeShort(digest.length);
+            out.write(digest);
+        }
+        out.writeInt(ops.length);
+        for (int op : ops) {
+            out.writeInt(op);
+        }
+        out.writeInt(symbols.length);
+        for (String symbol : symbols) {
+            out.writeInt(symbol == null ? -1 : symbol.length());
+        }
+        for (String symbol : symbols) {
+            if (symbol != null) {
+                out.writeChars(symbol);
+            }
+        }
+        out.writeInt(text.length);
+        for (char c : text) {
+            out.writeChar(c);
+        }
+        out.flush();
+    }
+
+    /**
+     * Read a tape from its binary form.
+     *
+     * @param buf the buffer holding the binary form
+     * @param uri the URI of the root document, used to resolve the URIs of included documents
+     * @return the tape
+     * @throws IOException if the binary form is invalid or of an unsupported version
+     */
+    static EventTape readFrom(final ByteBuffer buf, final URI uri) throws IOException {
+        try {
+            if (buf.getInt() != BINARY_MAGIC || buf.getInt() != BINARY_VERSION) {
+                throw msg.invalidCompiledConfiguration();
+            }
+            final int sourceCount = buf.getInt();
+            final URI[] sourceUris = new URI[checkCount(sourceCount, buf.remaining() / 20)];
+            final int[] sourceSites = new int[sourceCount << 2];
+            final byte[][] sourceDigests = new byte[sourceCount][];
+            final DataInputStream in = new DataInputStream(new ByteBufferInputStream(buf));
+            for (int i = 0; i < sourceCount; i ++) {
+                final String str = in.readUTF();
+                sourceUris[i] = i == 0 ? uri : str.isEmpty() ? null : resolve(uri, new URI(str));
+                buf.asIntBuffer().get(sourceSites, i << 2, 4);
+                buf.position(buf.position() + 16);
+                final byte[] digest = new byte[buf.getShort() & 0xffff];
+                buf.get(digest);
+                sourceDigests[i] = digest.length == 0 ? null : digest;
+            }
+            final int[] ops = new int[checkCount(buf.getInt(), buf.remaining() >> 2)];
+            buf.asIntBuffer().get(ops);
+            buf.position(buf.position() + (ops.length << 2));
+            final int[] lengths = new int[checkCount(buf.getInt(), buf.remaining() >> 2)];
+            buf.asIntBuffer().get(lengths);
+            buf.position(buf.position() + (lengths.length << 2));
+            final String[] symbols = new String[lengths.length];
+            final char[] chars = new char[1024];
+            for (int i = 0; i < lengths.length; i ++) {
+                final int len = lengths[i];
+                if (len >= 0) {
+                    final char[] dst = len <= chars.length ? chars : new char[len];
+                    buf.asCharBuffer().get(dst, 0, len);
+                    buf.position(buf.position() + (len << 1));
+                    symbols[i] = new String(dst, 0, len);
+                }
+            }
+            final char[] text = new char[checkCount(buf.getInt(), buf.remaining() >> 1)];
+            buf.asCharBuffer().get(text);
+            final EventTape tape = new EventTape(ops, symbols, text, sourceUris, sourceSites, sourceDigests);
+            tape.validate();
+            return tape;
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException | URISyntaxException e) {
+            final IOException ioe = msg.invalidCompiledConfiguration();
+            ioe.initCause(e);
+            throw ioe;
+        }
+    }
+
+    private static int checkCount(int cnt, int max) throws IOException {
+        if (cnt < 0 || cnt > max) {
+            throw msg.invalidCompiledConfiguration();
+        }
+        return cnt;
+    }
+
+    /**
+     * Get the given URI relative to the directory of the given base URI, so that it resolves to the same location
+     * relative to a copy of the base document elsewhere.  {@link URI#relativize(URI)} is not suitable, since it only
+     * relativizes URIs which are within the base URI itself, and never produces {@code ..} segments.
+     *
+     * @param base the URI of the root document, or {@code null}
+     * @param uri the URI to relativize
+     * @return the relative URI string, or the URI itself if it cannot be relativized
+     */
+    static String relativize(URI base, URI uri) {
+        if (base == null || base.isOpaque() || uri.isOpaque() || base.getScheme() == null || ! base.getScheme().equalsIgnoreCase(uri.getScheme())
+            || ! Objects.equals(base.getRawAuthority(), uri.getRawAuthority()) || uri.getRawQuery() != null || uri.getRawFragment() != null) {
+            return uri.toString();
+        }
+        final String basePath = base.normalize().getRawPath();
+        final String path = uri.normalize().getRawPath();
+        if (basePath == null || path == null || ! basePath.startsWith("/") || ! path.startsWith("/")) {
+            return uri.toString();
+        }
+        // the common directory prefix, ending with a slash
+        int common = 0;
+        final int dirEnd = basePath.lastIndexOf('/') + 1;
+        for (int i = 0; i < dirEnd && i < path.length() && basePath.charAt(i) == path.charAt(i); i ++) {
+            if (basePath.charAt(i) == '/') {
+                common = i + 1;
+            }
+        }
+        final StringBuilder b = new StringBuilder();
+        for (int i = common; i < dirEnd; i ++) {
+            if (basePath.charAt(i) == '/') {
+                b.append("../");
+            }
+        }
+        final String rest = path.substring(common);
+        final int slash = rest.indexOf('/');
+        final int colon = rest.indexOf(':');
+        if (b.length() == 0 && colon != -1 && (slash == -1 || colon < slash)) {
+            // the first segment would be taken for a scheme
+            b.append("./");
+        }
+        return b.append(rest).toString();
+    }
+
+    /**
+     * Resolve a URI read from the binary form against the URI of the root document.  Relative URIs are relative to the
+     * directory of the root document, as written by {@link #relativize(URI, URI)}.
+     */
+    private static URI resolve(URI base, URI ref) {
+        if (ref.isAbsolute() || base == null) {
+            return ref;
+        }
+        if (base.isOpaque()) {
+            // resolve within the archive, e.g. jar:file:/path/app.jar!/META-INF/wildfly-config.xml
+            final String ssp = base.getRawSchemeSpecificPart();
+            final int idx = ssp.indexOf("!/");
+            if (idx == -1) {
+                return ref;
+            }
+            return URI.create(base.getScheme() + ":" + ssp.substring(0, idx + 1) + URI.create(ssp.substring(idx + 1)).resolve(ref));
+        }
+        return base.resolve(".").resolve(ref);
+    }
+
+    /**
+     * Check that every index and length stored in this tape is within range, so that a corrupt or truncated binary
+     * form is rejected when it is read instead of failing when it is replayed.
+     */
+    private void validate() throws IOException {
+        // symbol 0 is reserved for null; every other symbol must be present
+        final String[] symbols = this.symbols;
+        if (symbols.length == 0 || symbols[0] != null) {
+            throw msg.invalidCompiledConfiguration();
+        }
+        for (int i = 1; i < symbols.length; i ++) {
+            if (symbols[i] == null) {
+                throw msg.invalidCompiledConfiguration();
+            }
+        }
+        for (int i = 0; i < sourceUris.length; i ++) {
+            final int parent = sourceSites[i << 2];
+            if (parent < -1 || parent >= i) {
+                throw msg.invalidCompiledConfiguration();
+            }
+        }
+        final int[] ops = this.ops;
+        int[] elements = NO_INTS;
+        int depth = 0;
+        int pos = 0;
+        while (pos < ops.length) {
+            if (ops[pos] >>> 8 >= sourceUris.length || ops.length - pos < HEADER_LENGTH) {
+                throw msg.invalidCompiledConfiguration();
+            }
+            final int p = pos + HEADER_LENGTH;
+            switch (ops[pos] & 0xff) {
+                case START_DOCUMENT: {
+                    checkRecord(pos, 4);
+                    checkSymbols(p, 3);
+                    break;
+                }
+                case START_ELEMENT: {
+                    checkRecord(pos, 5);
+                    final int namespaceCount = ops[p + 3];
+                    final int attributeCount = ops[p + 4];
+                    // negative or oversized counts would move the position backwards or past the end
+                    if (namespaceCount < 0 || attributeCount < 0 || namespaceCount > ops.length >> 1 || attributeCount > ops.length / 6) {
+                        throw msg.invalidCompiledConfiguration();
+                    }
+                    checkRecord(pos, 5 + (namespaceCount << 1) + attributeCount * 6);
+                    checkSymbols(p, 3);
+                    checkName(p + 1);
+                    checkSymbols(p + 5, namespaceCount << 1);
+                    for (int i = 0; i < attributeCount; i ++) {
+                        final int a = p + 5 + (namespaceCount << 1) + i * 6;
+                        checkSymbols(a, 5);
+                        checkName(a + 1);
+                    }
+                    if (depth == elements.length) {
+                        elements = Arrays.copyOf(elements, Math.max(16, depth << 1));
+                    }
+                    elements[depth ++] = pos;
+                    break;
+                }
+                case END_ELEMENT: {
+                    checkRecord(pos, 4);
+                    checkSymbols(p, 3);
+                    checkName(p + 1);
+                    // the start record is the one which the end element closes, as recorded by the builder
+                    if (ops[p + 3] != (depth == 0 ? -1 : elements[-- depth])) {
+                        throw msg.invalidCompiledConfiguration();
+                    }
+                    break;
+                }
+                case CHARACTERS:
+                case CDATA:
+                case SPACE:
+                case COMMENT:
+                case DTD: {
+                    checkRecord(pos, 2);
+                    checkText(p);
+                    break;
+                }
+                case ENTITY_REFERENCE: {
+                    checkRecord(pos, 3);
+                    checkSymbols(p, 1);
+                    checkText(p + 1);
+                    break;
+                }
+                case PROCESSING_INSTRUCTION: {
+                    checkRecord(pos, 2);
+                    checkSymbols(p, 2);
+                    break;
+                }
+                case END_DOCUMENT: {
+                    break;
+                }
+                default: {
+                    throw msg.invalidCompiledConfiguration();
+                }
+            }
+            pos += recordLength(pos);
+        }
+    }
+
+    private void checkRecord(int pos, int length) throws IOException {
+        if (ops.length - pos - HEADER_LENGTH < length) {
+            throw msg.invalidCompiledConfiguration();
+        }
+    }
+
+    private void checkSymbols(int p, int cnt) throws IOException {
+        for (int i = 0; i < cnt; i ++) {
+            final int symbol = ops[p + i];
+            if (symbol < 0 || symbol >= symbols.length) {
+                throw msg.invalidCompiledConfiguration();
+            }
+        }
+    }
+
+    private void checkName(int p) throws IOException {
+        if (ops[p] == 0) {
+            throw msg.invalidCompiledConfiguration();
+        }
+    }
+
+    private void checkText(int p) throws IOException {
+        final int offset = ops[p];
+        final int length = ops[p + 1];
+        if (offset < 0 || length < 0 || offset > text.length - length) {
+            throw msg.invalidCompiledConfiguration();
+        }
+    }
+
+    /**
+     * The values of the symbols which are valid decimal integers or boolean {@code true}, so that typed attribute
+     * accessors can avoid parsing the attribute text.
+     */
+    static final class SymbolValues {
+        private static final byte LONG = 1;
+        private static final byte INT = 2;
+        private static final byte TRUE = 4;
+
+        private final byte[] kinds;
+        private final long[] values;
+
+        SymbolValues(final String[] symbols) {
+            final int cnt = symbols.length;
+            final byte[] kinds = new byte[cnt];
+            final long[] values = new long[cnt];
+            for (int i = 1; i < cnt; i ++) {
+                final String symbol = symbols[i];
+                if ("true".equalsIgnoreCase(symbol)) {
+                    kinds[i] = TRUE;
+                } else if (symbol != null && isDecimal(symbol)) {
+                    try {
+                        final long value = Long.parseLong(symbol);
+                        values[i] = value;
+                        kinds[i] = value == (int) value ? LONG | INT : LONG;
+                    } catch (NumberFormatException ignored) {
+                        // out of range; left to the string path
+                    }
+                }
+            }
+            this.kinds = kinds;
+            this.values = values;
+        }
+
+        private static boolean isDecimal(String str) {
+            final int len = str.length();
+            int i = 0;
+            if (len > 0 && (str.charAt(0) == '-' || str.charAt(0) == '+')) {
+                i ++;
+            }
+            if (i == len) {
+                return false;
+            }
+            for (; i < len; i ++) {
+                if (Character.digit(str.charAt(i), 10) == -1) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        boolean isInt(int symbol) {
+            return (kinds[symbol] & INT) != 0;
+        }
+
+        boolean isLong(int symbol) {
+            return (kinds[symbol] & LONG) != 0;
+        }
+
+        boolean isTrue(int symbol) {
+            return kinds[symbol] == TRUE;
+        }
+
+        long getValue(int symbol) {
+            return values[symbol];
+        }
+    }
+
+    /**
+     * Accumulates events into a new tape.
+     */
+    static final class Builder {
+        private final HashMap<String, Integer> symbolMap = new HashMap<>();
+        private final IdentityHashMap<XMLLocation, Integer> sourceMap = new IdentityHashMap<>();
+        private int[] ops = new int[256];
+        private int opsLen;
+        private String[] symbols = new String[64];
+        private int symbolsLen = 1;
+        private char[] text = new char[1024];
+        private int textLen;
+        private URI[] sourceUris = new URI[4];
+        private int[] sourceSites = new int[16];
+        private int sourcesLen;
+        private int[] elements = NO_INTS;
+        private int depth;
+
+        Builder(final URI uri, final XMLLocation base) {
+            sourceMap.put(base, Integer.valueOf(addSource(uri, -1, -1, -1, -1)));
+        }
+
+        void add(final ConfigurationXMLStreamReader reader, final int eventType) throws ConfigXMLParseException {
+            final int source = source(reader.getIncludedFrom(), reader.getUri());
+            final int pos = opsLen;
+            op(eventType | source << 8);
+            ensureOps(3);
+            PositionSource.copyPosition(reader, ops, opsLen);
+            opsLen += 3;
+            switch (eventType) {
+                case START_DOCUMENT: {
+                    op(symbol(reader.getVersion()));
+                    op(symbol(reader.getEncoding()));
+                    op(symbol(reader.getCharacterEncodingScheme()));
+                    op((reader.isStandalone() ? FLAG_STANDALONE : 0) | (reader.standaloneSet() ? FLAG_STANDALONE_SET : 0));
+                    break;
+                }
+                case START_ELEMENT: {
+                    op(symbol(reader.getNamespaceURI()));
+                    op(symbol(reader.getLocalName()));
+                    op(symbol(reader.getPrefix()));
+                    final int namespaceCount = reader.getNamespaceCount();
+                    final int attributeCount = reader.getAttributeCount();
+                    op(namespaceCount);
+                    op(attributeCount);
+                    for (int i = 0; i < namespaceCount; i ++) {
+                        op(symbol(reader.getNamespacePrefix(i)));
+                        op(symbol(reader.getNamespaceURI(i)));
+                    }
+                    for (int i = 0; i < attributeCount; i ++) {
+                        op(symbol(reader.getAttributeNamespace(i)));
+                        op(symbol(reader.getAttributeLocalName(i)));
+                        op(symbol(reader.getAttributePrefix(i)));
+                        op(symbol(reader.getAttributeType(i)));
+                        op(symbol(reader.getAttributeValue(i)));
+                        op(reader.isAttributeSpecified(i) ? 1 : 0);
+                    }
+                    if (depth == elements.length) {
+                        elements = Arrays.copyOf(elements, Math.max(16, depth << 1));
+                    }
+                    elements[depth ++] = pos;
+                    break;
+                }
+                case END_ELEMENT: {
+                    op(symbol(reader.getNamespaceURI()));
+                    op(symbol(reader.getLocalName()));
+                    op(symbol(reader.getPrefix()));
+                    op(depth == 0 ? -1 : elements[-- depth]);
+                    break;
+                }
+                case CHARACTERS:
+                case CDATA:
+                case SPACE:
+                case COMMENT: {
+                    final int len = reader.getTextLength();
+                    op(textLen);
+                    op(len);
+                    text(reader.getTextCharacters(), reader.getTextStart(), len);
+                    break;
+                }
+                case DTD: {
+                    final String str = reader.getText();
+                    op(textLen);
+                    op(str.length());
+                    text(str);
+                    break;
+                }
+                case ENTITY_REFERENCE: {
+                    final String str = reader.getText();
+                    op(symbol(reader.getLocalName()));
+                    op(textLen);
+                    op(str.length());
+                    text(str);
+                    break;
+                }
+                case PROCESSING_INSTRUCTION: {
+                    op(symbol(reader.getPITarget()));
+                    op(symbol(reader.getPIData()));
+                    break;
+                }
+                case END_DOCUMENT: {
+                    break;
+                }
+                default: {
+                    throw reader.unexpectedContent();
+                }
+            }
+        }
+
+        // direct recording of parsed events, for parsers which do not present their events through a reader
+
+        void startDocument(final int line, final int column, final int offset, final String version, final String encoding, final String scheme, final int flags) {
+            header(START_DOCUMENT, line, column, offset);
+            op(symbol(version));
+            op(symbol(encoding));
+            op(symbol(scheme));
+            op(flags);
+        }
+
+        /**
+         * Record a start element.  Each namespace declaration is given as a prefix followed by a URI, and each
+         * attribute as a namespace, local name, prefix and value.
+         */
+        void startElement(final int line, final int column, final int offset, final String namespaceUri, final String localName, final String prefix, final String[] namespaces, final int namespaceCount, final String[] attributes, final int attributeCount) {
+            final int pos = opsLen;
+            header(START_ELEMENT, line, column, offset);
+            op(symbol(namespaceUri));
+            op(symbol(localName));
+            op(symbol(prefix));
+            op(namespaceCount);
+            op(attributeCount);
+            for (int i = 0; i < namespaceCount << 1; i ++) {
+                op(symbol(namespaces[i]));
+            }
+            final int cdata = symbol("CDATA");
+            for (int i = 0; i < attributeCount << 2; i += 4) {
+                op(symbol(attributes[i]));
+                op(symbol(attributes[i + 1]));
+                op(symbol(attributes[i + 2]));
+                op(cdata);
+                op(symbol(attributes[i + 3]));
+                op(1);
+            }
+            if (depth == elements.length) {
+                elements = Arrays.copyOf(elements, Math.max(16, depth << 1));
+            }
+            elements[depth ++] = pos;
+        }
+
+        void endElement(final int line, final int column, final int offset, final String namespaceUri, final String localName, final String prefix) {
+            header(END_ELEMENT, line, column, offset);
+            op(symbol(namespaceUri));
+            op(symbol(localName));
+            op(symbol(prefix));
+            op(depth == 0 ? -1 : elements[-- depth]);
+        }
+
+        void text(final int eventType, final int line, final int column, final int offset, final char[] chars, final int offs, final int len) {
+            header(eventType, line, column, offset);
+            op(textLen);
+            op(len);
+            text(chars, offs, len);
+        }
+
+        void processingInstruction(final int line, final int column, final int offset, final String target, final String data) {
+            header(PROCESSING_INSTRUCTION, line, column, offset);
+            op(symbol(target));
+            op(symbol(data));
+        }
+
+        void endDocument(final int line, final int column, final int offset) {
+            header(END_DOCUMENT, line, column, offset);
+        }
+
+        private void header(final int eventType, final int line, final int column, final int offset) {
+            ensureOps(HEADER_LENGTH);
+            final int[] ops = this.ops;
+            ops[opsLen] = eventType;
+            ops[opsLen + 1] = line;
+            ops[opsLen + 2] = column;
+            ops[opsLen + 3] = offset;
+            opsLen += HEADER_LENGTH;
+        }
+
+        EventTape build() {
+            return new EventTape(
+                Arrays.copyOf(ops, opsLen),
+                Arrays.copyOf(symbols, symbolsLen),
+                Arrays.copyOf(text, textLen),
+                Arrays.copyOf(sourceUris, sourcesLen),
+                Arrays.copyOf(sourceSites, sourcesLen << 2)
+            );
+        }
+
+        private void ensureOps(int len) {
+            final int[] ops = this.ops;
+            if (opsLen + len > ops.length) {
+                this.ops = Arrays.copyOf(ops, Math.max(opsLen << 1, opsLen + len));
+            }
+        }
+
+        private void op(int val) {
+            int[] ops = this.ops;
+            if (opsLen == ops.length) {
+                this.ops = ops = Arrays.copyOf(ops, opsLen << 1);
+            }
+            ops[opsLen ++] = val;
+        }
+
+        private int symbol(String str) {
+            if (str == null) {
+                return 0;
+            }
+            final Integer existing = symbolMap.get(str);
+            if (existing != null) {
+                return existing.intValue();
+            }
+            if (symbolsLen == symbols.length) {
+                symbols = Arrays.copyOf(symbols, symbolsLen << 1);
+            }
+            final int idx = symbolsLen ++;
+            symbols[idx] = str;
+            symbolMap.put(str, Integer.valueOf(idx));
+            return idx;
+        }
+
+        private void ensureText(int len) {
+            if (text.length - textLen < len) {
+                text = Arrays.copyOf(text, Math.max(text.length << 1, textLen + len));
+            }
+        }
+
+        private void text(char[] chars, int offs, int len) {
+            ensureText(len);
+            System.arraycopy(chars, offs, text, textLen, len);
+            textLen += len;
+        }
+
+        private void text(String str) {
+            final int len = str.length();
+            ensureText(len);
+            str.getChars(0, len, text, textLen);
+            textLen += len;
+        }
+
+        private int source(XMLLocation includedFrom, URI uri) {
+            final Integer existing = sourceMap.get(includedFrom);
+            if (existing != null) {
+                return existing.intValue();
+            }
+            final int parent = includedFrom == null ? -1 : source(includedFrom.getIncludedFrom(), includedFrom.getUri());
+            final int idx = includedFrom == null ?
+                addSource(uri, -1, -1, -1, -1) :
+                addSource(uri, parent, includedFrom.getLineNumber(), includedFrom.getColumnNumber(), includedFrom.getCharacterOffset());
+            sourceMap.put(includedFrom, Integer.valueOf(idx));
+            return idx;
+        }
+
+        private int addSource(URI uri, int parent, int line, int column, int offset) {
+            if (sourcesLen == sourceUris.length) {
+                sourceUris = Arrays.copyOf(sourceUris, sourcesLen << 1);
+                sourceSites = Arrays.copyOf(sourceSites, sourcesLen << 3);
+            }
+            final int idx = sourcesLen ++;
+            sourceUris[idx] = uri;
+            sourceSites[idx << 2] = parent;
+            sourceSites[(idx << 2) + 1] = line;
+            sourceSites[(idx << 2) + 2] = column;
+            sourceSites[(idx << 2) + 3] = offset;
+            return idx;
+        }
+    }
+}
@@ -0,0 +1,452 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.client.config;
+
+import static java.lang.Math.min;
+import static org.wildfly.client.config.EventTape.HEADER_LENGTH;
+
+import java.net.URI;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import javax.xml.XMLConstants;
+import javax.xml.namespace.NamespaceContext;
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLInputFactory;
+
+/**
+ * A lightweight cursor which replays an {@link EventTape}.
+ */
+final class EventTapeXMLStreamReader implements ConfigurationXMLStreamReader, NamespaceContext, ResolutionContext.Holder, PositionSource {
+    private static final XMLLocation[] NO_LOCATIONS = new XMLLocation[0];
+
+    private final EventTape tape;
+    private final int[] ops;
+    private final String[] symbols;
+    private final char[] text;
+    private final XMLLocation includedFrom;
+    private final XMLInputFactory xmlInputFactory;
+    private XMLLocation[] includedFromCache = NO_LOCATIONS;
+    private int[] elements = new int[16];
+    private int depth;
+    private int pos;
+    private ResolutionContext resolutionContext;
+
+    EventTapeXMLStreamReader(final EventTape tape, final XMLLocation includedFrom, final XMLInputFactory xmlInputFactory) {
+        this.tape = tape;
+        ops = tape.getOps();
+        symbols = tape.getSymbols();
+        text = tape.getText();
+        this.includedFrom = includedFrom;
+        this.xmlInputFactory = xmlInputFactory;
+    }
+
+    EventTapeXMLStreamReader(final EventTape tape, final XMLLocation includedFrom, final XMLInputFactory xmlInputFactory, final int pos, final int[] ancestors) {
+        this(tape, includedFrom, xmlInputFactory);
+        if ((ops[pos] & 0xff) != START_ELEMENT) {
+            throw new IllegalArgumentException();
+        }
+        final int depth = ancestors.length;
+        if (depth >= elements.length) {
+            elements = new int[depth + 16];
+        }
+        System.arraycopy(ancestors, 0, elements, 0, depth);
+        elements[depth] = pos;
+        this.depth = depth + 1;
+        this.pos = pos;
+    }
+
+    private int source() {
+        return ops[pos] >>> 8;
+    }
+
+    private String symbol(int offs) {
+        return symbols[ops[pos + HEADER_LENGTH + offs]];
+    }
+
+    public URI getUri() {
+        return tape.getSourceUri(source());
+    }
+
+    public XMLInputFactory getXmlInputFactory() {
+        final XMLInputFactory xmlInputFactory = this.xmlInputFactory;
+        return xmlInputFactory != null ? xmlInputFactory : ClientConfiguration.getSharedXmlInputFactory();
+    }
+
+    public XMLLocation getIncludedFrom() {
+        return includedFrom(source());
+    }
+
+    public ResolutionContext getResolutionContext() {
+        ResolutionContext resolutionContext = this.resolutionContext;
+        if (resolutionContext == null) {
+            resolutionContext = this.resolutionContext = new ResolutionContext();
+        }
+        return resolutionContext;
+    }
+
+    private XMLLocation includedFrom(int source) {
+        if (source == 0) {
+            return includedFrom;
+        }
+        XMLLocation[] cache = includedFromCache;
+        if (cache.length == 0) {
+            includedFromCache = cache = new XMLLocation[tape.getSourceCount()];
+        }
+        XMLLocation location = cache[source];
+        if (location == null) {
+            final EventTape tape = this.tape;
+            final int parent = tape.getSourceParent(source);
+            location = cache[source] = new XMLLocation(includedFrom(parent), tape.getSourceUri(parent), tape.getSourceLine(source), tape.getSourceColumn(source), tape.getSourceOffset(source));
+        }
+        return location;
+    }
+
+    public boolean hasNext() {
+        return pos + tape.recordLength(pos) < ops.length;
+    }
+
+    public int next() {
+        if (! hasNext()) {
+            throw new NoSuchElementException();
+        }
+        if (getEventType() == END_ELEMENT && depth > 0) {
+            depth --;
+        }
+        pos += tape.recordLength(pos);
+        final int eventType = getEventType();
+        if (eventType == START_ELEMENT) {
+            if (depth == elements.length) {
+                elements = Arrays.copyOf(elements, depth << 1);
+            }
+            elements[depth ++] = pos;
+        }
+        return eventType;
+    }
+
+    public XMLLocation getLocation() {
+        final int[] ops = this.ops;
+        final int pos = this.pos;
+        final int source = ops[pos] >>> 8;
+        return new XMLLocation(includedFrom(source), tape.getSourceUri(source), ops[pos + 1], ops[pos + 2], ops[pos + 3]);
+    }
+
+    public void copyPosition(final int[] dest, final int offs) {
+        System.arraycopy(ops, pos + 1, dest, offs, 3);
+    }
+
+    public int getEventType() {
+        return ops[pos] & 0xff;
+    }
+
+    public void close() {
+    }
+
+    // ===== names =====
+
+    public QName getName() {
+        if (! hasName()) throw new IllegalStateException();
+        return new QName(nonNull(symbol(0)), symbol(1), nonNull(symbol(2)));
+    }
+
+    public String getLocalName() {
+        switch (getEventType()) {
+            case START_ELEMENT:
+            case END_ELEMENT: return symbol(1);
+            case ENTITY_REFERENCE: return symbol(0);
+            default: throw new IllegalStateException();
+        }
+    }
+
+    public String getNamespaceURI() {
+        if (! hasName()) throw new IllegalStateException();
+        return symbol(0);
+    }
+
+    public String getPrefix() {
+        if (! hasName()) throw new IllegalStateException();
+        return symbol(2);
+    }
+
+    // ===== namespaces =====
+
+    private int startRecord() {
+        switch (getEventType()) {
+            case START_ELEMENT: return pos;
+            case END_ELEMENT: return ops[pos + HEADER_LENGTH + 3];
+            default: throw new IllegalStateException();
+        }
+    }
+
+    public int getNamespaceCount() {
+        final int start = startRecord();
+        return start == -1 ? 0 : ops[start + HEADER_LENGTH + 3];
+    }
+
+    public String getNamespacePrefix(final int index) {
+        return symbols[ops[startRecord() + HEADER_LENGTH + 5 + (index << 1)]];
+    }
+
+    public String getNamespaceURI(final int index) {
+        return symbols[ops[startRecord() + HEADER_LENGTH + 6 + (index << 1)]];
+    }
+
+    public String getNamespaceURI(final String prefix) {
+        if (prefix == null) throw new IllegalArgumentException();
+        if (XMLConstants.XML_NS_PREFIX.equals(prefix)) return XMLConstants.XML_NS_URI;
+        if (XMLConstants.XMLNS_ATTRIBUTE.equals(prefix)) return XMLConstants.XMLNS_ATTRIBUTE_NS_URI;
+        final int[] ops = this.ops;
+        final String[] symbols = this.symbols;
+        for (int i = depth - 1; i >= 0; i --) {
+            final int start = elements[i];
+            final int cnt = ops[start + HEADER_LENGTH + 3];
+            for (int j = 0; j < cnt; j ++) {
+                final int p = start + HEADER_LENGTH + 5 + (j << 1);
+                if (prefix.equals(nonNull(symbols[ops[p]]))) {
+                    return symbols[ops[p + 1]];
+                }
+            }
+        }
+        return null;
+    }
+
+    public NamespaceContext getNamespaceContext() {
+        return this;
+    }
+
+    public String getPrefix(final String namespaceURI) {
+        final Iterator<String> iterator = getPrefixes(namespaceURI);
+        return iterator.hasNext() ? iterator.next() : null;
+    }
+
+    public Iterator<String> getPrefixes(final String namespaceURI) {
+        if (namespaceURI == null) throw new IllegalArgumentException();
+        final Set<String> prefixes = new LinkedHashSet<>();
+        final int[] ops = this.ops;
+        final String[] symbols = this.symbols;
+        for (int i = depth - 1; i >= 0; i --) {
+            final int start = elements[i];
+            final int cnt = ops[start + HEADER_LENGTH + 3];
+            for (int j = 0; j < cnt; j ++) {
+                final int p = start + HEADER_LENGTH + 5 + (j << 1);
+                final String prefix = nonNull(symbols[ops[p]]);
+                if (namespaceURI.equals(symbols[ops[p + 1]]) && namespaceURI.equals(getNamespaceURI(prefix))) {
+                    prefixes.add(prefix);
+                }
+            }
+        }
+        return prefixes.iterator();
+    }
+
+    // ===== attributes =====
+
+    private int attribute(int index) {
+        if (getEventType() != START_ELEMENT) throw new IllegalStateException();
+        final int[] ops = this.ops;
+        final int pos = this.pos;
+        if (index < 0 || index >= ops[pos + HEADER_LENGTH + 4]) throw new IndexOutOfBoundsException();
+        return pos + HEADER_LENGTH + 5 + (ops[pos + HEADER_LENGTH + 3] << 1) + index * 6;
+    }
+
+    public String getAttributeValue(final String namespaceURI, final String localName) {
+        final int cnt = getAttributeCount();
+        for (int i = 0; i < cnt; i ++) {
+            final int p = attribute(i);
+            if (localName.equals(symbols[ops[p + 1]]) && (namespaceURI == null || namespaceURI.equals(nonNull(symbols[ops[p]])))) {
+                return symbols[ops[p + 4]];
+            }
+        }
+        return null;
+    }
+
+    public int getAttributeCount() {
+        if (getEventType() != START_ELEMENT) throw new IllegalStateException();
+        return ops[pos + HEADER_LENGTH + 4];
+    }
+
+    public QName getAttributeName(final int index) {
+        final int p = attribute(index);
+        return new QName(nonNull(symbols[ops[p]]), symbols[ops[p + 1]], nonNull(symbols[ops[p + 2]]));
+    }
+
+    public String getAttributeNamespace(final int index) {
+        return symbols[ops[attribute(index)]];
+    }
+
+    public String getAttributeLocalName(final int index) {
+        return symbols[ops[attribute(index) + 1]];
+    }
+
+    public String getAttributePrefix(final int index) {
+        return symbols[ops[attribute(index) + 2]];
+    }
+
+    public String getAttributeType(final int index) {
+        return symbols[ops[attribute(index) + 3]];
+    }
+
+    public String getAttributeValue(final int index) {
+        return symbols[ops[attribute(index) + 4]];
+    }
+
+    public boolean isAttributeSpecified(final int index) {
+        return ops[attribute(index) + 5] != 0;
+    }
+
+    // typed attribute values are read from the tape's precomputed symbol values where possible
+
+    public int getIntAttributeValue(final int index) throws ConfigXMLParseException {
+        final int symbol = ops[attribute(index) + 4];
+        final EventTape.SymbolValues values = tape.getSymbolValues();
+        return values.isInt(symbol) ? (int) values.getValue(symbol) : ConfigurationXMLStreamReader.super.getIntAttributeValue(index);
+    }
+
+    public long getLongAttributeValue(final int index) throws ConfigXMLParseException {
+        final int symbol = ops[attribute(index) + 4];
+        final EventTape.SymbolValues values = tape.getSymbolValues();
+        return values.isLong(symbol) ? values.getValue(symbol) : ConfigurationXMLStreamReader.super.getLongAttributeValue(index);
+    }
+
+    public boolean getBooleanAttributeValue(final int index) {
+        return tape.getSymbolValues().isTrue(ops[attribute(index) + 4]);
+    }
+
+    // ===== text =====
+
+    public boolean hasText() {
+        switch (getEventType()) {
+            case CHARACTERS:
+            case CDATA:
+            case SPACE:
+            case COMMENT:
+            case DTD:
+            case ENTITY_REFERENCE: {
+                return true;
+            }
+            default: {
+                return false;
+            }
+        }
+    }
+
+    public boolean isWhiteSpace() {
+        switch (getEventType()) {
+            case SPACE: {
+                return true;
+            }
+            case CHARACTERS:
+            case CDATA: {
+                final char[] text = this.text;
+                final int start = getTextStart();
+                final int end = start + getTextLength();
+                for (int i = start; i < end; i ++) {
+                    if (text[i] > ' ') {
+                        return false;
+                    }
+                }
+                return true;
+            }
+            default: {
+                return false;
+            }
+        }
+    }
+
+    public String getText() {
+        return new String(text, getTextStart(), getTextLength());
+    }
+
+    public char[] getTextCharacters() {
+        getTextStart();
+        return text;
+    }
+
+    public int getTextCharacters(final int sourceStart, final char[] target, final int targetStart, final int length) {
+        final int len = getTextLength();
+        if (sourceStart > len) return 0;
+        final int realLen = min(len - sourceStart, length);
+        System.arraycopy(text, getTextStart() + sourceStart, target, targetStart, realLen);
+        return realLen;
+    }
+
+    public int getTextStart() {
+        switch (getEventType()) {
+            case CHARACTERS:
+            case CDATA:
+            case SPACE:
+            case COMMENT:
+            case DTD: return ops[pos + HEADER_LENGTH];
+            case ENTITY_REFERENCE: return ops[pos + HEADER_LENGTH + 1];
+            default: throw new IllegalStateException();
+        }
+    }
+
+    public int getTextLength() {
+        switch (getEventType()) {
+            case CHARACTERS:
+            case CDATA:
+            case SPACE:
+            case COMMENT:
+            case DTD: return ops[pos + HEADER_LENGTH + 1];
+            case ENTITY_REFERENCE: return ops[pos + HEADER_LENGTH + 2];
+            default: throw new IllegalStateException();
+        }
+    }
+
+    // ===== document =====
+
+    private int documentWord(int offs) {
+        return (ops[0] & 0xff) == START_DOCUMENT ? ops[HEADER_LENGTH + offs] : 0;
+    }
+
+    public String getVersion() {
+        return symbols[documentWord(0)];
+    }
+
+    public String getEncoding() {
+        return symbols[documentWord(1)];
+    }
+
+    public String getCharacterEncodingScheme() {
+        return symbols[documentWord(2)];
+    }
+
+    public boolean isStandalone() {
+        return (documentWord(3) & EventTape.FLAG_STANDALONE) != 0;
+    }
+
+    public boolean standaloneSet() {
+        return (documentWord(3) & EventTape.FLAG_STANDALONE_SET) != 0;
+    }
+
+    public String getPITarget() {
+        return getEventType() == PROCESSING_INSTRUCTION ? symbol(0) : null;
+    }
+
+    public String getPIData() {
+        return getEventType() == PROCESSING_INSTRUCTION ? symbol(1) : null;
+    }
+
+    private static String nonNull(String str) {
+        return str == null ? "" : str;
+    }
+}
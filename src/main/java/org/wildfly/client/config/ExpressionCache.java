@@ -0,0 +1,154 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.client.config;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.wildfly.common.expression.Expression;
+
+/**
+ * A process-wide cache of compiled expressions, keyed by expression string and compilation flags.  Expressions are
+ * immutable, so a compiled expression can be shared by every reader.  Only strings which contain an expression
+ * (that is, {@code ${}) are cached, so that literal values such as clear-text passwords are never retained.  The cache
+ * holds at most {@code wildfly.config.expression-cache.size} entries (1024 by default; zero disables the cache),
+ * evicting an entry which was not used since the eviction pass last reached it when full (the "clock" approximation
+ * of least recently used).  Strings which fail to compile are not cached.
+ * <p>
+ * Lookups take no lock: a hit only marks its entry as used.  Insertions and evictions are serialized, but they only
+ * happen on a miss, which compiles the expression anyway.
+ */
+final class ExpressionCache {
+    private static final int MAX_SIZE = Integer.getInteger("wildfly.config.expression-cache.size", 1024).intValue();
+
+    private static final ConcurrentHashMap<Key, Entry> cache = new ConcurrentHashMap<>();
+    // the cached entries in clock order; guarded by itself, as are all changes to the cache
+    private static final ArrayDeque<Entry> clock = new ArrayDeque<>();
+    private static final LongAdder hits = new LongAdder();
+    private static final LongAdder misses = new LongAdder();
+
+    private ExpressionCache() {
+    }
+
+    /**
+     * Compile an expression, or get the previously compiled expression for the same string and flags.  Strings which
+     * do not contain an expression are compiled without being cached.
+     *
+     * @param string the expression string
+     * @param flags the compilation flags
+     * @return the compiled expression
+     * @throws IllegalArgumentException if the string is not a valid expression
+     */
+    static Expression compile(final String string, final Expression.Flag... flags) {
+        if (MAX_SIZE <= 0 || ! string.contains("${")) {
+            return Expression.compile(string, flags);
+        }
+        final Key key = new Key(string, flags);
+        Entry entry = cache.get(key);
+        if (entry != null) {
+            // avoid writing to a shared entry which is already marked
+            if (! entry.used) {
+                entry.used = true;
+            }
+            hits.increment();
+            Metrics.get().cacheHit(ConfigurationMetrics.Cache.EXPRESSION);
+            return entry.expression;
+        }
+        misses.increment();
+        Metrics.get().cacheMiss(ConfigurationMetrics.Cache.EXPRESSION);
+        // compile outside of the lock
+        final Expression expression = Expression.compile(string, flags);
+        synchronized (clock) {
+            entry = cache.get(key);
+            if (entry != null) {
+                return entry.expression;
+            }
+            while (clock.size() >= MAX_SIZE) {
+                // give each used entry a second chance, and evict the first unused one
+                final Entry candidate = clock.poll();
+                if (candidate.used) {
+                    candidate.used = false;
+                    clock.add(candidate);
+                } else {
+                    cache.remove(candidate.key);
+                }
+            }
+            entry = new Entry(key, expression);
+            clock.add(entry);
+            cache.put(key, entry);
+            return expression;
+        }
+    }
+
+    static long getHits() {
+        return hits.sum();
+    }
+
+    static long getMisses() {
+        return misses.sum();
+    }
+
+    static void clear() {
+        synchronized (clock) {
+            clock.clear();
+            cache.clear();
+        }
+    }
+
+    static final class Entry {
+        private final Key key;
+        private final Expression expression;
+        // set by each hit, and cleared by each eviction pass which passes over the entry
+        private volatile boolean used;
+
+        Entry(final Key key, final Expression expression) {
+            this.key = key;
+            this.expression = expression;
+        }
+    }
+
+    static final class Key {
+        private final String string;
+        private final int flags;
+        private final int hashCode;
+
+        Key(final String string, final Expression.Flag... flags) {
+            this.string = string;
+            int bits = 0;
+            for (Expression.Flag flag : flags) {
+                bits |= 1 << flag.ordinal();
+            }
+            this.flags = bits;
+            hashCode = string.hashCode() * 31 + bits;
+        }
+
+        public int hashCode() {
+            return hashCode;
+        }
+
+        public boolean equals(final Object obj) {
+            return obj instanceof Key && equals((Key) obj);
+        }
+
+        private boolean equals(final Key other) {
+            return this == other || other != null && hashCode == other.hashCode && flags == other.flags && string.equals(other.string);
+        }
+    }
+}
@@ -0,0 +1,1036 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.client.config;
+
+import static javax.xml.stream.XMLStreamConstants.CHARACTERS;
+import static javax.xml.stream.XMLStreamConstants.COMMENT;
+import static org.wildfly.client.config._private.ConfigMessages.msg;
+
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.IllegalCharsetNameException;
+import java.nio.charset.StandardCharsets;
+import java.nio.charset.UnsupportedCharsetException;
+import java.util.Arrays;
+
+import javax.xml.XMLConstants;
+
+/**
+ * An incremental, namespace-aware XML parser which accepts its input in chunks and records each event onto an
+ * {@link EventTape} as soon as the input containing it is complete.  The parser never blocks: when a chunk ends in
+ * the middle of a token, the token is left in the buffer and parsed once more input arrives.
+ * <p>
+ * The parser reports the same events as the StAX parser configured by {@link ClientConfiguration}, which does not
+ * support document type declarations; like that parser, it rejects them.  Character data in a CDATA section is
+ * reported as a separate {@code CHARACTERS} event.  The location of each event other than character data is the
+ * one that parser reports, including its count of columns after a carriage return which is not followed by a line
+ * feed; the location of character data is the end of the data.  Instances are not thread-safe.
+ * <p>
+ * Since its input may come from an untrusted source, the parser limits the resources that a document may use.  The
+ * limits are set by the following system properties, and a document which exceeds one is rejected:
+ * <ul>
+ *     <li>{@code wildfly.config.feed.max-token-size}: the number of characters in a single token, such as a tag,
+ *     a comment or a run of character data (default {@code 4194304})</li>
+ *     <li>{@code wildfly.config.feed.max-depth}: the depth to which elements are nested (default {@code 1024})</li>
+ *     <li>{@code wildfly.config.feed.max-attributes}: the number of attributes of an element, including namespace
+ *     declarations (default {@code 10000})</li>
+ *     <li>{@code wildfly.config.feed.max-name-length}: the number of characters in a name (default {@code 1000})</li>
+ * </ul>
+ */
+final class FeedParser {
+    // the longest prefix of the input which may be needed to detect the encoding from the XML declaration
+    private static final int MAX_DECLARATION = 1024;
+    private static final int MAX_TOKEN_SIZE = Math.max(MAX_DECLARATION, Integer.getInteger("wildfly.config.feed.max-token-size", 1 << 22).intValue());
+    private static final int MAX_DEPTH = Math.max(1, Integer.getInteger("wildfly.config.feed.max-depth", 1024).intValue());
+    private static final int MAX_ATTRIBUTES = Math.max(0, Integer.getInteger("wildfly.config.feed.max-attributes", 10000).intValue());
+    private static final int MAX_NAME_LENGTH = Math.max(1, Integer.getInteger("wildfly.config.feed.max-name-length", 1000).intValue());
+
+    private final URI uri;
+    private final EventTape.Builder builder;
+
+    // input not yet decoded, in read mode
+    private ByteBuffer in = ByteBuffer.allocate(0);
+    private CharsetDecoder decoder;
+    private String encoding;
+    private String declaredEncoding;
+
+    // decoded input; the token being parsed starts at pos
+    private char[] buf = new char[4096];
+    private int pos;
+    private int lim;
+    // the number of characters after pos already searched for the end of the current token
+    private int scanned;
+    private char scanQuote;
+    private boolean ended;
+
+    // the position just after the last consumed character
+    private int line = 1;
+    private int column = 1;
+    private int offset;
+    private boolean lastCr;
+    // whether the last carriage return was within character data, and the number of lone carriage returns within
+    // character data in the current run of line ends
+    private boolean lastCrInData;
+    private int loneCrs;
+
+    private boolean started;
+    private boolean rootClosed;
+    private boolean includes;
+    private long events;
+    private long characters;
+
+    // the open elements: qualified name, namespace URI, local name, prefix, then the binding count in the next array
+    private String[] elements = new String[64];
+    private int[] elementBindings = new int[16];
+    private int depth;
+    // the namespace bindings in scope, as prefix and URI pairs
+    private String[] bindings = new String[32];
+    private int bindingsLen;
+
+    // scratch space for the element being parsed
+    private final StringBuilder sb = new StringBuilder();
+    private char[] chars = new char[256];
+    private String[] rawAttributes = new String[16];
+    private int[] valueRanges = new int[16];
+    private String[] namespaces = new String[8];
+    private String[] attributes = new String[16];
+
+    FeedParser(final URI uri) {
+        this.uri = uri;
+        builder = new EventTape.Builder(uri, null);
+    }
+
+    /**
+     * Parse the given input.  All of the remaining bytes of the buffer are consumed.
+     *
+     * @param buffer the input
+     * @throws ConfigXMLParseException if the input is not well-formed
+     */
+    void feed(final ByteBuffer buffer) throws ConfigXMLParseException {
+        if (ended) {
+            throw msg.feedEnded();
+        }
+        append(buffer);
+        decode();
+        parse();
+    }
+
+    /**
+     * Finish parsing.
+     *
+     * @return the recorded document
+     * @throws ConfigXMLParseException if the document is incomplete or not well-formed
+     */
+    EventTape end() throws ConfigXMLParseException {
+        if (ended) {
+            throw msg.feedEnded();
+        }
+        ended = true;
+        decode();
+        parse();
+        if (pos < lim || ! rootClosed) {
+            throw msg.unexpectedDocumentEnd(location());
+        }
+        builder.endDocument(-1, -1, -1);
+        events ++;
+        return builder.build();
+    }
+
+    long getEventCount() {
+        return events;
+    }
+
+    long getCharacterCount() {
+        return characters;
+    }
+
+    /**
+     * Determine whether the document contains any element in the XInclude namespace.
+     */
+    boolean hasIncludes() {
+        return includes;
+    }
+
+    private XMLLocation location() {
+        return new XMLLocation(uri, line, column, offset);
+    }
+
+    /**
+     * Get the location of the given position of the input, which is at or after the start of the token being parsed.
+     */
+    private XMLLocation location(final int p) {
+        final int line = this.line;
+        final int column = this.column;
+        final boolean lastCr = this.lastCr;
+        final boolean lastCrInData = this.lastCrInData;
+        final int loneCrs = this.loneCrs;
+        advance(pos, p, false);
+        final XMLLocation location = new XMLLocation(uri, this.line, this.column, offset + p - pos);
+        this.line = line;
+        this.column = column;
+        this.lastCr = lastCr;
+        this.lastCrInData = lastCrInData;
+        this.loneCrs = loneCrs;
+        return location;
+    }
+
+    // ===== decoding =====
+
+    private void append(final ByteBuffer buffer) {
+        final ByteBuffer in = this.in;
+        final int cnt = in.remaining() + buffer.remaining();
+        if (in.capacity() < cnt) {
+            this.in = ByteBuffer.allocate(Math.max(cnt, in.capacity() << 1)).put(in).put(buffer).flip();
+        } else {
+            in.compact().put(buffer).flip();
+        }
+    }
+
+    private void decode() throws ConfigXMLParseException {
+        if (decoder == null && ! detectEncoding()) {
+            return;
+        }
+        final ByteBuffer in = this.in;
+        // make room at the end of the buffer, keeping the token being parsed
+        if (pos > 0) {
+            System.arraycopy(buf, pos, buf, 0, lim - pos);
+            lim -= pos;
+            pos = 0;
+        }
+        for (;;) {
+            final int need = lim + (int) Math.min(Integer.MAX_VALUE - 8 - lim, (long) Math.ceil(in.remaining() * (double) decoder.maxCharsPerByte()) + 2);
+            if (need > buf.length) {
+                buf = Arrays.copyOf(buf, Math.max(need, buf.length << 1));
+            }
+            final CharBuffer out = CharBuffer.wrap(buf, lim, buf.length - lim);
+            CoderResult result = decoder.decode(in, out, ended);
+            if (! result.isError() && ! result.isOverflow() && ended) {
+                result = decoder.flush(out);
+            }
+            checkChars(lim, out.position());
+            lim = out.position();
+            if (result.isError()) {
+                try {
+                    result.throwException();
+                } catch (CharacterCodingException e) {
+                    final ConfigXMLParseException ex = msg.malformedInput(encoding, location());
+                    ex.initCause(e);
+                    throw ex;
+                }
+            }
+            if (! result.isOverflow()) {
+                return;
+            }
+            buf = Arrays.copyOf(buf, buf.length << 1);
+        }
+    }
+
+    private void checkChars(final int start, final int end) throws ConfigXMLParseException {
+        final char[] buf = this.buf;
+        for (int i = start; i < end; i ++) {
+            final char c = buf[i];
+            // the decoders report unpaired surrogates as malformed input
+            if (c < 0x20 ? c != '\t' && c != '\n' && c != '\r' : c == 0xFFFE || c == 0xFFFF) {
+                throw msg.malformedXml("invalid character 0x" + Integer.toHexString(c), location(i));
+            }
+        }
+    }
+
+    /**
+     * Detect the input encoding from the byte order mark or the XML declaration.
+     *
+     * @return {@code true} if the encoding is known, {@code false} if more input is needed
+     */
+    private boolean detectEncoding() throws ConfigXMLParseException {
+        final ByteBuffer in = this.in;
+        final int cnt = in.remaining();
+        if (cnt < 4 && ! ended) {
+            return false;
+        }
+        final int p = in.position();
+        final int b0 = cnt > 0 ? in.get(p) & 0xff : -1;
+        final int b1 = cnt > 1 ? in.get(p + 1) & 0xff : -1;
+        final int b2 = cnt > 2 ? in.get(p + 2) & 0xff : -1;
+        final int b3 = cnt > 3 ? in.get(p + 3) & 0xff : -1;
+        Charset charset = StandardCharsets.UTF_8;
+        if (b0 == 0xEF && b1 == 0xBB && b2 == 0xBF) {
+            in.position(p + 3);
+        } else if (b0 == 0xFE && b1 == 0xFF) {
+            in.position(p + 2);
+            charset = StandardCharsets.UTF_16BE;
+        } else if (b0 == 0xFF && b1 == 0xFE) {
+            in.position(p + 2);
+            charset = StandardCharsets.UTF_16LE;
+        } else if (b0 == 0 && b1 == '<' && b2 == 0 && b3 == '?') {
+            charset = StandardCharsets.UTF_16BE;
+        } else if (b0 == '<' && b1 == 0 && b2 == '?' && b3 == 0) {
+            charset = StandardCharsets.UTF_16LE;
+        } else if (b0 == '<' && b1 == '?' && b2 == 'x' && b3 == 'm') {
+            // an ASCII-compatible encoding; the declaration may name it
+            int end = -1;
+            for (int i = p + 1; i < p + cnt; i ++) {
+                if (in.get(i) == '>' && in.get(i - 1) == '?') {
+                    end = i;
+                    break;
+                }
+            }
+            if (end == -1 && ! ended && cnt < MAX_DECLARATION) {
+                return false;
+            }
+            if (end != -1) {
+                final byte[] bytes = new byte[end + 1 - p];
+                in.get(p, bytes);
+                final String name = pseudoAttribute(new String(bytes, StandardCharsets.ISO_8859_1), "encoding");
+                if (name != null) {
+                    try {
+                        charset = Charset.forName(name);
+                    } catch (IllegalCharsetNameException | UnsupportedCharsetException e) {
+                        throw msg.unsupportedEncoding(name, location());
+                    }
+                }
+            }
+        }
+        encoding = charset.name();
+        decoder = charset.newDecoder().onMalformedInput(CodingErrorAction.REPORT).onUnmappableCharacter(CodingErrorAction.REPORT);
+        return true;
+    }
+
+    private static String pseudoAttribute(final String declaration, final String name) {
+        int idx = 0;
+        for (;;) {
+            idx = declaration.indexOf(name, idx);
+            if (idx == -1) {
+                return null;
+            }
+            int p = idx + name.length();
+            idx = p;
+            while (p < declaration.length() && isWhitespace(declaration.charAt(p))) p ++;
+            if (p == declaration.length() || declaration.charAt(p) != '=') {
+                continue;
+            }
+            p ++;
+            while (p < declaration.length() && isWhitespace(declaration.charAt(p))) p ++;
+            if (p == declaration.length()) {
+                return null;
+            }
+            final char quote = declaration.charAt(p);
+            if (quote != '"' && quote != '\'') {
+                return null;
+            }
+            final int end = declaration.indexOf(quote, p + 1);
+            return end == -1 ? null : declaration.substring(p + 1, end);
+        }
+    }
+
+    // ===== tokenizing =====
+
+    private void parse() throws ConfigXMLParseException {
+        if (decoder == null) {
+            return;
+        }
+        if (! started && ! parseDeclaration()) {
+            return;
+        }
+        while (pos < lim) {
+            if (buf[pos] == '<' ? ! parseMarkup() : ! parseText()) {
+                return;
+            }
+        }
+    }
+
+    private boolean parseDeclaration() throws ConfigXMLParseException {
+        final int avail = lim - pos;
+        if (avail < 6 && ! ended && "<?xml ".startsWith(new String(buf, pos, avail))) {
+            return false;
+        }
+        if (avail >= 6 && startsWith(pos, "<?xml") && isWhitespace(buf[pos + 5])) {
+            final int end = indexOf(pos + 5, "?>");
+            if (end == -1) {
+                return incomplete();
+            }
+            final String declaration = new String(buf, pos + 5, end - pos - 5);
+            final String version = pseudoAttribute(declaration, "version");
+            if (version == null) {
+                throw msg.malformedXml("missing version in XML declaration", location());
+            }
+            declaredEncoding = pseudoAttribute(declaration, "encoding");
+            final String standalone = pseudoAttribute(declaration, "standalone");
+            consume(end + 2);
+            builder.startDocument(line, column, offset, version, encoding, declaredEncoding, standalone == null ? 0 : "yes".equals(standalone) ? EventTape.FLAG_STANDALONE | EventTape.FLAG_STANDALONE_SET : EventTape.FLAG_STANDALONE_SET);
+        } else {
+            builder.startDocument(line, column, offset, null, encoding, null, 0);
+        }
+        events ++;
+        started = true;
+        return true;
+    }
+
+    private boolean parseMarkup() throws ConfigXMLParseException {
+        if (lim - pos < 2) {
+            return incomplete();
+        }
+        switch (buf[pos + 1]) {
+            case '/': return parseEndElement();
+            case '?': return parseProcessingInstruction();
+            case '!': {
+                if (matches(pos, "<!--")) {
+                    if (lim - pos < 4) return incomplete();
+                    final int end = indexOf(pos + 4, "-->");
+                    if (end == -1) return incomplete();
+                    final int start = pos + 4;
+                    if (indexOf(start, end, "--") != -1 || end > start && buf[end - 1] == '-') {
+                        throw msg.malformedXml("\"--\" must not appear in comments", location());
+                    }
+                    consume(end + 3, start, end);
+                    final int len = normalize(start, end);
+                    builder.text(COMMENT, line, column, offset, chars, 0, len);
+                    events ++;
+                    return true;
+                } else if (matches(pos, "<![CDATA[")) {
+                    if (lim - pos < 9) return incomplete();
+                    final int end = indexOf(pos + 9, "]]>");
+                    if (end == -1) return incomplete();
+                    if (depth == 0) {
+                        throw msg.contentOutsideRoot(location());
+                    }
+                    final int start = pos + 9;
+                    consume(end + 3, start, end);
+                    final int len = normalize(start, end);
+                    builder.text(CHARACTERS, line, column, offset, chars, 0, len);
+                    events ++;
+                    return true;
+                } else if (matches(pos, "<!DOCTYPE")) {
+                    if (lim - pos < 9) return incomplete();
+                    throw msg.dtdNotSupported(location());
+                } else {
+                    throw msg.malformedXml("invalid markup", location());
+                }
+            }
+            default: return parseStartElement();
+        }
+    }
+
+    private boolean parseText() throws ConfigXMLParseException {
+        int end = -1;
+        final char[] buf = this.buf;
+        for (int i = pos + scanned; i < lim; i ++) {
+            if (buf[i] == '<') {
+                end = i;
+                break;
+            }
+        }
+        if (end == -1) {
+            if (! ended) {
+                return incomplete();
+            }
+            end = lim;
+        }
+        checkTokenSize(end);
+        final int start = pos;
+        if (depth == 0) {
+            for (int i = start; i < end; i ++) {
+                if (! isWhitespace(buf[i])) {
+                    throw msg.contentOutsideRoot(location());
+                }
+            }
+            consume(end);
+            return true;
+        }
+        if (indexOf(start, end, "]]>") != -1) {
+            throw msg.malformedXml("\"]]>\" must not appear in content", location());
+        }
+        // decode before consuming, so that errors are reported at the start of the text
+        final int len = decodeText(start, end, false);
+        consume(end, start, end);
+        builder.text(CHARACTERS, line, column, offset, chars, 0, len);
+        events ++;
+        return true;
+    }
+
+    private boolean parseProcessingInstruction() throws ConfigXMLParseException {
+        final int end = indexOf(pos + 2, "?>");
+        if (end == -1) return incomplete();
+        int p = pos + 2;
+        final int nameEnd = nameEnd(p, end);
+        if (nameEnd == p) {
+            throw msg.malformedXml("missing processing instruction target", location());
+        }
+        final String target = name(p, nameEnd, false);
+        if (target.equalsIgnoreCase("xml")) {
+            throw msg.malformedXml("XML declaration is only allowed at the start of the document", location());
+        }
+        if (nameEnd < end && ! isWhitespace(buf[nameEnd])) {
+            throw msg.malformedXml("invalid processing instruction target", location());
+        }
+        p = nameEnd;
+        while (p < end && isWhitespace(buf[p])) p ++;
+        final int start = p;
+        consume(end + 2, start, end);
+        final int len = normalize(start, end);
+        builder.processingInstruction(line, column, offset, target, new String(chars, 0, len));
+        events ++;
+        return true;
+    }
+
+    private boolean parseStartElement() throws ConfigXMLParseException {
+        if (rootClosed) {
+            throw msg.contentOutsideRoot(location());
+        }
+        final char[] buf = this.buf;
+        // find the end of the tag, skipping quoted attribute values
+        int end = -1;
+        char quote = scanQuote;
+        for (int i = pos + Math.max(1, scanned); i < lim; i ++) {
+            final char c = buf[i];
+            if (quote != 0) {
+                if (c == quote) quote = 0;
+            } else if (c == '"' || c == '\'') {
+                quote = c;
+            } else if (c == '>') {
+                end = i;
+                break;
+            }
+        }
+        if (end == -1) {
+            scanQuote = quote;
+            return incomplete();
+        }
+        checkTokenSize(end + 1);
+        scanQuote = 0;
+        int p = pos + 1;
+        int nameEnd = nameEnd(p, end);
+        if (nameEnd == p) {
+            throw msg.malformedXml("missing element name", location());
+        }
+        final String qname = name(p, nameEnd, true);
+        p = nameEnd;
+        boolean empty = false;
+        int rawCnt = 0;
+        for (;;) {
+            final int wsStart = p;
+            while (p < end && isWhitespace(buf[p])) p ++;
+            if (p == end) {
+                break;
+            }
+            if (buf[p] == '/' && p + 1 == end) {
+                empty = true;
+                break;
+            }
+            if (p == wsStart) {
+                throw msg.malformedXml("whitespace is required between attributes", location());
+            }
+            if (rawCnt >> 1 == MAX_ATTRIBUTES) {
+                throw msg.limitExceeded("attribute count", MAX_ATTRIBUTES, location());
+            }
+            nameEnd = nameEnd(p, end);
+            if (nameEnd == p) {
+                throw msg.malformedXml("missing attribute name", location());
+            }
+            final String attributeName = name(p, nameEnd, true);
+            p = nameEnd;
+            while (p < end && isWhitespace(buf[p])) p ++;
+            if (p == end || buf[p] != '=') {
+                throw msg.malformedXml("missing value for attribute \"" + attributeName + "\"", location());
+            }
+            p ++;
+            while (p < end && isWhitespace(buf[p])) p ++;
+            if (p == end || buf[p] != '"' && buf[p] != '\'') {
+                throw msg.malformedXml("attribute value must be quoted", location());
+            }
+            final char q = buf[p];
+            int valueEnd = p + 1;
+            while (buf[valueEnd] != q) valueEnd ++;
+            final int len = decodeText(p + 1, valueEnd, true);
+            if (rawCnt == rawAttributes.length) {
+                rawAttributes = Arrays.copyOf(rawAttributes, rawCnt << 1);
+                valueRanges = Arrays.copyOf(valueRanges, rawCnt << 1);
+            }
+            valueRanges[rawCnt] = p + 1;
+            rawAttributes[rawCnt ++] = attributeName;
+            valueRanges[rawCnt] = valueEnd;
+            rawAttributes[rawCnt ++] = new String(chars, 0, len);
+            p = valueEnd + 1;
+        }
+        final int attributeCount = startElement(qname, rawCnt);
+        // only the attribute values are character data
+        int from = pos;
+        for (int i = 0; i < rawCnt; i += 2) {
+            advance(from, valueRanges[i], false);
+            advance(valueRanges[i], valueRanges[i + 1], true);
+            from = valueRanges[i + 1];
+        }
+        advance(from, end + 1, false);
+        skip(end + 1);
+        final int e = (depth - 1) << 2;
+        builder.startElement(line, column, offset, elements[e | 1], elements[e | 2], elements[e | 3], namespaces, (bindingsLen - elementBindings[depth - 1]) >> 1, attributes, attributeCount);
+        events ++;
+        if (empty) {
+            endElement();
+        }
+        return true;
+    }
+
+    /**
+     * Push an element, declaring its namespaces and resolving its attributes.
+     *
+     * @return the number of attributes
+     */
+    private int startElement(final String qname, final int rawCnt) throws ConfigXMLParseException {
+        if (depth == MAX_DEPTH) {
+            throw msg.limitExceeded("element depth", MAX_DEPTH, location());
+        }
+        if (depth == elementBindings.length) {
+            elementBindings = Arrays.copyOf(elementBindings, depth << 1);
+            elements = Arrays.copyOf(elements, depth << 3);
+        }
+        elementBindings[depth] = bindingsLen;
+        int nsCnt = 0;
+        int attrCnt = 0;
+        for (int i = 0; i < rawCnt; i += 2) {
+            final String name = rawAttributes[i];
+            final String value = rawAttributes[i + 1];
+            final String prefix;
+            if (name.equals("xmlns")) {
+                prefix = null;
+            } else if (name.startsWith("xmlns:")) {
+                prefix = name.substring(6);
+                if (value.isEmpty()) {
+                    throw msg.malformedXml("namespace prefix \"" + prefix + "\" must not be bound to an empty URI", location());
+                }
+            } else {
+                attrCnt ++;
+                continue;
+            }
+            if (XMLConstants.XMLNS_ATTRIBUTE.equals(prefix) || XMLConstants.XMLNS_ATTRIBUTE_NS_URI.equals(value) || XMLConstants.XML_NS_PREFIX.equals(prefix) != XMLConstants.XML_NS_URI.equals(value)) {
+                throw msg.malformedXml("invalid namespace declaration \"" + name + "\"", location());
+            }
+            for (int j = 0; j < nsCnt; j ++) {
+                if (prefix == null ? namespaces[j << 1] == null : prefix.equals(namespaces[j << 1])) {
+                    throw msg.duplicateAttribute(name, location());
+                }
+            }
+            if (bindingsLen == bindings.length) {
+                bindings = Arrays.copyOf(bindings, bindingsLen << 1);
+            }
+            bindings[bindingsLen ++] = prefix;
+            bindings[bindingsLen ++] = value.isEmpty() ? null : value;
+            if (nsCnt << 1 == namespaces.length) {
+                namespaces = Arrays.copyOf(namespaces, namespaces.length << 1);
+            }
+            namespaces[nsCnt << 1] = prefix;
+            namespaces[nsCnt << 1 | 1] = value.isEmpty() ? null : value;
+            nsCnt ++;
+        }
+        final int colon = qname.indexOf(':');
+        final String prefix = colon == -1 ? "" : qname.substring(0, colon);
+        final String localName = colon == -1 ? qname : qname.substring(colon + 1);
+        final int e = depth << 2;
+        elements[e] = qname;
+        final String namespaceUri = resolve(colon == -1 ? null : prefix, true);
+        includes |= XIncludeXMLStreamReader.XINCLUDE_NS.equals(namespaceUri);
+        elements[e | 1] = namespaceUri;
+        elements[e | 2] = localName;
+        elements[e | 3] = prefix;
+        depth ++;
+        if (attrCnt << 2 > attributes.length) {
+            attributes = new String[attrCnt << 2];
+        }
+        int a = 0;
+        for (int i = 0; i < rawCnt; i += 2) {
+            final String name = rawAttributes[i];
+            if (name.equals("xmlns") || name.startsWith("xmlns:")) {
+                continue;
+            }
+            final int c = name.indexOf(':');
+            final String attributePrefix = c == -1 ? "" : name.substring(0, c);
+            final String attributeNamespace = c == -1 ? null : resolve(attributePrefix, false);
+            final String attributeLocalName = c == -1 ? name : name.substring(c + 1);
+            for (int j = 0; j < a; j += 4) {
+                if (attributeLocalName.equals(attributes[j + 1]) && (attributeNamespace == null ? attributes[j] == null : attributeNamespace.equals(attributes[j]))) {
+                    throw msg.duplicateAttribute(name, location());
+                }
+            }
+            attributes[a ++] = attributeNamespace;
+            attributes[a ++] = attributeLocalName;
+            attributes[a ++] = attributePrefix;
+            attributes[a ++] = rawAttributes[i + 1];
+        }
+        return attrCnt;
+    }
+
+    private String resolve(final String prefix, final boolean element) throws ConfigXMLParseException {
+        if (prefix == null && ! element) {
+            return null;
+        }
+        if (XMLConstants.XML_NS_PREFIX.equals(prefix)) {
+            return XMLConstants.XML_NS_URI;
+        }
+        final String[] bindings = this.bindings;
+        for (int i = bindingsLen - 2; i >= 0; i -= 2) {
+            if (prefix == null ? bindings[i] == null : prefix.equals(bindings[i])) {
+                return bindings[i + 1];
+            }
+        }
+        if (prefix == null) {
+            return null;
+        }
+        throw msg.undeclaredPrefix(prefix, location());
+    }
+
+    private boolean parseEndElement() throws ConfigXMLParseException {
+        final char[] buf = this.buf;
+        int end = -1;
+        for (int i = pos + Math.max(2, scanned); i < lim; i ++) {
+            if (buf[i] == '>') {
+                end = i;
+                break;
+            }
+        }
+        if (end == -1) return incomplete();
+        final int nameEnd = nameEnd(pos + 2, end);
+        for (int i = nameEnd; i < end; i ++) {
+            if (! isWhitespace(buf[i])) {
+                throw msg.malformedXml("invalid end element", location());
+            }
+        }
+        final String qname = name(pos + 2, nameEnd, true);
+        if (depth == 0) {
+            throw msg.contentOutsideRoot(location());
+        }
+        final String startName = elements[(depth - 1) << 2];
+        if (! qname.equals(startName)) {
+            throw msg.mismatchedEndElement(qname, startName, location());
+        }
+        consume(end + 1);
+        endElement();
+        return true;
+    }
+
+    private void endElement() {
+        final int e = (depth - 1) << 2;
+        final int bindingsStart = elementBindings[depth - 1];
+        builder.endElement(line, column, offset, elements[e | 1], elements[e | 2], elements[e | 3]);
+        events ++;
+        Arrays.fill(bindings, bindingsStart, bindingsLen, null);
+        Arrays.fill(elements, e, e + 4, null);
+        bindingsLen = bindingsStart;
+        depth --;
+        if (depth == 0) {
+            rootClosed = true;
+        }
+    }
+
+    // ===== helpers =====
+
+    private boolean incomplete() throws ConfigXMLParseException {
+        if (ended) {
+            throw msg.unexpectedDocumentEnd(location());
+        }
+        checkTokenSize(lim);
+        scanned = lim - pos;
+        return false;
+    }
+
+    /**
+     * Check the size of the token being parsed, which ends at or after the given position.
+     */
+    private void checkTokenSize(final int end) throws ConfigXMLParseException {
+        if (end - pos > MAX_TOKEN_SIZE) {
+            throw msg.limitExceeded("token size", MAX_TOKEN_SIZE, location());
+        }
+    }
+
+    /**
+     * Consume the input up to the given position, updating the current position.
+     */
+    private void consume(final int end) throws ConfigXMLParseException {
+        consume(end, end, end);
+    }
+
+    /**
+     * Consume the input up to the given position, updating the current position, where the given range of the input
+     * is character data.
+     */
+    private void consume(final int end, final int dataStart, final int dataEnd) throws ConfigXMLParseException {
+        checkTokenSize(end);
+        advance(pos, dataStart, false);
+        advance(dataStart, dataEnd, true);
+        advance(dataEnd, end, false);
+        skip(end);
+    }
+
+    /**
+     * Update the line and column for the given range of the input.  Within character data, the StAX parser counts
+     * each carriage return which is not followed by a line feed as two line ends, of which only one moves to the next
+     * line; so that locations are the same, the column is moved back by one for each such carriage return in a run of
+     * line ends.
+     */
+    private void advance(final int start, final int end, final boolean data) {
+        final char[] buf = this.buf;
+        int line = this.line;
+        int column = this.column;
+        boolean lastCr = this.lastCr;
+        boolean lastCrInData = this.lastCrInData;
+        int loneCrs = this.loneCrs;
+        for (int i = start; i < end; i ++) {
+            final char c = buf[i];
+            if (c == '\n') {
+                if (! lastCr) {
+                    line ++;
+                    column = data ? 1 - loneCrs : 1;
+                } else if (lastCrInData) {
+                    // the carriage return was not lone after all
+                    loneCrs --;
+                    column ++;
+                }
+                lastCr = false;
+            } else if (c == '\r') {
+                line ++;
+                if (data) {
+                    loneCrs ++;
+                    column = 1 - loneCrs;
+                } else {
+                    column = 1;
+                }
+                lastCr = true;
+                lastCrInData = data;
+            } else {
+                column ++;
+                lastCr = false;
+                loneCrs = 0;
+            }
+        }
+        this.line = line;
+        this.column = column;
+        this.lastCr = lastCr;
+        this.lastCrInData = lastCrInData;
+        this.loneCrs = loneCrs;
+    }
+
+    private void skip(final int end) {
+        offset += end - pos;
+        characters += end - pos;
+        pos = end;
+        scanned = 0;
+    }
+
+    private char[] chars(final int len) {
+        if (chars.length < len) {
+            chars = new char[Math.max(len, chars.length << 1)];
+        }
+        return chars;
+    }
+
+    /**
+     * Copy the given range to the scratch characters, normalizing line ends.
+     *
+     * @return the number of characters
+     */
+    private int normalize(final int start, final int end) {
+        final char[] buf = this.buf;
+        final char[] chars = chars(end - start);
+        int len = 0;
+        for (int i = start; i < end; i ++) {
+            final char c = buf[i];
+            if (c == '\r') {
+                chars[len ++] = '\n';
+                if (i + 1 < end && buf[i + 1] == '\n') i ++;
+            } else {
+                chars[len ++] = c;
+            }
+        }
+        return len;
+    }
+
+    /**
+     * Copy the given range to the scratch characters, normalizing line ends and replacing references.  In attribute
+     * values, whitespace characters are also normalized to spaces.
+     *
+     * @return the number of characters
+     */
+    private int decodeText(final int start, final int end, final boolean attribute) throws ConfigXMLParseException {
+        final char[] buf = this.buf;
+        // references never expand, so the result is no longer than the input
+        final char[] chars = chars(end - start);
+        int len = 0;
+        for (int i = start; i < end; i ++) {
+            final char c = buf[i];
+            if (c == '\r') {
+                chars[len ++] = attribute ? ' ' : '\n';
+                if (i + 1 < end && buf[i + 1] == '\n') i ++;
+            } else if (attribute && (c == '\n' || c == '\t')) {
+                chars[len ++] = ' ';
+            } else if (c == '<') {
+                throw msg.malformedXml("attribute values must not contain '<'", location());
+            } else if (c == '&') {
+                int semi = i + 1;
+                while (semi < end && buf[semi] != ';') semi ++;
+                if (semi == end) {
+                    throw msg.malformedXml("unterminated reference", location());
+                }
+                final int cp = reference(i + 1, semi);
+                len += Character.toChars(cp, chars, len);
+                i = semi;
+            } else {
+                chars[len ++] = c;
+            }
+        }
+        return len;
+    }
+
+    private int reference(final int start, final int end) throws ConfigXMLParseException {
+        final String name = new String(buf, start, end - start);
+        switch (name) {
+            case "lt": return '<';
+            case "gt": return '>';
+            case "amp": return '&';
+            case "apos": return '\'';
+            case "quot": return '"';
+        }
+        if (name.startsWith("#")) {
+            // only ASCII digits are allowed, without a sign
+            final boolean hex = name.startsWith("#x");
+            int i = hex ? 2 : 1;
+            int cp = i == name.length() ? -1 : 0;
+            while (i < name.length() && cp != -1) {
+                final char c = name.charAt(i ++);
+                final int digit = c >= '0' && c <= '9' ? c - '0' : hex && c >= 'a' && c <= 'f' ? c - 'a' + 10 : hex && c >= 'A' && c <= 'F' ? c - 'A' + 10 : -1;
+                cp = digit == -1 || cp > 0x10FFFF ? -1 : cp * (hex ? 16 : 10) + digit;
+            }
+            if (cp == '\t' || cp == '\n' || cp == '\r' || cp >= 0x20 && cp <= 0xD7FF || cp >= 0xE000 && cp <= 0xFFFD || cp >= 0x10000 && cp <= 0x10FFFF) {
+                return cp;
+            }
+            throw msg.malformedXml("invalid character reference \"&" + name + ";\"", location());
+        }
+        throw msg.undeclaredEntity(name, location());
+    }
+
+    private int nameEnd(int p, final int end) {
+        final char[] buf = this.buf;
+        while (p < end) {
+            final char c = buf[p];
+            if (isWhitespace(c) || c == '/' || c == '>' || c == '=' || c == '"' || c == '\'' || c == '<' || c == '?') {
+                break;
+            }
+            p ++;
+        }
+        return p;
+    }
+
+    /**
+     * Get the name in the given range, checking that it is a valid name and, if it is qualified, that it has at most
+     * one colon, which separates its prefix from its local name.
+     */
+    private String name(final int start, final int end, final boolean qualified) throws ConfigXMLParseException {
+        if (end - start > MAX_NAME_LENGTH) {
+            throw msg.limitExceeded("name length", MAX_NAME_LENGTH, location());
+        }
+        final char[] buf = this.buf;
+        int colon = -1;
+        for (int i = start; i < end; ) {
+            final int cp = Character.codePointAt(buf, i, end);
+            final boolean valid;
+            if (cp == ':' && qualified) {
+                valid = colon == -1 && i > start && i + 1 < end;
+                colon = i;
+            } else {
+                valid = i == start || i == colon + 1 ? isNameStartChar(cp) : isNameChar(cp);
+            }
+            if (! valid) {
+                throw msg.malformedXml("invalid name \"" + new String(buf, start, end - start) + "\"", location());
+            }
+            i += Character.charCount(cp);
+        }
+        return new String(buf, start, end - start);
+    }
+
+    private static boolean isNameStartChar(final int cp) {
+        return cp >= 'a' && cp <= 'z' || cp >= 'A' && cp <= 'Z' || cp == '_' || cp == ':'
+            || cp >= 0xC0 && cp <= 0xD6 || cp >= 0xD8 && cp <= 0xF6 || cp >= 0xF8 && cp <= 0x2FF
+            || cp >= 0x370 && cp <= 0x37D || cp >= 0x37F && cp <= 0x1FFF || cp >= 0x200C && cp <= 0x200D
+            || cp >= 0x2070 && cp <= 0x218F || cp >= 0x2C00 && cp <= 0x2FEF || cp >= 0x3001 && cp <= 0xD7FF
+            || cp >= 0xF900 && cp <= 0xFDCF || cp >= 0xFDF0 && cp <= 0xFFFD || cp >= 0x10000 && cp <= 0xEFFFF;
+    }
+
+    private static boolean isNameChar(final int cp) {
+        return isNameStartChar(cp) || cp >= '0' && cp <= '9' || cp == '-' || cp == '.' || cp == 0xB7
+            || cp >= 0x300 && cp <= 0x36F || cp >= 0x203F && cp <= 0x2040;
+    }
+
+    /**
+     * Find the given string within the given range of the input.
+     */
+    private int indexOf(final int from, final int to, final String str) {
+        final char[] buf = this.buf;
+        outer: for (int i = from; i <= to - str.length(); i ++) {
+            for (int j = 0; j < str.length(); j ++) {
+                if (buf[i + j] != str.charAt(j)) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    private int indexOf(final int from, final String str) {
+        final char[] buf = this.buf;
+        final int last = lim - str.length();
+        final char first = str.charAt(0);
+        outer: for (int i = Math.max(from, pos + scanned - str.length() + 1); i <= last; i ++) {
+            if (buf[i] == first) {
+                for (int j = 1; j < str.length(); j ++) {
+                    if (buf[i + j] != str.charAt(j)) {
+                        continue outer;
+                    }
+                }
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private boolean startsWith(final int p, final String str) {
+        return lim - p >= str.length() && matches(p, str);
+    }
+
+    /**
+     * Determine whether the available input at the given position matches a prefix of the given string, which may
+     * be the entire string.
+     */
+    private boolean matches(final int p, final String str) {
+        final int cnt = Math.min(lim - p, str.length());
+        for (int i = 0; i < cnt; i ++) {
+            if (buf[p + i] != str.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isWhitespace(final char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\r';
+    }
+}
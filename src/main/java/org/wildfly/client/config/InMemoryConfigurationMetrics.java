@@ -0,0 +1,283 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.client.config;
+
+import java.net.URI;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A {@link ConfigurationMetrics} implementation which accumulates measurements in memory, for diagnostics and tests.
+ * All totals are cumulative until {@link #reset()} is called.
+ */
+public final class InMemoryConfigurationMetrics implements ConfigurationMetrics {
+    private final LongAdder configurationReads = new LongAdder();
+    private final LongAdder configurationNanos = new LongAdder();
+    private final LongAdder configurationFailures = new LongAdder();
+    private final LongAdder expressions = new LongAdder();
+    private final LongAdder expressionNanos = new LongAdder();
+    private final LongAdder encryptedExpressions = new LongAdder();
+    private final LongAdder encryptedExpressionNanos = new LongAdder();
+    private final Map<Cache, LongAdder> cacheHits = new EnumMap<>(Cache.class);
+    private final Map<Cache, LongAdder> cacheMisses = new EnumMap<>(Cache.class);
+    // source URI -> bytes, characters, events
+    private final ConcurrentHashMap<URI, LongAdder[]> sources = new ConcurrentHashMap<>();
+    // include URI -> fetches, nanos
+    private final ConcurrentHashMap<URI, LongAdder[]> includes = new ConcurrentHashMap<>();
+
+    /**
+     * Construct a new instance.
+     */
+    public InMemoryConfigurationMetrics() {
+        for (Cache cache : Cache.values()) {
+            cacheHits.put(cache, new LongAdder());
+            cacheMisses.put(cache, new LongAdder());
+        }
+    }
+
+    public void configurationRead(final URI uri, final long nanos) {
+        configurationReads.increment();
+        configurationNanos.add(nanos);
+    }
+
+    public void configurationReadFailed(final URI uri, final long nanos) {
+        configurationFailures.increment();
+    }
+
+    public void sourceRead(final URI uri, final long bytes, final long characters, final long events) {
+        final LongAdder[] totals = totals(sources, uri, 3);
+        totals[0].add(bytes);
+        totals[1].add(characters);
+        totals[2].add(events);
+    }
+
+    public void includeFetched(final URI href, final long nanos) {
+        final LongAdder[] totals = totals(includes, href, 2);
+        totals[0].increment();
+        totals[1].add(nanos);
+    }
+
+    public void cacheHit(final Cache cache) {
+        cacheHits.get(cache).increment();
+    }
+
+    public void cacheMiss(final Cache cache) {
+        cacheMisses.get(cache).increment();
+    }
+
+    public void expressionResolved(final long nanos) {
+        expressions.increment();
+        expressionNanos.add(nanos);
+    }
+
+    public void encryptedExpressionResolved(final long nanos) {
+        encryptedExpressions.increment();
+        encryptedExpressionNanos.add(nanos);
+    }
+
+    private static LongAdder[] totals(final ConcurrentHashMap<URI, LongAdder[]> map, final URI uri, final int cnt) {
+        return map.computeIfAbsent(uri, ignored -> {
+            final LongAdder[] totals = new LongAdder[cnt];
+            for (int i = 0; i < cnt; i ++) {
+                totals[i] = new LongAdder();
+            }
+            return totals;
+        });
+    }
+
+    private static long total(final Map<URI, LongAdder[]> map, final URI uri, final int idx) {
+        final LongAdder[] totals = map.get(uri);
+        return totals == null ? 0 : totals[idx].sum();
+    }
+
+    /**
+     * Get the number of completed configuration reads.
+     *
+     * @return the number of configuration reads
+     */
+    public long getConfigurationReads() {
+        return configurationReads.sum();
+    }
+
+    /**
+     * Get the total time spent in configuration reads.
+     *
+     * @return the total time in nanoseconds
+     */
+    public long getConfigurationNanos() {
+        return configurationNanos.sum();
+    }
+
+    /**
+     * Get the number of configuration reads which failed.
+     *
+     * @return the number of failed configuration reads
+     */
+    public long getConfigurationReadFailures() {
+        return configurationFailures.sum();
+    }
+
+    /**
+     * Get the URIs of the documents and text inclusions which have been read.
+     *
+     * @return the source URIs
+     */
+    public Set<URI> getSourceUris() {
+        return Set.copyOf(sources.keySet());
+    }
+
+    /**
+     * Get the total number of bytes read from a source.
+     *
+     * @param uri the source URI
+     * @return the number of bytes
+     */
+    public long getBytesRead(URI uri) {
+        return total(sources, uri, 0);
+    }
+
+    /**
+     * Get the total number of characters parsed from a source.
+     *
+     * @param uri the source URI
+     * @return the number of characters
+     */
+    public long getCharactersRead(URI uri) {
+        return total(sources, uri, 1);
+    }
+
+    /**
+     * Get the total number of events produced from a source.
+     *
+     * @param uri the source URI
+     * @return the number of events
+     */
+    public long getEventsRead(URI uri) {
+        return total(sources, uri, 2);
+    }
+
+    /**
+     * Get the number of times an include target was fetched.
+     *
+     * @param href the resolved include URI
+     * @return the number of fetches
+     */
+    public long getIncludeFetches(URI href) {
+        return total(includes, href, 0);
+    }
+
+    /**
+     * Get the total time spent fetching an include target.
+     *
+     * @param href the resolved include URI
+     * @return the total time in nanoseconds
+     */
+    public long getIncludeNanos(URI href) {
+        return total(includes, href, 1);
+    }
+
+    /**
+     * Get the number of hits in a shared cache.
+     *
+     * @param cache the cache
+     * @return the number of hits
+     */
+    public long getCacheHits(Cache cache) {
+        return cacheHits.get(cache).sum();
+    }
+
+    /**
+     * Get the number of misses in a shared cache.
+     *
+     * @param cache the cache
+     * @return the number of misses
+     */
+    public long getCacheMisses(Cache cache) {
+        return cacheMisses.get(cache).sum();
+    }
+
+    /**
+     * Get the number of attribute values resolved from expressions.
+     *
+     * @return the number of resolved expressions
+     */
+    public long getExpressionsResolved() {
+        return expressions.sum();
+    }
+
+    /**
+     * Get the total time spent resolving attribute values from expressions.
+     *
+     * @return the total time in nanoseconds
+     */
+    public long getExpressionNanos() {
+        return expressionNanos.sum();
+    }
+
+    /**
+     * Get the number of encrypted expressions resolved.
+     *
+     * @return the number of resolved encrypted expressions
+     */
+    public long getEncryptedExpressionsResolved() {
+        return encryptedExpressions.sum();
+    }
+
+    /**
+     * Get the total time spent resolving encrypted expressions.
+     *
+     * @return the total time in nanoseconds
+     */
+    public long getEncryptedExpressionNanos() {
+        return encryptedExpressionNanos.sum();
+    }
+
+    /**
+     * Discard all accumulated measurements.
+     */
+    public void reset() {
+        configurationReads.reset();
+        configurationNanos.reset();
+        configurationFailures.reset();
+        expressions.reset();
+        expressionNanos.reset();
+        encryptedExpressions.reset();
+        encryptedExpressionNanos.reset();
+        cacheHits.values().forEach(LongAdder::reset);
+        cacheMisses.values().forEach(LongAdder::reset);
+        sources.clear();
+        includes.clear();
+    }
+
+    public String toString() {
+        final StringBuilder b = new StringBuilder();
+        b.append("configuration reads=").append(getConfigurationReads()).append(" nanos=").append(getConfigurationNanos()).append(" failures=").append(getConfigurationReadFailures());
+        b.append("; expressions=").append(getExpressionsResolved()).append(" nanos=").append(getExpressionNanos());
+        b.append("; encrypted expressions=").append(getEncryptedExpressionsResolved()).append(" nanos=").append(getEncryptedExpressionNanos());
+        for (Cache cache : Cache.values()) {
+            b.append("; ").append(cache).append(" cache hits=").append(getCacheHits(cache)).append(" misses=").append(getCacheMisses(cache));
+        }
+        sources.forEach((uri, totals) -> b.append("; source ").append(uri).append(" bytes=").append(totals[0].sum()).append(" characters=").append(totals[1].sum()).append(" events=").append(totals[2].sum()));
+        includes.forEach((uri, totals) -> b.append("; include ").append(uri).append(" fetches=").append(totals[0].sum()).append(" nanos=").append(totals[1].sum()));
+        return b.toString();
+    }
+}
@@ -0,0 +1,393 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.client.config;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Objects;
+
+/**
+ * A process-wide cache of parsed XInclude targets.  Included documents are cached as event tapes, keyed by their
+ * resolved URI, parse mode, text encoding and requested content type and language, and evicted in least recently
+ * used order once the total estimated size of the cached tapes exceeds the byte budget given by the system property
+ * {@code wildfly.config.include-cache.size} (4 MiB by default; zero disables the cache).  Content whose length is
+ * not known to be within the budget before it is read is not cached, so that large inclusions are still streamed.
+ * <p>
+ * A cached tape is validated on each use.  Tapes read from local files (including files within local archives) are
+ * validated by the modification time and size of each file, as stamped before the file was opened, so that a
+ * modification made while the file is being read is never mistaken for the cached content.  Content read over HTTP is only cached if the system
+ * property {@code wildfly.config.include-cache.remote} is {@code true}; such tapes are validated by a conditional
+ * {@code GET} request using the entity tag or modification time reported with the cached content, whose response
+ * replaces the cached tape if the content has changed.  Content from any other source, or from a server which reports
+ * no validator, is not cached.
+ */
+final class IncludeCache {
+    private static final long MAX_SIZE = Long.getLong("wildfly.config.include-cache.size", 4L << 20).longValue();
+    private static final boolean REMOTE = Boolean.getBoolean("wildfly.config.include-cache.remote");
+
+    private static final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    // guarded by entries
+    private static long size;
+
+    private IncludeCache() {
+    }
+
+    /**
+     * Get the cache key for an include.
+     *
+     * @param href the resolved include URI
+     * @param parseAsText {@code true} if the include is parsed as text, {@code false} if it is parsed as XML
+     * @param textCharset the text encoding
+     * @param accept the requested content types
+     * @param acceptLanguage the requested languages, or {@code null} for any
+     * @return the key, or {@code null} if the cache is disabled
+     */
+    static Key key(final URI href, final boolean parseAsText, final Charset textCharset, final String accept, final String acceptLanguage) {
+        return MAX_SIZE <= 0 ? null : new Key(href, parseAsText ? textCharset.name() : null, accept, acceptLanguage);
+    }
+
+    /**
+     * Get the current cached tape for a local include.
+     *
+     * @param key the include key
+     * @return the tape, or {@code null} if there is no current tape
+     */
+    static EventTape get(final Key key) {
+        final Entry entry = getCurrent(key);
+        return entry == null ? null : entry.tape;
+    }
+
+    private static Entry getCurrent(final Key key) {
+        final Entry entry = lookup(key);
+        if (entry != null && entry.validator instanceof StampValidator) {
+            // validate outside of the lock, as it performs I/O
+            if (entry.validator.isCurrent()) {
+                Metrics.get().cacheHit(ConfigurationMetrics.Cache.INCLUDE);
+                return entry;
+            }
+            remove(key, entry);
+        }
+        Metrics.get().cacheMiss(ConfigurationMetrics.Cache.INCLUDE);
+        return null;
+    }
+
+    /**
+     * Open an include.  If the cache holds a current tape for the include, it is returned; otherwise the content of the
+     * include is opened for reading, after taking the stamp of its local file.  A cached remote tape is validated by a
+     * conditional request, whose response provides the content if the tape is out of date.
+     *
+     * @param key the include key, or {@code null} if the cache is disabled
+     * @param href the resolved include URI
+     * @param accept the requested content types
+     * @param acceptLanguage the requested languages, or {@code null} for any
+     * @return the opened include
+     * @throws IOException if the content could not be opened
+     */
+    static Source open(final Key key, final URI href, final String accept, final String acceptLanguage) throws IOException {
+        if (key == null) {
+            final SourceStamp[] stamps = stampsOf(href);
+            return new Source(null, ClientConfiguration.openStream(href, accept, acceptLanguage), null, false, stamps);
+        }
+        final String scheme = href.getScheme();
+        if (! "http".equalsIgnoreCase(scheme) && ! "https".equalsIgnoreCase(scheme)) {
+            final Entry entry = getCurrent(key);
+            if (entry != null) {
+                return new Source(entry.tape, null, null, false, ((StampValidator) entry.validator).stamps);
+            }
+            final SourceStamp[] stamps = stampsOf(href);
+            final InputStream inputStream = ClientConfiguration.openStream(href, accept, acceptLanguage);
+            return new Source(null, inputStream, null, isWithinBudget(href), stamps);
+        }
+        if (! REMOTE) {
+            return new Source(null, ClientConfiguration.openStream(href, accept, acceptLanguage), null, false, SourceStamp.NO_STAMPS);
+        }
+        final Entry entry = lookup(key);
+        final HttpValidator cached = entry != null && entry.validator instanceof HttpValidator ? (HttpValidator) entry.validator : null;
+        final HttpURLConnection connection = (HttpURLConnection) href.toURL().openConnection();
+        connection.setUseCaches(false);
+        connection.setRequestProperty("Accept", accept);
+        if (acceptLanguage != null) connection.setRequestProperty("Accept-Language", acceptLanguage);
+        if (cached != null) {
+            if (cached.entityTag != null) {
+                connection.setRequestProperty("If-None-Match", cached.entityTag);
+            } else {
+                connection.setIfModifiedSince(cached.lastModified);
+            }
+            if (connection.getResponseCode() == HttpURLConnection.HTTP_NOT_MODIFIED) {
+                connection.disconnect();
+                Metrics.get().cacheHit(ConfigurationMetrics.Cache.INCLUDE);
+                return new Source(entry.tape, null, null, false, SourceStamp.NO_STAMPS);
+            }
+        }
+        remove(key, entry);
+        Metrics.get().cacheMiss(ConfigurationMetrics.Cache.INCLUDE);
+        final InputStream inputStream = connection.getInputStream();
+        final HttpValidator validator = HttpValidator.of(connection);
+        final long length = connection.getContentLengthLong();
+        return new Source(null, inputStream, validator, validator != null && length >= 0 && length <= MAX_SIZE, SourceStamp.NO_STAMPS);
+    }
+
+    private static SourceStamp[] stampsOf(final URI href) {
+        final SourceStamp stamp = SourceStamp.of(href);
+        return stamp == null ? SourceStamp.NO_STAMPS : new SourceStamp[] { stamp };
+    }
+
+    private static boolean isWithinBudget(final URI href) {
+        if (! "file".equalsIgnoreCase(href.getScheme())) {
+            // only local files can be validated, so other content would be recorded only to be discarded (archive
+            // entries are never included, as their URIs are opaque)
+            return false;
+        }
+        final Path path = SourceStamp.pathOf(href);
+        try {
+            return path != null && Files.size(path) <= MAX_SIZE;
+        } catch (IOException | SecurityException e) {
+            return false;
+        }
+    }
+
+    private static Entry lookup(final Key key) {
+        synchronized (entries) {
+            return entries.get(key);
+        }
+    }
+
+    private static void remove(final Key key, final Entry entry) {
+        if (entry != null) {
+            synchronized (entries) {
+                if (entries.remove(key, entry)) {
+                    size -= entry.size;
+                }
+            }
+        }
+    }
+
+    /**
+     * Cache a tape for an include, if it is small enough and can be validated.
+     *
+     * @param key the include key
+     * @param tape the recorded include
+     * @param stamps the stamps of the local files the tape was recorded from, each taken before the file was opened
+     * @param remoteValidator the validator for a remote include, or {@code null} if there is none
+     */
+    static void put(final Key key, final EventTape tape, final SourceStamp[] stamps, final Validator remoteValidator) {
+        final long entrySize = tape.getSize();
+        if (entrySize > MAX_SIZE) {
+            return;
+        }
+        Validator validator = new StampValidator(stamps);
+        final int cnt = tape.getSourceCount();
+        for (int i = 0; i < cnt; i ++) {
+            final Path path = SourceStamp.pathOf(tape.getSourceUri(i));
+            if (path == null) {
+                // a remote include can only be validated if it has no includes of its own
+                if (remoteValidator == null || cnt > 1) {
+                    return;
+                }
+                validator = remoteValidator;
+            } else if (! isStamped(stamps, path)) {
+                // the content cannot be validated
+                return;
+            }
+        }
+        final Entry entry = new Entry(tape, validator, entrySize);
+        synchronized (entries) {
+            final Entry old = entries.put(key, entry);
+            if (old != null) {
+                size -= old.size;
+            }
+            size += entrySize;
+            final Iterator<Entry> iterator = entries.values().iterator();
+            while (size > MAX_SIZE && iterator.hasNext()) {
+                size -= iterator.next().size;
+                iterator.remove();
+            }
+        }
+    }
+
+    private static boolean isStamped(final SourceStamp[] stamps, final Path path) {
+        for (SourceStamp stamp : stamps) {
+            if (stamp.getPath().equals(path)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Remove all entries from the cache.
+     */
+    static void clear() {
+        synchronized (entries) {
+            entries.clear();
+            size = 0;
+        }
+    }
+
+    static final class Key {
+        private final URI href;
+        private final String textCharset;
+        private final String accept;
+        private final String acceptLanguage;
+        private final int hashCode;
+
+        Key(final URI href, final String textCharset, final String accept, final String acceptLanguage) {
+            this.href = href;
+            this.textCharset = textCharset;
+            this.accept = accept;
+            this.acceptLanguage = acceptLanguage;
+            hashCode = Objects.hash(href, textCharset, accept, acceptLanguage);
+        }
+
+        public int hashCode() {
+            return hashCode;
+        }
+
+        public boolean equals(final Object obj) {
+            return obj instanceof Key && equals((Key) obj);
+        }
+
+        private boolean equals(final Key other) {
+            return this == other || other != null && hashCode == other.hashCode && href.equals(other.href)
+                && Objects.equals(textCharset, other.textCharset) && Objects.equals(accept, other.accept)
+                && Objects.equals(acceptLanguage, other.acceptLanguage);
+        }
+    }
+
+    interface Validator {
+        boolean isCurrent();
+    }
+
+    static final class StampValidator implements Validator {
+        private final SourceStamp[] stamps;
+
+        StampValidator(final SourceStamp[] stamps) {
+            this.stamps = stamps;
+        }
+
+        public boolean isCurrent() {
+            for (SourceStamp stamp : stamps) {
+                if (! stamp.isCurrent()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    static final class HttpValidator implements Validator {
+        private final String entityTag;
+        private final long lastModified;
+
+        private HttpValidator(final String entityTag, final long lastModified) {
+            this.entityTag = entityTag;
+            this.lastModified = lastModified;
+        }
+
+        static HttpValidator of(final HttpURLConnection connection) {
+            final String entityTag = connection.getHeaderField("ETag");
+            final long lastModified = connection.getLastModified();
+            return entityTag == null && lastModified == 0 ? null : new HttpValidator(entityTag, lastModified);
+        }
+
+        public boolean isCurrent() {
+            // validated by a conditional request when the include is opened
+            return false;
+        }
+    }
+
+    /**
+     * An opened include: either a current cached tape, or the content to read.
+     */
+    static final class Source {
+        private final EventTape tape;
+        private final InputStream inputStream;
+        private final Validator validator;
+        private final boolean cacheable;
+        private final SourceStamp[] stamps;
+
+        Source(final EventTape tape, final InputStream inputStream, final Validator validator, final boolean cacheable, final SourceStamp[] stamps) {
+            this.tape = tape;
+            this.inputStream = inputStream;
+            this.validator = validator;
+            this.cacheable = cacheable;
+            this.stamps = stamps;
+        }
+
+        /**
+         * Get the current cached tape.
+         *
+         * @return the tape, or {@code null} if the content must be read
+         */
+        EventTape getTape() {
+            return tape;
+        }
+
+        InputStream getInputStream() {
+            return inputStream;
+        }
+
+        /**
+         * Get the validator for remote content, to be given to {@link #put(Key, EventTape, SourceStamp[], Validator)}.
+         *
+         * @return the validator, or {@code null} if there is none
+         */
+        Validator getValidator() {
+            return validator;
+        }
+
+        /**
+         * Determine whether the content is small enough to be recorded and cached.
+         *
+         * @return {@code true} if the content should be cached
+         */
+        boolean isCacheable() {
+            return cacheable;
+        }
+
+        /**
+         * Get the stamps of the local files which the tape or content was read from, each taken before the file was
+         * opened.
+         *
+         * @return the stamps (not {@code null})
+         */
+        SourceStamp[] getStamps() {
+            return stamps;
+        }
+    }
+
+    static final class Entry {
+        private final EventTape tape;
+        private final Validator validator;
+        private final long size;
+
+        Entry(final EventTape tape, final Validator validator, final long size) {
+            this.tape = tape;
+            this.validator = validator;
+            this.size = size;
+        }
+    }
+}
@@ -0,0 +1,359 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.client.config;
+
+import static javax.xml.stream.XMLStreamConstants.END_ELEMENT;
+import static javax.xml.stream.XMLStreamConstants.START_ELEMENT;
+import static org.wildfly.client.config.EventTape.HEADER_LENGTH;
+import static org.wildfly.client.config.XIncludeXMLStreamReader.XINCLUDE_NS;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.AccessController;
+import java.security.PrivilegedAction;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.xml.stream.XMLInputFactory;
+
+/**
+ * A prefetcher for the XInclude targets of a document.  The document is first recorded without processing its
+ * inclusions; the recording is scanned for {@code xi:include} elements, and every target is fetched and parsed in the
+ * background.  Targets are recorded without processing their own inclusions, which are scanned and prefetched in turn.
+ * When only the configuration elements of certain namespaces will be read, the inclusions within the other
+ * configuration elements are not prefetched, since the reader skips them; inclusions of whole configuration elements
+ * are always prefetched, since they may provide a selected element.
+ * The document is then replayed through an XInclude reader which takes each target from the prefetcher in document
+ * order, and which processes the inclusions of each target as it replays it.
+ * <p>
+ * Since only the replaying reader waits for prefetched targets, background fetches never wait for each other, and
+ * recursive inclusion is detected by the replaying reader as usual.
+ * <p>
+ * If a target cannot be prefetched for any reason, the replaying reader is given the failure and processes that
+ * include itself as it normally would, so that error reporting and fallback behavior are the same as without
+ * prefetching; the prefetch failure is reported along with any failure of the reader's own attempt.  Prefetching is
+ * enabled by setting the system property {@code wildfly.config.include-prefetch} to {@code true}.  At most
+ * {@code wildfly.config.include-prefetch.threads} (8 by default) targets are fetched at once, on virtual threads if
+ * the platform supports them.
+ */
+final class IncludePrefetcher {
+    static final boolean ENABLED = Boolean.getBoolean("wildfly.config.include-prefetch");
+    private static final int THREADS = Math.max(1, Integer.getInteger("wildfly.config.include-prefetch.threads", 8).intValue());
+
+    private final XMLInputFactory xmlInputFactory;
+    // the stamps of the fetched local files, or null if they are not needed
+    private final SourceStamp.Recorder stamps;
+    // the namespaces of the only configuration elements which will be read, or null if any may be read
+    private final Set<String> namespaces;
+    // the context class loader of the thread which opened the document, which is used to fetch every target
+    private final ClassLoader contextClassLoader;
+    private final ConcurrentHashMap<IncludeCache.Key, FutureTask<EventTape>> tasks = new ConcurrentHashMap<>();
+    private volatile boolean cancelled;
+
+    private IncludePrefetcher(final XMLInputFactory xmlInputFactory, final SourceStamp.Recorder stamps, final Set<String> namespaces) {
+        this.xmlInputFactory = xmlInputFactory;
+        this.stamps = stamps;
+        this.namespaces = namespaces;
+        contextClassLoader = Thread.currentThread().getContextClassLoader();
+    }
+
+    /**
+     * Open a document, prefetching all of its inclusions.
+     *
+     * @param uri the document URI
+     * @param xmlInputFactory the XML input factory
+     * @param inputStream the document content
+     * @param stamps the recorder to stamp each included local file with before it is opened, or {@code null} for none
+     * @param namespaces the namespaces of the only configuration elements which will be read, or {@code null} if any
+     *     may be read
+     * @return the reader over the document, with inclusions processed, which cancels the outstanding prefetches when
+     *     it is closed
+     * @throws ConfigXMLParseException if the document could not be read
+     */
+    static ConfigurationXMLStreamReader open(final URI uri, final XMLInputFactory xmlInputFactory, final InputStream inputStream, final SourceStamp.Recorder stamps, final Set<String> namespaces) throws ConfigXMLParseException {
+        final IncludePrefetcher prefetcher = new IncludePrefetcher(xmlInputFactory, stamps, namespaces);
+        final EventTape tape;
+        try (ConfigurationXMLStreamReader reader = ClientConfiguration.openUri(uri, xmlInputFactory, inputStream)) {
+            tape = EventTape.record(reader);
+        }
+        // configuration elements are the children of the root element
+        prefetcher.scan(tape, namespaces == null ? -1 : 1);
+        return new PrefetchingXMLStreamReader(new XIncludeXMLStreamReader(tape.newReader(null, xmlInputFactory), prefetcher, stamps), prefetcher);
+    }
+
+    /**
+     * Take a prefetched include, waiting for it if necessary.  Only called by the replaying reader, never from within a
+     * fetch.
+     *
+     * @param key the include key
+     * @return the recorded include, with its own inclusions unprocessed, or {@code null} if it was not prefetched
+     * @throws ExecutionException if prefetching the include failed; the caller should process the include itself, so
+     *     that the problem is reported with the correct location
+     */
+    EventTape take(final IncludeCache.Key key) throws ExecutionException {
+        final FutureTask<EventTape> task = tasks.get(key);
+        if (task == null) {
+            return null;
+        }
+        // if no thread has picked the task up yet, run it here instead of waiting for one
+        task.run();
+        try {
+            return task.get();
+        } catch (CancellationException e) {
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    /**
+     * Cancel the fetches which have not started yet, and stop submitting new ones.  A fetch which has already started
+     * is left to finish, since its result may be stored in the include cache.
+     */
+    void cancel() {
+        cancelled = true;
+        for (FutureTask<EventTape> task : tasks.values()) {
+            task.cancel(false);
+        }
+    }
+
+    /**
+     * Submit the targets of the inclusions in the given recording.
+     *
+     * @param tape the recording
+     * @param elementDepth the depth of the configuration elements in the recording, within which inclusions are only
+     *     submitted if the element is selected, or -1 to submit all inclusions
+     * @return {@code true} if the recording contains any XInclude element
+     */
+    private boolean scan(final EventTape tape, final int elementDepth) {
+        final int[] ops = tape.getOps();
+        final String[] symbols = tape.getSymbols();
+        boolean found = false;
+        int depth = 0;
+        int skip = 0;
+        for (int pos = 0; pos < ops.length; pos += tape.recordLength(pos)) {
+            switch (ops[pos] & 0xff) {
+                case START_ELEMENT: {
+                    final String namespace = symbols[ops[pos + HEADER_LENGTH]];
+                    // skipped content is still searched, so that a recording with inclusions is never cached
+                    found |= XINCLUDE_NS.equals(namespace);
+                    if (skip > 0) {
+                        skip ++;
+                    } else if (XINCLUDE_NS.equals(namespace) && "include".equals(symbols[ops[pos + HEADER_LENGTH + 1]])) {
+                        // an inclusion in place of a configuration element may provide a selected element
+                        submit(tape, pos, depth == elementDepth);
+                        // don't look into fallback content
+                        skip = 1;
+                    } else if (depth == elementDepth && (namespace == null || ! namespaces.contains(namespace))) {
+                        // the reader skips this element
+                        skip = 1;
+                    }
+                    depth ++;
+                    break;
+                }
+                case END_ELEMENT: {
+                    depth --;
+                    if (skip > 0) {
+                        skip --;
+                    }
+                    break;
+                }
+            }
+        }
+        return found;
+    }
+
+    private void submit(final EventTape tape, final int pos, final boolean element) {
+        final ConfigurationXMLStreamReader reader = tape.newReader(null, xmlInputFactory, pos);
+        URI href = null;
+        boolean parseAsText = false;
+        Charset textCharset = StandardCharsets.UTF_8;
+        String accept = null;
+        String acceptLanguage = null;
+        try {
+            final int attributeCount = reader.getAttributeCount();
+            for (int i = 0; i < attributeCount; i ++) {
+                if (reader.getAttributeNamespace(i) == null) {
+                    final String value = reader.getAttributeValue(i);
+                    switch (reader.getAttributeLocalName(i)) {
+                        case "href": href = new URI(value); break;
+                        case "parse": {
+                            if (! "xml".equals(value) && ! "text".equals(value)) return;
+                            parseAsText = "text".equals(value);
+                            break;
+                        }
+                        case "encoding": textCharset = Charset.forName(value); break;
+                        case "accept": accept = value; break;
+                        case "accept-language": acceptLanguage = value; break;
+                        // the include will fall back
+                        case "xpointer": return;
+                    }
+                }
+            }
+        } catch (URISyntaxException | IllegalArgumentException e) {
+            // leave it to the reader to report
+            return;
+        }
+        if (href == null || href.isOpaque() || href.getFragment() != null) {
+            return;
+        }
+        if (! href.isAbsolute()) {
+            href = reader.getUri().resolve(href);
+        }
+        final String acceptHeader = XIncludeXMLStreamReader.acceptHeader(accept, parseAsText);
+        final IncludeCache.Key key = new IncludeCache.Key(href, parseAsText ? textCharset.name() : null, acceptHeader, acceptLanguage);
+        if (cancelled || tasks.containsKey(key)) {
+            return;
+        }
+        final URI finalHref = href;
+        final boolean finalParseAsText = parseAsText;
+        final Charset finalTextCharset = textCharset;
+        final String finalAcceptLanguage = acceptLanguage;
+        final FutureTask<EventTape> task = new FutureTask<>(() -> {
+            // the target is fetched as though by the thread which opened the document
+            final Thread thread = Thread.currentThread();
+            final ClassLoader old = thread.getContextClassLoader();
+            thread.setContextClassLoader(contextClassLoader);
+            try {
+                return fetch(key, finalHref, finalParseAsText, finalTextCharset, acceptHeader, finalAcceptLanguage, element);
+            } finally {
+                thread.setContextClassLoader(old);
+            }
+        });
+        if (tasks.putIfAbsent(key, task) == null) {
+            if (cancelled) {
+                // the reader was closed while this target was being submitted
+                task.cancel(false);
+                return;
+            }
+            executor().execute(task);
+        }
+    }
+
+    private EventTape fetch(final IncludeCache.Key key, final URI href, final boolean parseAsText, final Charset textCharset, final String accept, final String acceptLanguage, final boolean element) throws IOException, ConfigXMLParseException {
+        final boolean cached = IncludeCache.key(href, parseAsText, textCharset, accept, acceptLanguage) != null;
+        final IncludeCache.Source source = IncludeCache.open(cached ? key : null, href, accept, acceptLanguage);
+        if (stamps != null) stamps.add(source.getStamps());
+        EventTape tape = source.getTape();
+        if (tape != null) {
+            return tape;
+        }
+        final InputStream inputStream = Metrics.meter(source.getInputStream());
+        final ConfigurationXMLStreamReader include;
+        try {
+            include = parseAsText ?
+                new TextXMLStreamReader(textCharset, inputStream, new EmptyXMLStreamReader(href, null), href) :
+                ClientConfiguration.openUri(href, xmlInputFactory, inputStream);
+        } catch (Throwable t) {
+            try {
+                inputStream.close();
+            } catch (Throwable t2) {
+                t.addSuppressed(t2);
+            }
+            throw t;
+        }
+        try (ConfigurationXMLStreamReader reader = include) {
+            tape = EventTape.record(reader);
+        }
+        // nested inclusions are prefetched as well, but processed by the replaying reader; the cache only holds
+        // processed documents.  The root element of a document included in place of a configuration element is
+        // itself a configuration element.
+        final boolean nested = ! parseAsText && scan(tape, element && namespaces != null ? 0 : -1);
+        if (source.isCacheable() && ! nested) {
+            IncludeCache.put(key, tape, source.getStamps(), source.getValidator());
+        }
+        return tape;
+    }
+
+    /**
+     * The reader over a prefetched document, which cancels the outstanding prefetches when it is closed.  Included
+     * documents are read by nested XInclude readers which share the prefetcher, so only the outermost reader may cancel
+     * it.
+     */
+    static final class PrefetchingXMLStreamReader extends AbstractDelegatingXMLStreamReader {
+        private final IncludePrefetcher prefetcher;
+
+        PrefetchingXMLStreamReader(final ConfigurationXMLStreamReader delegate, final IncludePrefetcher prefetcher) {
+            super(true, delegate);
+            this.prefetcher = prefetcher;
+        }
+
+        public void close() throws ConfigXMLParseException {
+            try {
+                super.close();
+            } finally {
+                prefetcher.cancel();
+            }
+        }
+    }
+
+    private static Executor executor() {
+        return ExecutorHolder.EXECUTOR;
+    }
+
+    static final class ExecutorHolder {
+        static final Executor EXECUTOR;
+
+        static {
+            final SecurityManager sm = System.getSecurityManager();
+            EXECUTOR = sm == null ? createExecutor() : AccessController.doPrivileged((PrivilegedAction<Executor>) ExecutorHolder::createExecutor);
+        }
+
+        private static Executor createExecutor() {
+            try {
+                final ExecutorService virtual = (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+                final Semaphore semaphore = new Semaphore(THREADS);
+                return task -> virtual.execute(() -> {
+                    semaphore.acquireUninterruptibly();
+                    try {
+                        task.run();
+                    } finally {
+                        semaphore.release();
+                    }
+                });
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                // no virtual threads
+            }
+            final AtomicInteger count = new AtomicInteger();
+            final ThreadPoolExecutor executor = new ThreadPoolExecutor(THREADS, THREADS, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), task -> {
+                final Thread thread = new Thread(task, "wildfly-client-config prefetch " + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+            executor.allowCoreThreadTimeOut(true);
+            return executor;
+        }
+    }
+}
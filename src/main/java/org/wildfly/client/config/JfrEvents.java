@@ -0,0 +1,180 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.client.config;
+
+import java.net.URI;
+import java.util.Set;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * The Flight Recorder event types.  This class is only loaded when the {@code jdk.jfr} module is
+ * {@linkplain ConfigurationEvents#AVAILABLE available}.
+ */
+final class JfrEvents {
+    private static final String CATEGORY = "WildFly Client Configuration";
+
+    private JfrEvents() {
+    }
+
+    static Object beginRead() {
+        final ConfigurationRead event = new ConfigurationRead();
+        if (! event.isEnabled()) {
+            return null;
+        }
+        event.begin();
+        return event;
+    }
+
+    static void endRead(final Object object, final URI uri, final Set<String> namespaces, final long bytes, final boolean failed) {
+        final ConfigurationRead event = (ConfigurationRead) object;
+        event.end();
+        if (event.shouldCommit()) {
+            event.uri = String.valueOf(uri);
+            event.namespaces = String.join(" ", namespaces);
+            event.bytes = bytes;
+            event.failed = failed;
+            event.commit();
+        }
+    }
+
+    static Object beginInclude() {
+        final IncludeResolved event = new IncludeResolved();
+        if (! event.isEnabled()) {
+            return null;
+        }
+        event.begin();
+        return event;
+    }
+
+    static void endInclude(final Object object, final URI href, final boolean parseAsText, final String outcome) {
+        final IncludeResolved event = (IncludeResolved) object;
+        event.end();
+        if (event.shouldCommit()) {
+            event.href = String.valueOf(href);
+            event.parse = parseAsText ? "text" : "xml";
+            event.outcome = outcome;
+            event.commit();
+        }
+    }
+
+    static Object beginExpression() {
+        final ExpressionResolved event = new ExpressionResolved();
+        if (! event.isEnabled()) {
+            return null;
+        }
+        event.begin();
+        return event;
+    }
+
+    static void endExpression(final Object object, final String kind) {
+        final ExpressionResolved event = (ExpressionResolved) object;
+        event.end();
+        if (event.shouldCommit()) {
+            event.kind = kind;
+            event.commit();
+        }
+    }
+
+    static Object beginSnapshot() {
+        final ConfigSnapshotPublished event = new ConfigSnapshotPublished();
+        if (! event.isEnabled()) {
+            return null;
+        }
+        event.begin();
+        return event;
+    }
+
+    static void endSnapshot(final Object object, final URI uri, final long generation, final ConfigurationSnapshot snapshot) {
+        final ConfigSnapshotPublished event = (ConfigSnapshotPublished) object;
+        event.end();
+        if (event.shouldCommit()) {
+            final EventTape tape = snapshot.getTape();
+            event.uri = String.valueOf(uri);
+            event.generation = generation;
+            event.sources = tape.getSourceCount();
+            event.files = snapshot.getStamps().length;
+            event.commit();
+        }
+    }
+
+    @Name("org.wildfly.client.config.ConfigurationRead")
+    @Label("Configuration Read")
+    @Category(CATEGORY)
+    @Description("A configuration was read, from the call to readConfiguration until the returned reader was closed")
+    static final class ConfigurationRead extends Event {
+        @Label("URI")
+        String uri;
+        @Label("Namespaces")
+        String namespaces;
+        @Label("Bytes")
+        @Description("The bytes parsed from the configuration document, or zero if it was replayed from a snapshot")
+        @DataAmount
+        long bytes;
+        @Label("Failed")
+        @Description("Whether the configuration could not be read")
+        boolean failed;
+    }
+
+    @Name("org.wildfly.client.config.IncludeResolved")
+    @Label("Include Resolved")
+    @Category(CATEGORY)
+    @Description("The target of an XInclude was fetched, or taken from the include cache or the prefetcher")
+    static final class IncludeResolved extends Event {
+        @Label("Href")
+        String href;
+        @Label("Parse Mode")
+        String parse;
+        @Label("Outcome")
+        @Description("One of fetched, refetched (fetched again after prefetching failed), cached, prefetched or failed")
+        String outcome;
+    }
+
+    @Name("org.wildfly.client.config.ExpressionResolved")
+    @Label("Expression Resolved")
+    @Category(CATEGORY)
+    @Description("An attribute value was compiled to an expression, and evaluated if it was read resolved")
+    static final class ExpressionResolved extends Event {
+        @Label("Kind")
+        @Description("One of env, prop, ENC or expression")
+        String kind;
+    }
+
+    @Name("org.wildfly.client.config.ConfigSnapshotPublished")
+    @Label("Configuration Snapshot Published")
+    @Category(CATEGORY)
+    @Description("A configuration snapshot was parsed and published")
+    static final class ConfigSnapshotPublished extends Event {
+        @Label("URI")
+        String uri;
+        @Label("Generation")
+        long generation;
+        @Label("Sources")
+        @Description("The number of documents and text inclusions in the snapshot")
+        int sources;
+        @Label("Files")
+        @Description("The number of local files watched for changes")
+        int files;
+    }
+}
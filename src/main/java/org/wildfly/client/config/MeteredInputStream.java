@@ -0,0 +1,70 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.client.config;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * An input stream which counts the bytes read from its delegate.
+ */
+final class MeteredInputStream extends FilterInputStream {
+    private long count;
+
+    MeteredInputStream(final InputStream in) {
+        super(in);
+    }
+
+    public int read() throws IOException {
+        final int b = in.read();
+        if (b != -1) {
+            count ++;
+        }
+        return b;
+    }
+
+    public int read(final byte[] b, final int off, final int len) throws IOException {
+        final int cnt = in.read(b, off, len);
+        if (cnt > 0) {
+            count += cnt;
+        }
+        return cnt;
+    }
+
+    public long skip(final long n) throws IOException {
+        final long cnt = in.skip(n);
+        if (cnt > 0) {
+            count += cnt;
+        }
+        return cnt;
+    }
+
+    public boolean markSupported() {
+        return false;
+    }
+
+    InputStream getDelegate() {
+        return in;
+    }
+
+    long getCount() {
+        return count;
+    }
+}
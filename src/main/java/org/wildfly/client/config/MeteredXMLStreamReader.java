@@ -0,0 +1,107 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.client.config;
+
+import java.net.URI;
+import java.util.Set;
+
+/**
+ * A reader which reports the time taken to read a configuration, to the registered metrics and as a Flight Recorder
+ * event.  The read ends when the reader reaches the end of the document or of the selected configuration, or fails to
+ * parse it; a reader which is closed before either happens ends the read when it is closed.
+ */
+final class MeteredXMLStreamReader extends AbstractDelegatingXMLStreamReader {
+    private final ConfigurationMetrics metrics;
+    private final Object event;
+    private final URI uri;
+    private final Set<String> namespaces;
+    private final MeteredInputStream source;
+    private final long start;
+    private boolean ended;
+
+    MeteredXMLStreamReader(final ConfigurationXMLStreamReader delegate, final ConfigurationMetrics metrics, final Object event, final URI uri, final Set<String> namespaces, final MeteredInputStream source, final long start) {
+        super(true, delegate);
+        this.metrics = metrics;
+        this.event = event;
+        this.uri = uri;
+        this.namespaces = namespaces;
+        this.source = source;
+        this.start = start;
+    }
+
+    public boolean hasNext() throws ConfigXMLParseException {
+        final boolean hasNext;
+        try {
+            hasNext = super.hasNext();
+        } catch (ConfigXMLParseException e) {
+            endRead(false);
+            throw e;
+        }
+        if (! hasNext) {
+            // the selected configuration has ended, which is the end of the document as far as the caller is concerned
+            endRead(true);
+        }
+        return hasNext;
+    }
+
+    public int next() throws ConfigXMLParseException {
+        final int eventType;
+        try {
+            eventType = super.next();
+        } catch (ConfigXMLParseException e) {
+            endRead(false);
+            throw e;
+        }
+        if (eventType == END_DOCUMENT) {
+            endRead(true);
+        }
+        return eventType;
+    }
+
+    public String getElementText() throws ConfigXMLParseException {
+        try {
+            return super.getElementText();
+        } catch (ConfigXMLParseException e) {
+            endRead(false);
+            throw e;
+        }
+    }
+
+    public void close() throws ConfigXMLParseException {
+        try {
+            super.close();
+        } finally {
+            endRead(true);
+        }
+    }
+
+    private void endRead(boolean ok) {
+        if (ended) {
+            return;
+        }
+        ended = true;
+        final long nanos = System.nanoTime() - start;
+        if (ok) {
+            metrics.configurationRead(uri, nanos);
+        } else {
+            metrics.configurationReadFailed(uri, nanos);
+        }
+        ConfigurationEvents.endRead(event, uri, namespaces, source == null ? 0 : source.getCount(), ! ok);
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.client.config;
+
+import java.io.InputStream;
+
+/**
+ * The holder of the registered {@link ConfigurationMetrics}.  Callers compare the instance against
+ * {@link ConfigurationMetrics#NONE} before taking any measurement, so that no time is read and nothing is counted
+ * while metrics are disabled.
+ */
+final class Metrics {
+    private static volatile ConfigurationMetrics metrics = ConfigurationMetrics.NONE;
+
+    private Metrics() {
+    }
+
+    static void register(ConfigurationMetrics newMetrics) {
+        metrics = newMetrics == null ? ConfigurationMetrics.NONE : newMetrics;
+    }
+
+    static ConfigurationMetrics get() {
+        return metrics;
+    }
+
+    /**
+     * Get the start time of a measurement.
+     *
+     * @param metrics the metrics instance
+     * @return the current time, or 0 if metrics are disabled
+     */
+    static long start(ConfigurationMetrics metrics) {
+        return metrics == ConfigurationMetrics.NONE ? 0 : System.nanoTime();
+    }
+
+    /**
+     * Wrap a source stream so that the bytes read from it are counted, if metrics are enabled.
+     *
+     * @param inputStream the stream
+     * @return the counting stream, or the original stream if metrics are disabled
+     */
+    static InputStream meter(InputStream inputStream) {
+        return metrics == ConfigurationMetrics.NONE ? inputStream : new MeteredInputStream(inputStream);
+    }
+}
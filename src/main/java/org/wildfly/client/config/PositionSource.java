@@ -0,0 +1,54 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.client.config;
+
+/**
+ * A reader which can report the position of its current event without materializing an {@link XMLLocation}.
+ * The full location, including the inclusion chain, is only built when {@link ConfigurationXMLStreamReader#getLocation()}
+ * is called, typically when reporting an error.
+ */
+interface PositionSource {
+
+    /**
+     * Copy the line number, column number, and character offset of the current event into the given array.
+     *
+     * @param dest the destination array
+     * @param offs the offset of the line number in the destination array
+     */
+    void copyPosition(int[] dest, int offs);
+
+    /**
+     * Copy the position of the current event of the given reader into the given array, using the reader's location
+     * if it cannot report its position directly.
+     *
+     * @param reader the reader
+     * @param dest the destination array
+     * @param offs the offset of the line number in the destination array
+     */
+    static void copyPosition(ConfigurationXMLStreamReader reader, int[] dest, int offs) {
+        if (reader instanceof PositionSource) {
+            ((PositionSource) reader).copyPosition(dest, offs);
+        } else {
+            final XMLLocation location = reader.getLocation();
+            dest[offs] = location.getLineNumber();
+            dest[offs + 1] = location.getColumnNumber();
+            dest[offs + 2] = location.getCharacterOffset();
+        }
+    }
+}
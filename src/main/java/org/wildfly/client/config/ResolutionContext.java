@@ -0,0 +1,113 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.client.config;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+import org.wildfly.common.expression.Expression;
+import org.wildfly.common.expression.ResolveContext;
+
+/**
+ * The environment and system properties seen by expressions while reading one configuration.  The environment is
+ * captured when the context is created, and each system property is read at most once, so that every expression
+ * in a single read resolves against the same values.
+ * <p>
+ * A context belongs to one reader chain and is not thread-safe.
+ */
+final class ResolutionContext implements BiConsumer<ResolveContext<RuntimeException>, StringBuilder> {
+    private static final String NO_VALUE = new String();
+
+    private final Map<String, String> environment;
+    private final Map<String, String> properties = new HashMap<>();
+
+    ResolutionContext() {
+        environment = System.getenv();
+    }
+
+    /**
+     * Get the resolution context of the given reader.  Readers which do not carry a context get a new one.
+     *
+     * @param reader the reader
+     * @return the resolution context (not {@code null})
+     */
+    static ResolutionContext of(ConfigurationXMLStreamReader reader) {
+        return reader instanceof Holder ? ((Holder) reader).getResolutionContext() : new ResolutionContext();
+    }
+
+    String getEnvironmentVariable(String name) {
+        return environment.get(name);
+    }
+
+    String getProperty(String name) {
+        final Map<String, String> properties = this.properties;
+        String value = properties.get(name);
+        if (value == null) {
+            value = System.getProperty(name);
+            properties.put(name, value == null ? NO_VALUE : value);
+            return value;
+        }
+        return value == NO_VALUE ? null : value;
+    }
+
+    /**
+     * Evaluate an expression against this context, resolving {@code env.} keys from the environment and all other
+     * keys from the system properties.  Unresolved keys expand to their default value, if any.
+     *
+     * @param expression the expression
+     * @return the evaluated string
+     */
+    String evaluate(Expression expression) {
+        return expression.evaluate(this);
+    }
+
+    public void accept(final ResolveContext<RuntimeException> context, final StringBuilder b) {
+        final String key = context.getKey();
+        final String value = key.startsWith("env.") ? getEnvironmentVariable(key.substring(4)) : getProperty(key);
+        if (value == null) {
+            context.expandDefault();
+        } else {
+            b.append(value);
+        }
+    }
+
+    static String mangle(final String name) {
+        StringBuilder sb = new StringBuilder();
+        int c;
+        for (int i = 0; i < name.length(); i += Character.charCount(c)) {
+            c = Character.toUpperCase(name.codePointAt(i));
+            if ('A' <= c && c <= 'Z' || '0' <= c && c <= '9') {
+                sb.appendCodePoint(c);
+            } else if (c == '{' || c == '}' || c == '$') {
+                //ignore these characters
+            }else {
+                sb.append('_');
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * A reader which carries a resolution context.
+     */
+    interface Holder {
+        ResolutionContext getResolutionContext();
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.client.config;
+
+import static org.wildfly.client.config._private.ConfigMessages.msg;
+
+import java.security.AccessController;
+import java.security.PrivilegedAction;
+import java.util.Iterator;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+
+/**
+ * The holder of the {@link ResolverProvider} used to resolve encrypted expressions.  A provider registered through
+ * {@link ClientConfiguration#registerResolverProvider(ResolverProvider)} takes precedence; otherwise the first
+ * provider found by a service loader over the class loader of this library is used.  The service lookup is performed
+ * at most once, and the loaded provider is shared by every reader.
+ */
+final class ResolverProviders {
+    private static volatile ResolverProvider registered;
+    private static volatile ResolverProvider loaded;
+
+    private ResolverProviders() {
+    }
+
+    static void register(ResolverProvider provider) {
+        registered = provider;
+    }
+
+    /**
+     * Get the resolver provider.
+     *
+     * @return the resolver provider (not {@code null})
+     * @throws ConfigXMLParseException if no provider is registered or available
+     */
+    static ResolverProvider get() throws ConfigXMLParseException {
+        ResolverProvider provider = registered;
+        if (provider != null) {
+            return provider;
+        }
+        provider = loaded;
+        if (provider == null) {
+            synchronized (ResolverProviders.class) {
+                provider = loaded;
+                if (provider == null) {
+                    final SecurityManager sm = System.getSecurityManager();
+                    provider = sm == null ? load() : AccessController.doPrivileged((PrivilegedAction<ResolverProvider>) ResolverProviders::load);
+                    if (provider == null) {
+                        // not cached, so that a failed lookup is reported every time
+                        throw msg.failedToLoadResolver();
+                    }
+                    loaded = provider;
+                }
+            }
+        }
+        return provider;
+    }
+
+    private static ResolverProvider load() {
+        try {
+            final Iterator<ResolverProvider> iterator = ServiceLoader.load(ResolverProvider.class, ResolverProviders.class.getClassLoader()).iterator();
+            return iterator.hasNext() ? iterator.next() : null;
+        } catch (ServiceConfigurationError e) {
+            throw msg.failedToLoadUsingServiceLoader(ResolverProvider.class.getName());
+        }
+    }
+}
@@ -39,6 +39,18 @@ class SelectingXMLStreamReader extends AbstractDelegatingXMLStreamReader {
         this.namespaces = namespaces;
     }
 
+    /**
+     * Construct a new instance which selects the element at which the delegate is currently positioned.
+     *
+     * @param closeDelegate {@code true} to close the delegate when this reader is closed
+     * @param delegate the delegate reader, which must be positioned on a start element
+     */
+    SelectingXMLStreamReader(final boolean closeDelegate, final ConfigurationXMLStreamReader delegate) {
+        super(closeDelegate, delegate);
+        this.namespaces = null;
+        state = ST_FOUND_PRE;
+    }
+
     public boolean hasNext() throws ConfigXMLParseException {
         switch (state) {
             case ST_SEEKING: {
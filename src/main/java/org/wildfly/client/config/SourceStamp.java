@@ -0,0 +1,216 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.client.config;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URLConnection;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The modification time and size of the local file backing a configuration source, used to cheaply determine
+ * whether content read from that source is still current.
+ */
+final class SourceStamp {
+    static final SourceStamp[] NO_STAMPS = new SourceStamp[0];
+
+    private final Path path;
+    private final long lastModified;
+    private final long size;
+
+    SourceStamp(final Path path, final long lastModified, final long size) {
+        this.path = path;
+        this.lastModified = lastModified;
+        this.size = size;
+    }
+
+    /**
+     * Get a stamp for the current state of the file backing the given URI.
+     *
+     * @param uri the source URI
+     * @return the stamp, or {@code null} if the URI is not backed by a local file
+     */
+    static SourceStamp of(URI uri) {
+        final Path path = pathOf(uri);
+        if (path == null) {
+            return null;
+        }
+        return of(path);
+    }
+
+    static SourceStamp of(Path path) {
+        try {
+            final BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            return new SourceStamp(path, attributes.lastModifiedTime().toMillis(), attributes.size());
+        } catch (IOException | SecurityException ignored) {
+            return new SourceStamp(path, -1, -1);
+        }
+    }
+
+    /**
+     * Get the local file backing the given URI.  Files within a {@code jar:} archive are backed by the archive file.
+     *
+     * @param uri the URI
+     * @return the local file path, or {@code null} if the URI is not backed by a local file
+     */
+    static Path pathOf(URI uri) {
+        if (uri == null) {
+            return null;
+        }
+        try {
+            if ("file".equalsIgnoreCase(uri.getScheme())) {
+                return Paths.get(uri);
+            } else if ("jar".equalsIgnoreCase(uri.getScheme())) {
+                final String ssp = uri.getRawSchemeSpecificPart();
+                final int idx = ssp.indexOf("!/");
+                if (idx != -1) {
+                    return pathOf(new URI(ssp.substring(0, idx)));
+                }
+            }
+        } catch (Exception ignored) {
+            // not a usable file URI
+        }
+        return null;
+    }
+
+    /**
+     * Compute a digest of the content of the given URI, if it is backed by a local file.
+     *
+     * @param uri the source URI
+     * @return the digest, or {@code null} if the URI is not backed by a local file
+     * @throws IOException if the content could not be read
+     */
+    static byte[] digestOf(URI uri) throws IOException {
+        final Path path = pathOf(uri);
+        if (path == null) {
+            return null;
+        }
+        final MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        final InputStream is;
+        if ("file".equalsIgnoreCase(uri.getScheme())) {
+            is = Files.newInputStream(path);
+        } else {
+            // bypass the shared JAR file cache, which may hold a stale copy of the archive
+            final URLConnection connection = uri.toURL().openConnection();
+            connection.setUseCaches(false);
+            is = connection.getInputStream();
+        }
+        try (InputStream ignored = is) {
+            final byte[] buf = new byte[8192];
+            int res;
+            while ((res = is.read(buf)) != -1) {
+                digest.update(buf, 0, res);
+            }
+        }
+        return digest.digest();
+    }
+
+    Path getPath() {
+        return path;
+    }
+
+    long getLastModified() {
+        return lastModified;
+    }
+
+    long getSize() {
+        return size;
+    }
+
+    /**
+     * Determine whether the file is unchanged since this stamp was taken.
+     *
+     * @return {@code true} if the file is unchanged, {@code false} if it was modified, removed, or created
+     */
+    boolean isCurrent() {
+        final SourceStamp current = of(path);
+        return current.lastModified == lastModified && current.size == size;
+    }
+
+    /**
+     * The stamps of the local files read while recording a document and its inclusions.  Each file is stamped before
+     * it is first opened, so that a modification made while it is being read leaves the recording stale instead of
+     * current.  Recorders may be shared by threads which fetch inclusions concurrently.
+     */
+    static final class Recorder {
+        private final Map<Path, SourceStamp> stamps = new ConcurrentHashMap<>();
+
+        Recorder() {
+        }
+
+        Recorder(final SourceStamp[] stamps) {
+            add(stamps);
+        }
+
+        /**
+         * Stamp the file backing the given URI, unless it was already stamped.  Must be called before the URI is
+         * opened.
+         *
+         * @param uri the source URI
+         */
+        void stamp(final URI uri) {
+            final Path path = pathOf(uri);
+            if (path != null) {
+                stamps.computeIfAbsent(path, SourceStamp::of);
+            }
+        }
+
+        /**
+         * Add stamps taken earlier, for files which were not already stamped.
+         *
+         * @param stamps the stamps to add
+         */
+        void add(final SourceStamp[] stamps) {
+            for (SourceStamp stamp : stamps) {
+                this.stamps.putIfAbsent(stamp.getPath(), stamp);
+            }
+        }
+
+        SourceStamp[] toArray() {
+            return stamps.isEmpty() ? NO_STAMPS : stamps.values().toArray(NO_STAMPS);
+        }
+
+        /**
+         * Determine whether every recorded file is unchanged since it was stamped.
+         *
+         * @return {@code true} if every file is unchanged, {@code false} otherwise
+         */
+        boolean isCurrent() {
+            for (SourceStamp stamp : stamps.values()) {
+                if (! stamp.isCurrent()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -35,7 +35,7 @@ import javax.xml.namespace.NamespaceContext;
 import javax.xml.namespace.QName;
 import javax.xml.stream.XMLInputFactory;
 
-class TextXMLStreamReader implements ConfigurationXMLStreamReader {
+class TextXMLStreamReader implements ConfigurationXMLStreamReader, PositionSource {
 
     private final String charsetName;
     private final CountingReader reader;
@@ -43,29 +43,56 @@ class TextXMLStreamReader implements ConfigurationXMLStreamReader {
     private final URI uri;
     private final XMLLocation includedFrom;
 
-    private char[] current = new char[512];
+    private static final char[] NO_CHARS = new char[0];
+    private static final int MIN_BUFFER = 512;
+    // the largest single CHARACTERS event; smaller inputs are delivered as one event
+    private static final int COALESCE_LIMIT = Math.max(MIN_BUFFER, Integer.getInteger("wildfly.config.text-include.coalesce-limit", 1 << 20).intValue());
+
+    private char[] current = NO_CHARS;
     private int len;
-    private char[] next = new char[512];
+    private char[] next;
     private int nextLen;
+    // the metered source stream, for metrics
+    private MeteredInputStream metered;
+    private long events;
 
     TextXMLStreamReader(final String charsetName, final InputStream inputStream, final ConfigurationXMLStreamReader parent, final URI uri) throws UnsupportedEncodingException {
-        this(charsetName, new InputStreamReader(inputStream, charsetName), parent, uri);
+        this(charsetName, new InputStreamReader(inputStream, charsetName), parent, uri, sizeHint(inputStream));
+        metered = inputStream instanceof MeteredInputStream ? (MeteredInputStream) inputStream : null;
     }
 
     TextXMLStreamReader(final Charset charset, final InputStream inputStream, final ConfigurationXMLStreamReader parent, final URI uri) {
-        this(charset.name(), new InputStreamReader(inputStream, charset), parent, uri);
+        this(charset.name(), new InputStreamReader(inputStream, charset), parent, uri, sizeHint(inputStream));
+        metered = inputStream instanceof MeteredInputStream ? (MeteredInputStream) inputStream : null;
     }
 
     TextXMLStreamReader(final String charsetName, final Reader reader, final ConfigurationXMLStreamReader parent, final URI uri) {
-        this(charsetName, reader instanceof CountingReader ? (CountingReader) reader : new CountingReader(reader), parent, uri);
+        this(charsetName, reader, parent, uri, -1);
+    }
+
+    TextXMLStreamReader(final String charsetName, final Reader reader, final ConfigurationXMLStreamReader parent, final URI uri, final int sizeHint) {
+        this(charsetName, reader instanceof CountingReader ? (CountingReader) reader : new CountingReader(reader), parent, uri, sizeHint);
     }
 
     TextXMLStreamReader(final String charsetName, final CountingReader reader, final ConfigurationXMLStreamReader parent, final URI uri) {
+        this(charsetName, reader, parent, uri, -1);
+    }
+
+    TextXMLStreamReader(final String charsetName, final CountingReader reader, final ConfigurationXMLStreamReader parent, final URI uri, final int sizeHint) {
         this.charsetName = charsetName;
         this.reader = reader;
         this.parent = parent;
         this.uri = uri;
         includedFrom = this.parent.getLocation();
+        // no charset decodes to more characters than input bytes, so a known length fits the whole text in one event
+        next = new char[sizeHint < 0 ? MIN_BUFFER : (int) Math.max(MIN_BUFFER, Math.min(COALESCE_LIMIT, sizeHint + 1L))];
+    }
+
+    private static int sizeHint(InputStream inputStream) {
+        if (inputStream instanceof MeteredInputStream) {
+            inputStream = ((MeteredInputStream) inputStream).getDelegate();
+        }
+        return inputStream instanceof ByteBufferInputStream ? ((ByteBufferInputStream) inputStream).available() : -1;
     }
 
     public XMLLocation getIncludedFrom() {
@@ -82,6 +109,7 @@ class TextXMLStreamReader implements ConfigurationXMLStreamReader {
         len = nextLen;
         next = old;
         nextLen = 0;
+        events ++;
         return CHARACTERS;
     }
 
@@ -95,21 +123,40 @@ class TextXMLStreamReader implements ConfigurationXMLStreamReader {
 
     public boolean hasNext() throws ConfigXMLParseException {
         if (nextLen == 0) {
-            int res;
+            // coalesce reads until the buffer is full, growing it up to the limit
+            char[] next = this.next;
+            int cnt = 0;
             try {
-                res = reader.read(next);
+                for (;;) {
+                    if (cnt == next.length) {
+                        if (cnt >= COALESCE_LIMIT) {
+                            break;
+                        }
+                        this.next = next = Arrays.copyOf(next, (int) Math.min(COALESCE_LIMIT, Math.max(MIN_BUFFER, (long) cnt << 1)));
+                    }
+                    final int res = reader.read(next, cnt, next.length - cnt);
+                    if (res == -1) {
+                        break;
+                    }
+                    cnt += res;
+                }
             } catch (IOException e) {
                 throw msg.failedToReadInput(getLocation(), e);
             }
-            if (res == -1) {
+            if (cnt == 0) {
                 return false;
             }
-            nextLen = res;
+            nextLen = cnt;
         }
         return true;
     }
 
     public void close() throws ConfigXMLParseException {
+        final MeteredInputStream metered = this.metered;
+        if (metered != null) {
+            this.metered = null;
+            Metrics.get().sourceRead(uri, metered.getCount(), reader.getCharacterOffset(), events);
+        }
         try {
             reader.close();
         } catch (IOException e) {
@@ -183,7 +230,7 @@ class TextXMLStreamReader implements ConfigurationXMLStreamReader {
     }
 
     public char[] getTextCharacters() {
-        return Arrays.copyOf(current, len);
+        return current;
     }
 
     public int getTextCharacters(final int sourceStart, final char[] target, final int targetStart, final int length) {
@@ -210,6 +257,12 @@ class TextXMLStreamReader implements ConfigurationXMLStreamReader {
         return new XMLLocation(includedFrom, uri, reader.getLineNumber(), reader.getColumnNumber(), reader.getCharacterOffset());
     }
 
+    public void copyPosition(final int[] dest, final int offs) {
+        dest[offs] = reader.getLineNumber();
+        dest[offs + 1] = reader.getColumnNumber();
+        dest[offs + 2] = reader.getCharacterOffset();
+    }
+
     public QName getName() {
         throw new IllegalStateException();
     }
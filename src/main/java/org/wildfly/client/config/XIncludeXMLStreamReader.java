@@ -24,13 +24,14 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
-import java.net.URL;
-import java.net.URLConnection;
 import java.nio.charset.Charset;
 import java.nio.charset.IllegalCharsetNameException;
 import java.nio.charset.StandardCharsets;
 import java.nio.charset.UnsupportedCharsetException;
+import java.nio.file.FileSystemNotFoundException;
+import java.nio.file.Paths;
 import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutionException;
 
 import javax.xml.stream.XMLStreamException;
 
@@ -40,10 +41,23 @@ import javax.xml.stream.XMLStreamException;
 final class XIncludeXMLStreamReader extends AbstractDelegatingXMLStreamReader {
 
     static final String XINCLUDE_NS = "http://www.w3.org/2001/XInclude";
+    private final IncludePrefetcher prefetcher;
+    // the stamps of the included local files, or null if they are not needed
+    private final SourceStamp.Recorder stamps;
     private ConfigurationXMLStreamReader child;
 
     XIncludeXMLStreamReader(final ConfigurationXMLStreamReader delegate) {
+        this(delegate, null, null);
+    }
+
+    XIncludeXMLStreamReader(final ConfigurationXMLStreamReader delegate, final IncludePrefetcher prefetcher, final SourceStamp.Recorder stamps) {
         super(true, delegate);
+        this.prefetcher = prefetcher;
+        this.stamps = stamps;
+    }
+
+    static String acceptHeader(final String accept, final boolean parseAsText) {
+        return accept != null ? accept : parseAsText ? "text/plain,text/*" : "application/xml,text/xml,application/*+xml,text/*+xml";
     }
 
     private ConfigurationXMLStreamReader getRawDelegate() {
@@ -55,6 +69,11 @@ final class XIncludeXMLStreamReader extends AbstractDelegatingXMLStreamReader {
         return child != null ? child : getRawDelegate();
     }
 
+    public boolean hasNext() throws ConfigXMLParseException {
+        final ConfigurationXMLStreamReader child = this.child;
+        return child != null && child.hasNext() || getRawDelegate().hasNext();
+    }
+
     public void skipContent() throws ConfigXMLParseException {
         while (getDelegate().hasNext()) {
             switch (getDelegate().next()) {
@@ -76,11 +95,11 @@ final class XIncludeXMLStreamReader extends AbstractDelegatingXMLStreamReader {
                 final int next = child.next();
                 if (next != END_DOCUMENT) {
                     return next;
-                } else {
-                    child.close();
                 }
             }
+            // text inclusions end without an END_DOCUMENT event
             this.child = null;
+            child.close();
         }
         final ConfigurationXMLStreamReader delegate = this.getDelegate();
         if (! delegate.hasNext()) {
@@ -134,6 +153,64 @@ final class XIncludeXMLStreamReader extends AbstractDelegatingXMLStreamReader {
         }
     }
 
+    private ConfigurationXMLStreamReader openInclude(final URI href, final boolean parseAsText, final Charset textCharset, final InputStream rawInputStream, final SourceStamp.Recorder stamps) throws ConfigXMLParseException {
+        final InputStream inputStream = Metrics.meter(rawInputStream);
+        try {
+            if (parseAsText) {
+                return new TextXMLStreamReader(textCharset, inputStream, this, href);
+            } else {
+                return new XIncludeXMLStreamReader(new BasicXMLStreamReader(getLocation(), getXmlInputFactory().createXMLStreamReader(inputStream), href, getXmlInputFactory(), inputStream), null, stamps);
+            }
+        } catch (XMLStreamException e) {
+            try {
+                inputStream.close();
+            } catch (Throwable e1) {
+                e.addSuppressed(e1);
+            }
+            throw ConfigXMLParseException.from(e, getUri(), getIncludedFrom());
+        } catch (Throwable t) {
+            try {
+                inputStream.close();
+            } catch (Throwable e1) {
+                t.addSuppressed(e1);
+            }
+            throw t;
+        }
+    }
+
+    /**
+     * Determine whether the given document is the current document or one of the documents which include it.
+     */
+    private boolean isIncluding(final URI href) {
+        final ConfigurationXMLStreamReader delegate = getRawDelegate();
+        if (sameDocument(href, delegate.getUri())) {
+            return true;
+        }
+        for (XMLLocation location = delegate.getIncludedFrom(); location != null; location = location.getIncludedFrom()) {
+            if (sameDocument(href, location.getUri())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean sameDocument(final URI uri, final URI other) {
+        if (other == null) {
+            return false;
+        } else if (uri.equals(other)) {
+            return true;
+        } else if ("file".equals(uri.getScheme()) && "file".equals(other.getScheme())) {
+            // "file:/a" and "file:///a" are the same file
+            try {
+                return Paths.get(uri).equals(Paths.get(other));
+            } catch (IllegalArgumentException | FileSystemNotFoundException e) {
+                return false;
+            }
+        } else {
+            return uri.normalize().equals(other.normalize());
+        }
+    }
+
     private ConfigurationXMLStreamReader processInclude() throws ConfigXMLParseException {
         // save this for later
         final ScopedXMLStreamReader includeElement = new ScopedXMLStreamReader(false, getRawDelegate());
@@ -199,41 +276,74 @@ final class XIncludeXMLStreamReader extends AbstractDelegatingXMLStreamReader {
             if (href == null) {
                 throw delegate.missingRequiredAttribute(null, "href");
             }
-            final URL url;
-            final InputStream inputStream;
-            ConfigurationXMLStreamReader child;
+            if (! href.isAbsolute()) {
+                href = getRawDelegate().getUri().resolve(href);
+            }
+            if (! parseAsText && isIncluding(href)) {
+                throw msg.recursiveInclude(href, getLocation());
+            }
+            final String acceptHeader = acceptHeader(accept, parseAsText);
+            final ConfigurationMetrics metrics = Metrics.get();
+            final long start = Metrics.start(metrics);
+            final Object event = ConfigurationEvents.beginInclude();
+            String outcome = "failed";
+            ConfigurationXMLStreamReader child = null;
+            Throwable prefetchFailure = null;
             try {
-                if (! href.isAbsolute()) {
-                    href = getRawDelegate().getUri().resolve(href);
+                final IncludeCache.Key key = IncludeCache.key(href, parseAsText, textCharset, acceptHeader, acceptLanguage);
+                EventTape prefetched = null;
+                if (prefetcher != null) try {
+                    prefetched = prefetcher.take(key != null ? key : new IncludeCache.Key(href, parseAsText ? textCharset.name() : null, acceptHeader, acceptLanguage));
+                } catch (ExecutionException e) {
+                    // try again here, so that the problem is reported with the correct location
+                    prefetchFailure = e.getCause();
                 }
-                url = href.toURL();
-                final URLConnection connection = url.openConnection();
-                connection.addRequestProperty("Accept", accept != null ? accept : parseAsText ? "text/plain,text/*" : "application/xml,text/xml,application/*+xml,text/*+xml");
-                if (acceptLanguage != null) connection.addRequestProperty("Accept-Language", acceptLanguage);
-                inputStream = connection.getInputStream();
-                try {
-                    if (parseAsText) {
-                        child = new TextXMLStreamReader(textCharset, inputStream, this, href);
-                    } else {
-                        child = new XIncludeXMLStreamReader(new BasicXMLStreamReader(getLocation(), getXmlInputFactory().createXMLStreamReader(inputStream), href, getXmlInputFactory(), inputStream));
-                    }
-                } catch (XMLStreamException e) {
+                if (prefetched != null) {
+                    // prefetched documents are recorded with their own inclusions unprocessed
+                    child = parseAsText ? prefetched.newReader(getLocation(), getXmlInputFactory()) : new XIncludeXMLStreamReader(prefetched.newReader(getLocation(), getXmlInputFactory()), prefetcher, stamps);
+                    outcome = "prefetched";
+                } else {
+                    final IncludeCache.Source source;
                     try {
-                        inputStream.close();
-                    } catch (Throwable e1) {
-                        e.addSuppressed(e1);
+                        source = IncludeCache.open(key, href, acceptHeader, acceptLanguage);
+                    } catch (IOException e) {
+                        throw ConfigXMLParseException.from(e, getUri(), getIncludedFrom());
                     }
-                    throw ConfigXMLParseException.from(e, getUri(), getIncludedFrom());
-                } catch (Throwable t) {
-                    try {
-                        inputStream.close();
-                    } catch (Throwable e1) {
-                        t.addSuppressed(e1);
+                    EventTape tape = source.getTape();
+                    if (tape != null) {
+                        if (stamps != null) stamps.add(source.getStamps());
+                        child = tape.newReader(getLocation(), getXmlInputFactory());
+                        outcome = "cached";
+                    } else if (source.isCacheable()) {
+                        // the cached tape is validated by the stamps of the include and of its own inclusions
+                        final SourceStamp.Recorder includeStamps = new SourceStamp.Recorder(source.getStamps());
+                        try (ConfigurationXMLStreamReader reader = openInclude(href, parseAsText, textCharset, source.getInputStream(), includeStamps)) {
+                            tape = EventTape.record(reader);
+                        }
+                        final SourceStamp[] recorded = includeStamps.toArray();
+                        IncludeCache.put(key, tape, recorded, source.getValidator());
+                        if (stamps != null) stamps.add(recorded);
+                        child = tape.newReader(getLocation(), getXmlInputFactory());
+                        outcome = "fetched";
+                    } else {
+                        if (stamps != null) stamps.add(source.getStamps());
+                        child = openInclude(href, parseAsText, textCharset, source.getInputStream(), stamps);
+                        outcome = "fetched";
                     }
-                    throw t;
+                    if (prefetchFailure != null) {
+                        outcome = "refetched";
+                    }
+                }
+            } catch (Throwable t) {
+                if (prefetchFailure != null && prefetchFailure != t) {
+                    t.addSuppressed(prefetchFailure);
                 }
-            } catch (IOException e) {
-                throw ConfigXMLParseException.from(e, getUri(), getIncludedFrom());
+                throw t;
+            } finally {
+                ConfigurationEvents.endInclude(event, href, parseAsText, outcome);
+            }
+            if (metrics != ConfigurationMetrics.NONE) {
+                metrics.includeFetched(href, System.nanoTime() - start);
             }
             try {
                 // consume remaining content
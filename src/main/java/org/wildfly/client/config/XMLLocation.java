@@ -261,7 +261,7 @@ public final class XMLLocation implements Location, Comparable<XMLLocation> {
     }
 
     private static boolean equals(Object a, Object b) {
-        return a == b || a == null ? b == null : a.equals(b);
+        return a == b || (a == null ? b == null : a.equals(b));
     }
 
     /**
@@ -22,6 +22,7 @@ import static java.lang.invoke.MethodHandles.*;
 
 import java.io.IOException;
 import java.net.MalformedURLException;
+import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.ServiceConfigurationError;
 
@@ -124,4 +125,55 @@ public interface ConfigMessages {
 
     @Message(id = 26, value = "Failed to load the \"%s\" class using a service loader.")
     ServiceConfigurationError failedToLoadUsingServiceLoader(String className);
+
+    @Message(id = 27, value = "Invalid or unsupported compiled configuration format")
+    IOException invalidCompiledConfiguration();
+
+    @Message(id = 28, value = "Usage: %s <configuration file or URI> [<output file>]")
+    String compilerUsage(String className);
+
+    @Message(id = 29, value = "Failed to create XML input factory of class \"%s\"")
+    IllegalArgumentException failedToCreateXmlInputFactory(String className, @Cause Throwable cause);
+
+    @Message(id = 30, value = "Malformed XML: %s")
+    ConfigXMLParseException malformedXml(String detail, @Param(Location.class) XMLLocation location);
+
+    @Message(id = 31, value = "End element \"%s\" does not match start element \"%s\"")
+    ConfigXMLParseException mismatchedEndElement(String endName, String startName, @Param(Location.class) XMLLocation location);
+
+    @Message(id = 32, value = "Undeclared namespace prefix \"%s\"")
+    ConfigXMLParseException undeclaredPrefix(String prefix, @Param(Location.class) XMLLocation location);
+
+    @Message(id = 33, value = "Undeclared entity \"%s\"")
+    ConfigXMLParseException undeclaredEntity(String name, @Param(Location.class) XMLLocation location);
+
+    @Message(id = 34, value = "Duplicate attribute \"%s\"")
+    ConfigXMLParseException duplicateAttribute(String name, @Param(Location.class) XMLLocation location);
+
+    @Message(id = 35, value = "Document type declarations are not supported")
+    ConfigXMLParseException dtdNotSupported(@Param(Location.class) XMLLocation location);
+
+    @Message(id = 36, value = "Unsupported document encoding \"%s\"")
+    ConfigXMLParseException unsupportedEncoding(String encoding, @Param(Location.class) XMLLocation location);
+
+    @Message(id = 37, value = "Malformed input for document encoding \"%s\"")
+    ConfigXMLParseException malformedInput(String encoding, @Param(Location.class) XMLLocation location);
+
+    @Message(id = 38, value = "Content is not allowed outside of the root element")
+    ConfigXMLParseException contentOutsideRoot(@Param(Location.class) XMLLocation location);
+
+    @Message(id = 39, value = "The configuration feed has already ended")
+    IllegalStateException feedEnded();
+
+    @Message(id = 40, value = "Recursive inclusion of \"%s\"")
+    ConfigXMLParseException recursiveInclude(URI href, @Param(Location.class) XMLLocation location);
+
+    @Message(id = 41, value = "Configuration \"%s\" or one of its inclusions was modified while it was being compiled")
+    IOException sourceModifiedWhileCompiling(URI uri);
+
+    @Message(id = 42, value = "Document exceeds the %s limit of %d")
+    ConfigXMLParseException limitExceeded(String limit, int value, @Param(Location.class) XMLLocation location);
+
+    @Message(id = 43, value = "File \"%s\" is too large to be read")
+    IOException fileTooLarge(URI uri);
 }
@@ -0,0 +1,114 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.client.config;
+
+import static javax.xml.stream.XMLStreamConstants.START_ELEMENT;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.Test;
+
+/**
+ * Tests for the Flight Recorder events emitted while reading configurations.
+ */
+public final class TestConfigurationEvents {
+
+    private static List<RecordedEvent> events(List<RecordedEvent> all, String name) {
+        return all.stream().filter(e -> e.getEventType().getName().equals("org.wildfly.client.config." + name)).collect(Collectors.toList());
+    }
+
+    @Test
+    public void testEvents() throws Exception {
+        final Path dir = Files.createTempDirectory("wildfly-config");
+        final Path main = dir.resolve("main.xml");
+        final Path text = dir.resolve("value.txt");
+        final Path broken = dir.resolve("broken.xml");
+        final Path dump = dir.resolve("events.jfr");
+        try {
+            final String document = "<configuration xmlns:xi=\"http://www.w3.org/2001/XInclude\"><e xmlns=\"urn:e\" a=\"${events.test:x}\"><xi:include href=\"value.txt\" parse=\"text\"/></e></configuration>";
+            Files.write(main, document.getBytes(StandardCharsets.UTF_8));
+            Files.write(text, "value".getBytes(StandardCharsets.UTF_8));
+            Files.write(broken, "<configuration".getBytes(StandardCharsets.UTF_8));
+            // events are not created while no recording is running
+            assertEquals(null, ConfigurationEvents.beginRead());
+            final List<RecordedEvent> all;
+            try (Recording recording = new Recording()) {
+                for (String name : new String[] { "ConfigurationRead", "IncludeResolved", "ExpressionResolved", "ConfigSnapshotPublished" }) {
+                    recording.enable("org.wildfly.client.config." + name).withThreshold(Duration.ZERO);
+                }
+                recording.start();
+                final ClientConfiguration configuration = ClientConfiguration.getInstance(main.toUri());
+                try (ConfigurationXMLStreamReader reader = configuration.readConfiguration(Collections.singleton("urn:e"))) {
+                    assertEquals(START_ELEMENT, reader.nextTag());
+                    assertEquals("x", reader.getAttributeValueResolved(0));
+                }
+                try (ConfigurationXMLStreamReader reader = configuration.snapshot().readConfiguration(Collections.singleton("urn:e"))) {
+                    assertEquals(START_ELEMENT, reader.nextTag());
+                }
+                try {
+                    ClientConfiguration.getInstance(broken.toUri()).readConfiguration(Collections.singleton("urn:e"));
+                    fail("Expected exception");
+                } catch (ConfigXMLParseException expected) {
+                }
+                recording.stop();
+                recording.dump(dump);
+                all = RecordingFile.readAllEvents(dump);
+            }
+            final List<RecordedEvent> reads = events(all, "ConfigurationRead");
+            assertEquals(3, reads.size());
+            assertEquals(main.toUri().toString(), reads.get(0).getString("uri"));
+            assertEquals("urn:e", reads.get(0).getString("namespaces"));
+            assertTrue(reads.get(0).getLong("bytes") > 0);
+            assertEquals(0, reads.get(1).getLong("bytes"));
+            assertFalse(reads.get(1).getBoolean("failed"));
+            assertEquals(broken.toUri().toString(), reads.get(2).getString("uri"));
+            assertTrue(reads.get(2).getBoolean("failed"));
+            final List<RecordedEvent> includes = events(all, "IncludeResolved");
+            assertTrue(includes.size() >= 1);
+            assertTrue(includes.get(0).getString("href").endsWith("/value.txt"));
+            assertEquals("text", includes.get(0).getString("parse"));
+            final List<RecordedEvent> expressions = events(all, "ExpressionResolved");
+            assertEquals(1, expressions.size());
+            assertEquals("expression", expressions.get(0).getString("kind"));
+            final List<RecordedEvent> snapshots = events(all, "ConfigSnapshotPublished");
+            assertEquals(1, snapshots.size());
+            assertEquals(1, snapshots.get(0).getLong("generation"));
+            assertEquals(2, snapshots.get(0).getInt("sources"));
+        } finally {
+            Files.deleteIfExists(dump);
+            Files.deleteIfExists(broken);
+            Files.deleteIfExists(main);
+            Files.deleteIfExists(text);
+            Files.deleteIfExists(dir);
+        }
+    }
+}
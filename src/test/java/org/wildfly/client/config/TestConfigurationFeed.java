@@ -0,0 +1,506 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.client.config;
+
+import static javax.xml.stream.XMLStreamConstants.CHARACTERS;
+import static javax.xml.stream.XMLStreamConstants.COMMENT;
+import static javax.xml.stream.XMLStreamConstants.END_ELEMENT;
+import static javax.xml.stream.XMLStreamConstants.PROCESSING_INSTRUCTION;
+import static javax.xml.stream.XMLStreamConstants.START_DOCUMENT;
+import static javax.xml.stream.XMLStreamConstants.START_ELEMENT;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.stream.XMLInputFactory;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.Test;
+
+/**
+ * Tests for parsing configuration documents from a feed of byte buffers.
+ */
+public final class TestConfigurationFeed {
+
+    private static final String[] RESOURCES = {
+        "/empty-config.xml",
+        "/first-element-config.xml",
+        "/second-element-config.xml",
+        "/xinclude-config.xml",
+        "/xinclude-xml-config.xml",
+        "/tape-config.xml",
+    };
+
+    // documents which exercise line ends, names and references
+    private static final String[] DOCUMENTS = {
+        "<configuration>\r<e/>\r\n<f/>\r\r<g a='x\ry'/>\n\r<h/></configuration>",
+        "<configuration>\r\n  <e/>\r  <f>ab\rcd</f>\r<!-- c\r\r -->\r<?p d\r?>\r<![CDATA[\r]]>\r</configuration>\r",
+        "<configuration>\n\n\r</configuration>",
+        "<?xml version='1.0'?>\r<configuration\r\ra='1'\r/>\r",
+        "<configuration xmlns:a='urn:a'><a:\u00e9t\u00e9 a:b-c.d='&#x1F600;'/><e\u00b7x _1='&#13;'/>]]</configuration>",
+    };
+
+    // documents which are not well-formed
+    private static final String[] MALFORMED = {
+        "<configuration>a]]>b</configuration>",
+        "<configuration><a&b/></configuration>",
+        "<configuration><1a/></configuration>",
+        "<configuration><e 1a='x'/></configuration>",
+        "<configuration><a:b:c xmlns:a='urn:a'/></configuration>",
+        "<configuration><e: xmlns:e='urn:e'/></configuration>",
+        "<configuration><e></e:></configuration>",
+        "<configuration><?1a?></configuration>",
+        "<configuration><!-- a -- b --></configuration>",
+        "<configuration><!-- a ---></configuration>",
+        "<configuration xmlns:a='urn:a' xmlns:a='urn:b'/>",
+        "<configuration xmlns='urn:a' xmlns='urn:b'/>",
+        "<configuration xmlns:xmlns='urn:x'/>",
+        "<configuration xmlns:xml='urn:x'/>",
+        "<configuration xmlns:a='http://www.w3.org/XML/1998/namespace'/>",
+        "<configuration>\u0001</configuration>",
+        "<configuration a='&#1;'/>",
+        "<configuration a='&#+65;'/>",
+        "<configuration>&#x+41;</configuration>",
+        "<configuration>&#-65;</configuration>",
+        "<configuration>&#\u0661;</configuration>",
+    };
+
+    @Test
+    public void testFeedMatchesParse() throws Exception {
+        final XMLInputFactory xmlInputFactory = TestEventTape.createXmlInputFactory();
+        for (String resource : RESOURCES) {
+            final URI uri = TestConfigurationFeed.class.getResource(resource).toURI();
+            final byte[] bytes;
+            try (InputStream is = TestConfigurationFeed.class.getResourceAsStream(resource)) {
+                bytes = is.readAllBytes();
+            }
+            final List<String> expected;
+            try (ConfigurationXMLStreamReader reader = TestEventTape.open(resource, xmlInputFactory)) {
+                expected = events(reader);
+            }
+            assertFeedMatches(resource, uri, bytes, expected);
+        }
+        final Path file = Files.createTempFile("wildfly-config", ".xml");
+        try {
+            for (String document : DOCUMENTS) {
+                final byte[] bytes = document.getBytes(StandardCharsets.UTF_8);
+                Files.write(file, bytes);
+                final List<String> expected;
+                try (ConfigurationXMLStreamReader reader = ClientConfiguration.openUri(file.toUri(), xmlInputFactory)) {
+                    expected = events(reader);
+                }
+                assertFeedMatches(document, file.toUri(), bytes, expected);
+            }
+            for (String document : MALFORMED) {
+                final byte[] bytes = document.getBytes(StandardCharsets.UTF_8);
+                Files.write(file, bytes);
+                try (ConfigurationXMLStreamReader reader = ClientConfiguration.openUri(file.toUri(), xmlInputFactory)) {
+                    events(reader);
+                    fail("Expected exception from the parser for " + document);
+                } catch (ConfigXMLParseException expected) {
+                }
+                for (int chunk : new int[] { 1, 4096 }) {
+                    final ConfigurationFeed feed = new ConfigurationFeed(file.toUri(), Runnable::run);
+                    try {
+                        for (int i = 0; i < bytes.length; i += chunk) {
+                            feed.feed(ByteBuffer.wrap(bytes, i, Math.min(chunk, bytes.length - i)));
+                        }
+                        feed.end();
+                        fail("Expected exception from the feed for " + document + " in chunks of " + chunk);
+                    } catch (ConfigXMLParseException expected) {
+                    }
+                }
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static void assertFeedMatches(String description, URI uri, byte[] bytes, List<String> expected) throws Exception {
+        for (int chunk : new int[] { 1, 7, 4096 }) {
+            final ConfigurationFeed feed = new ConfigurationFeed(uri, Runnable::run);
+            for (int i = 0; i < bytes.length; i += chunk) {
+                feed.feed(ByteBuffer.wrap(bytes, i, Math.min(chunk, bytes.length - i)));
+            }
+            final ClientConfiguration configuration = feed.end();
+            assertTrue(configuration.isSnapshot());
+            assertEquals(feed.getResult().get(), configuration);
+            try (ConfigurationXMLStreamReader reader = configuration.getSnapshot().newReader()) {
+                assertEquals(description + " in chunks of " + chunk, expected, events(reader));
+            }
+        }
+    }
+
+    @Test
+    public void testIncremental() throws Exception {
+        final byte[] bytes = ("<?xml version='1.0'?>\r\n<configuration xmlns='urn:config-urn'>\r\n"
+            + "  <e a='1 &amp; 2' b=\"&#x41;&#66;\"/>\r\n  <f>x &lt; y<![CDATA[<z>]]></f>\r\n</configuration>\r\n").getBytes(StandardCharsets.UTF_8);
+        final ConfigurationFeed feed = new ConfigurationFeed(URI.create("urn:test"), Runnable::run);
+        feed.feed(ByteBuffer.wrap(bytes, 0, bytes.length / 2));
+        assertTrue(feed.getEventCount() > 0);
+        assertFalse(feed.getResult().isDone());
+        feed.feed(ByteBuffer.wrap(bytes, bytes.length / 2, bytes.length - bytes.length / 2));
+        try (ConfigurationXMLStreamReader reader = feed.end().getSnapshot().newReader()) {
+            assertEquals(START_ELEMENT, reader.nextTag());
+            assertEquals("urn:config-urn", reader.getNamespaceURI());
+            assertEquals(START_ELEMENT, reader.nextTag());
+            assertEquals("e", reader.getLocalName());
+            assertEquals("1 & 2", reader.getAttributeValue(0));
+            assertEquals("AB", reader.getAttributeValue(1));
+            assertEquals(3, reader.getLocation().getLineNumber());
+            assertEquals(END_ELEMENT, reader.nextTag());
+            assertEquals(START_ELEMENT, reader.nextTag());
+            final StringBuilder b = new StringBuilder();
+            while (reader.next() == CHARACTERS) {
+                b.append(reader.getText());
+            }
+            assertEquals("x < y<z>", b.toString());
+        }
+    }
+
+    @Test
+    public void testMalformed() throws Exception {
+        final String[] documents = {
+            "<configuration></config>",
+            "<configuration>&nbsp;</configuration>",
+            "<!DOCTYPE configuration><configuration/>",
+            "<configuration a='1' a='2'/>",
+            "<configuration><p:e/></configuration>",
+            "<configuration/>text",
+            "<configuration>",
+        };
+        for (String document : documents) {
+            final ConfigurationFeed feed = new ConfigurationFeed(URI.create("urn:test"), Runnable::run);
+            try {
+                feed.feed(ByteBuffer.wrap(document.getBytes(StandardCharsets.UTF_8)));
+                feed.end();
+                fail("Expected exception for " + document);
+            } catch (ConfigXMLParseException expected) {
+            }
+            try {
+                feed.getResult().get();
+                fail("Expected exception for " + document);
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof ConfigXMLParseException);
+            }
+        }
+    }
+
+    @Test
+    public void testInvalidCharacterLocation() throws Exception {
+        final String[] documents = {
+            "<configuration>ab\u0001</configuration>",
+            "<configuration>\n  ab\u0001cd</configuration>",
+            "<configuration>\n<e a='x\u0001'/></configuration>",
+            "<configuration>\n<!-- x\u0001 --></configuration>",
+        };
+        final XMLInputFactory xmlInputFactory = TestEventTape.createXmlInputFactory();
+        final Path file = Files.createTempFile("wildfly-config", ".xml");
+        try {
+            for (String document : documents) {
+                final byte[] bytes = document.getBytes(StandardCharsets.UTF_8);
+                Files.write(file, bytes);
+                XMLLocation expected = null;
+                try (ConfigurationXMLStreamReader reader = ClientConfiguration.openUri(file.toUri(), xmlInputFactory)) {
+                    events(reader);
+                    fail("Expected exception from the parser for " + document);
+                } catch (ConfigXMLParseException e) {
+                    expected = e.getLocation();
+                }
+                for (int chunk : new int[] { 1, 4096 }) {
+                    final ConfigurationFeed feed = new ConfigurationFeed(file.toUri(), Runnable::run);
+                    try {
+                        for (int i = 0; i < bytes.length; i += chunk) {
+                            feed.feed(ByteBuffer.wrap(bytes, i, Math.min(chunk, bytes.length - i)));
+                        }
+                        feed.end();
+                        fail("Expected exception from the feed for " + document);
+                    } catch (ConfigXMLParseException e) {
+                        assertEquals(document, expected.getLineNumber(), e.getLocation().getLineNumber());
+                        assertEquals(document, expected.getColumnNumber(), e.getLocation().getColumnNumber());
+                    }
+                }
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void testLimits() throws Exception {
+        final StringBuilder b = new StringBuilder();
+        // element depth
+        b.append("<configuration>");
+        for (int i = 0; i < 1024; i ++) b.append("<e>");
+        final String deep = b.toString();
+        // attribute count
+        b.setLength(0);
+        b.append("<configuration");
+        for (int i = 0; i <= 10000; i ++) b.append(" a").append(i).append("='x'");
+        b.append("/>");
+        final String attributes = b.toString();
+        // name length
+        b.setLength(0);
+        b.append("<configuration><");
+        for (int i = 0; i <= 1000; i ++) b.append('e');
+        b.append("/></configuration>");
+        final String name = b.toString();
+        // token size
+        b.setLength(0);
+        b.append("<configuration><!--");
+        for (int i = 0; i <= 1 << 22; i ++) b.append('x');
+        b.append("--></configuration>");
+        final String token = b.toString();
+        for (String document : new String[] { deep, attributes, name, token }) {
+            final byte[] bytes = document.getBytes(StandardCharsets.UTF_8);
+            final ConfigurationFeed feed = new ConfigurationFeed(URI.create("urn:test"), Runnable::run);
+            try {
+                for (int i = 0; i < bytes.length; i += 65536) {
+                    feed.feed(ByteBuffer.wrap(bytes, i, Math.min(65536, bytes.length - i)));
+                }
+                feed.end();
+                fail("Expected exception for " + document.substring(0, 40));
+            } catch (ConfigXMLParseException expected) {
+                assertTrue(expected.getMessage(), expected.getMessage().contains("limit"));
+            }
+        }
+    }
+
+    @Test
+    public void testPublisher() throws Exception {
+        final URI uri = TestConfigurationFeed.class.getResource("/tape-config.xml").toURI();
+        final byte[] bytes;
+        try (InputStream is = TestConfigurationFeed.class.getResourceAsStream("/tape-config.xml")) {
+            bytes = is.readAllBytes();
+        }
+        final List<String> expected;
+        try (ConfigurationXMLStreamReader reader = TestEventTape.open("/tape-config.xml", TestEventTape.createXmlInputFactory())) {
+            expected = events(reader);
+        }
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            final ConfigurationFeed feed = new ConfigurationFeed(uri, executor);
+            try (SubmissionPublisher<List<ByteBuffer>> publisher = new SubmissionPublisher<>(executor, 4)) {
+                publisher.subscribe(feed);
+                // deliver the document in small chunks, as a network transfer would
+                for (int i = 0; i < bytes.length; i += 64) {
+                    publisher.submit(List.of(ByteBuffer.wrap(bytes, i, Math.min(64, bytes.length - i))));
+                }
+            }
+            final ClientConfiguration configuration = feed.getResult().get(30, TimeUnit.SECONDS);
+            try (ConfigurationXMLStreamReader reader = configuration.getSnapshot().newReader()) {
+                final List<String> actual = events(reader);
+                assertEquals(expected, actual);
+                assertTrue(actual.stream().anyMatch(e -> e.startsWith("START_ELEMENT hello {urn:config-urn}")));
+            }
+            // a malformed document cancels the subscription and fails the result
+            final ConfigurationFeed failing = new ConfigurationFeed(uri, executor);
+            try (SubmissionPublisher<List<ByteBuffer>> publisher = new SubmissionPublisher<>(executor, 4)) {
+                publisher.subscribe(failing);
+                publisher.submit(List.of(ByteBuffer.wrap("<configuration></config>".getBytes(StandardCharsets.UTF_8))));
+            }
+            try {
+                failing.getResult().get(30, TimeUnit.SECONDS);
+                fail("Expected exception");
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof ConfigXMLParseException);
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testUnexpectedFailure() throws Exception {
+        final byte[] bytes = "<configuration xmlns:xi='http://www.w3.org/2001/XInclude'><xi:include href='other.xml'/></configuration>".getBytes(StandardCharsets.UTF_8);
+        final IllegalStateException failure = new IllegalStateException("simulated failure");
+        ClientConfiguration.registerMetrics(new ConfigurationMetrics() {
+            public void sourceRead(final URI uri, final long bytes, final long characters, final long events) {
+                throw failure;
+            }
+        });
+        try {
+            // the inclusions are resolved by a task on the executor
+            final ExecutorService executor = Executors.newSingleThreadExecutor();
+            try {
+                assertFailure(failure, complete(new ConfigurationFeed(URI.create("urn:test"), executor), bytes));
+            } finally {
+                executor.shutdown();
+            }
+            final IllegalStateException rejected = new IllegalStateException("no executor");
+            assertFailure(rejected, complete(new ConfigurationFeed(URI.create("urn:test"), task -> {
+                throw rejected;
+            }), bytes));
+        } finally {
+            ClientConfiguration.registerMetrics(null);
+        }
+    }
+
+    private static ConfigurationFeed complete(ConfigurationFeed feed, byte[] bytes) {
+        feed.onSubscribe(new Flow.Subscription() {
+            public void request(final long n) {
+            }
+
+            public void cancel() {
+            }
+        });
+        feed.onNext(List.of(ByteBuffer.wrap(bytes)));
+        feed.onComplete();
+        return feed;
+    }
+
+    private static void assertFailure(Throwable expected, ConfigurationFeed feed) throws Exception {
+        try {
+            feed.getResult().get(30, TimeUnit.SECONDS);
+            fail("Expected exception");
+        } catch (ExecutionException e) {
+            assertSame(expected, e.getCause());
+        }
+    }
+
+    @Test
+    public void testHttp() throws Exception {
+        final HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", exchange -> {
+            try (InputStream is = TestConfigurationFeed.class.getResourceAsStream(exchange.getRequestURI().getPath())) {
+                if (is == null) {
+                    exchange.sendResponseHeaders(404, -1);
+                    return;
+                }
+                // send the content with chunked encoding, in small pieces
+                exchange.sendResponseHeaders(200, 0);
+                try (OutputStream os = exchange.getResponseBody()) {
+                    final byte[] bytes = is.readAllBytes();
+                    for (int i = 0; i < bytes.length; i += 64) {
+                        os.write(bytes, i, Math.min(64, bytes.length - i));
+                        os.flush();
+                    }
+                }
+            } finally {
+                exchange.close();
+            }
+        });
+        final ExecutorService executor = Executors.newCachedThreadPool();
+        server.setExecutor(executor);
+        server.start();
+        try {
+            final InetSocketAddress address = server.getAddress();
+            final URI uri = new URI("http", null, address.getHostString(), address.getPort(), "/tape-config.xml", null, null);
+            final ConfigurationFeed feed = new ConfigurationFeed(uri, executor);
+            final HttpClient client = HttpClient.newBuilder().executor(executor).build();
+            client.sendAsync(HttpRequest.newBuilder(uri).build(), HttpResponse.BodyHandlers.fromSubscriber(feed));
+            final ClientConfiguration configuration = feed.getResult().get(30, TimeUnit.SECONDS);
+            final List<String> expected;
+            try (ConfigurationXMLStreamReader reader = TestEventTape.open("/tape-config.xml", TestEventTape.createXmlInputFactory())) {
+                expected = events(reader);
+            }
+            try (ConfigurationXMLStreamReader reader = configuration.getSnapshot().newReader()) {
+                // the inclusions were fetched from the server as well
+                assertEquals(expected, events(reader));
+            }
+        } finally {
+            server.stop(0);
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Describe the events of a reader and their locations, merging adjacent character events, since parsers may split
+     * text differently; for the same reason, the locations of character events are not compared.
+     */
+    private static List<String> events(ConfigurationXMLStreamReader reader) throws Exception {
+        final List<String> events = new ArrayList<>();
+        final StringBuilder text = new StringBuilder();
+        int event = reader.getEventType();
+        assertEquals(START_DOCUMENT, event);
+        events.add("START_DOCUMENT " + reader.getVersion() + " " + reader.getCharacterEncodingScheme() + location(reader));
+        while (reader.hasNext()) {
+            event = reader.next();
+            if (event == CHARACTERS) {
+                text.append(reader.getText());
+                continue;
+            }
+            if (text.length() > 0) {
+                events.add("CHARACTERS " + text);
+                text.setLength(0);
+            }
+            switch (event) {
+                case START_ELEMENT: {
+                    final StringBuilder b = new StringBuilder("START_ELEMENT ").append(reader.getName().getLocalPart());
+                    b.append(" {").append(reader.getNamespaceURI()).append('}').append(reader.getPrefix());
+                    for (int i = 0; i < reader.getNamespaceCount(); i ++) {
+                        b.append(" xmlns:").append(reader.getNamespacePrefix(i)).append('=').append(reader.getNamespaceURI(i));
+                    }
+                    for (int i = 0; i < reader.getAttributeCount(); i ++) {
+                        b.append(' ').append(reader.getAttributeName(i)).append('=').append(reader.getAttributeValue(i)).append(' ').append(reader.getAttributeType(i));
+                    }
+                    events.add(b.append(location(reader)).toString());
+                    break;
+                }
+                case END_ELEMENT: {
+                    events.add("END_ELEMENT " + reader.getName() + location(reader));
+                    break;
+                }
+                case COMMENT: {
+                    events.add("COMMENT " + reader.getText() + location(reader));
+                    break;
+                }
+                case PROCESSING_INSTRUCTION: {
+                    events.add("PROCESSING_INSTRUCTION " + reader.getPITarget() + " " + reader.getPIData() + location(reader));
+                    break;
+                }
+                default: {
+                    events.add(event + location(reader));
+                    break;
+                }
+            }
+        }
+        return events;
+    }
+
+    private static String location(ConfigurationXMLStreamReader reader) {
+        final XMLLocation location = reader.getLocation();
+        assertNotNull(location);
+        return " @" + location.getLineNumber() + ":" + location.getColumnNumber();
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.client.config;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.StringReader;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests for the position counting of text inclusions.
+ */
+public final class TestCountingReader {
+
+    @Test
+    public void testBulkMatchesPerCharacter() throws Exception {
+        final Random random = new Random(1234);
+        final char[] alphabet = { 'a', 'b', ' ', '\n', '\r', '\t', '\uD83D', '\uDE00', 'é' };
+        for (int round = 0; round < 50; round ++) {
+            final char[] chars = new char[random.nextInt(5000)];
+            for (int i = 0; i < chars.length; i ++) {
+                chars[i] = alphabet[random.nextInt(alphabet.length)];
+            }
+            final String text = new String(chars);
+            final CountingReader single = new CountingReader(new StringReader(text));
+            final CountingReader bulk = new CountingReader(new StringReader(text));
+            final char[] buf = new char[1 + random.nextInt(300)];
+            for (;;) {
+                final int off = random.nextInt(buf.length);
+                final int cnt = bulk.read(buf, off, buf.length - off);
+                if (cnt == -1) {
+                    break;
+                }
+                for (int i = 0; i < cnt; i ++) {
+                    assertEquals(buf[off + i], single.read());
+                }
+                assertEquals(single.getLineNumber(), bulk.getLineNumber());
+                assertEquals(single.getColumnNumber(), bulk.getColumnNumber());
+                assertEquals(single.getCharacterOffset(), bulk.getCharacterOffset());
+            }
+            assertEquals(-1, single.read());
+        }
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.client.config;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+/**
+ * Tests for list attribute parsing.
+ */
+public final class TestDelimiterator {
+
+    @Test
+    public void testArrays() {
+        assertArrayEquals(new int[] { 1, -2, 3 }, Delimiterator.over("1 -2 +3", ' ').toIntArray());
+        assertArrayEquals(new long[] { 1L, Long.MAX_VALUE }, Delimiterator.over("1 9223372036854775807", ' ').toLongArray());
+        assertArrayEquals(new String[] { "a", "", "b" }, Delimiterator.over("a  b", ' ').toStringArray());
+        assertArrayEquals(new String[] { "" }, Delimiterator.over("", ' ').toStringArray());
+        // exactly filling the array, and just overflowing it
+        assertArrayEquals("a b c d e f g h".split(" "), Delimiterator.over("a b c d e f g h", ' ').toStringArray());
+        assertArrayEquals("a b c d e f g h i".split(" "), Delimiterator.over("a b c d e f g h i", ' ').toStringArray());
+        final Delimiterator partial = Delimiterator.over("x 5 6", ' ');
+        assertEquals("x", partial.next());
+        assertArrayEquals(new int[] { 5, 6 }, partial.toIntArray());
+        assertArrayEquals(new int[0], partial.toIntArray());
+        for (String bad : new String[] { "", "1  2", "1 x", "1 ", "2147483648" }) {
+            try {
+                Delimiterator.over(bad, ' ').toIntArray();
+                fail("Expected exception for \"" + bad + "\"");
+            } catch (NumberFormatException expected) {
+            }
+        }
+    }
+
+    @Test
+    public void testLargeList() {
+        final int count = 200_000;
+        final StringBuilder b = new StringBuilder();
+        for (int i = 0; i < count; i ++) {
+            if (i > 0) b.append(' ');
+            b.append(i);
+        }
+        final String subject = b.toString();
+        final int[] ints = Delimiterator.over(subject, ' ').toIntArray();
+        final long[] longs = Delimiterator.over(subject, ' ').toLongArray();
+        final String[] strings = Delimiterator.over(subject, ' ').toStringArray();
+        assertEquals(count, ints.length);
+        assertEquals(count, longs.length);
+        assertEquals(count, strings.length);
+        for (int i = 0; i < count; i ++) {
+            assertEquals(i, ints[i]);
+            assertEquals(i, longs[i]);
+        }
+        assertEquals(Integer.toString(count - 1), strings[count - 1]);
+    }
+}
@@ -0,0 +1,614 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.client.config;
+
+import static java.lang.Boolean.FALSE;
+import static javax.xml.stream.XMLStreamConstants.CDATA;
+import static javax.xml.stream.XMLStreamConstants.CHARACTERS;
+import static javax.xml.stream.XMLStreamConstants.COMMENT;
+import static javax.xml.stream.XMLStreamConstants.END_ELEMENT;
+import static javax.xml.stream.XMLStreamConstants.PROCESSING_INSTRUCTION;
+import static javax.xml.stream.XMLStreamConstants.SPACE;
+import static javax.xml.stream.XMLStreamConstants.START_ELEMENT;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.xml.stream.XMLInputFactory;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.Test;
+
+/**
+ * Tests for recording and replaying event tapes.
+ */
+public final class TestEventTape {
+
+    private static final String[] RESOURCES = {
+        "/empty-config.xml",
+        "/first-element-config.xml",
+        "/second-element-config.xml",
+        "/xinclude-config.xml",
+        "/xinclude-xml-config.xml",
+        "/tape-config.xml",
+    };
+
+    static XMLInputFactory createXmlInputFactory() {
+        final XMLInputFactory xmlInputFactory = XMLInputFactory.newFactory();
+        xmlInputFactory.setProperty(XMLInputFactory.IS_VALIDATING, FALSE);
+        xmlInputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, FALSE);
+        xmlInputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, FALSE);
+        return xmlInputFactory;
+    }
+
+    static ConfigurationXMLStreamReader open(String resource, XMLInputFactory xmlInputFactory) throws Exception {
+        final URL url = TestEventTape.class.getResource(resource);
+        assertNotNull(url);
+        final URI uri = url.toURI();
+        return new XIncludeXMLStreamReader(ClientConfiguration.openUri(uri, xmlInputFactory));
+    }
+
+    @Test
+    public void testReplayMatchesParse() throws Exception {
+        final XMLInputFactory xmlInputFactory = createXmlInputFactory();
+        for (String resource : RESOURCES) {
+            final EventTape tape;
+            try (ConfigurationXMLStreamReader reader = open(resource, xmlInputFactory)) {
+                tape = EventTape.record(reader);
+            }
+            // two independent cursors over the same tape
+            for (int i = 0; i < 2; i ++) {
+                try (ConfigurationXMLStreamReader expected = open(resource, xmlInputFactory)) {
+                    assertSameEvents(expected, tape.newReader(null, xmlInputFactory));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testTypedAttributes() throws Exception {
+        final XMLInputFactory xmlInputFactory = createXmlInputFactory();
+        final String[] values = { "42", "-7", "+8", "2147483648", "9223372036854775808", "x", "TRUE", "", "-", "\u0663" };
+        final StringBuilder b = new StringBuilder("<configuration><e");
+        for (int i = 0; i < values.length; i ++) {
+            b.append(" a").append(i).append("=\"").append(values[i]).append('"');
+        }
+        b.append("/></configuration>");
+        final Path file = Files.createTempFile("wildfly-config", ".xml");
+        try {
+            Files.write(file, b.toString().getBytes(StandardCharsets.UTF_8));
+            final EventTape tape;
+            try (ConfigurationXMLStreamReader reader = ClientConfiguration.openUri(file.toUri(), xmlInputFactory)) {
+                tape = EventTape.record(reader);
+            }
+            try (ConfigurationXMLStreamReader expected = ClientConfiguration.openUri(file.toUri(), xmlInputFactory)) {
+                final ConfigurationXMLStreamReader actual = new XIncludeXMLStreamReader(tape.newReader(null, xmlInputFactory));
+                expected.nextTag();
+                expected.nextTag();
+                actual.nextTag();
+                actual.nextTag();
+                for (int i = 0; i < values.length; i ++) {
+                    assertEquals(values[i], typed(expected, i), typed(actual, i));
+                }
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static String typed(ConfigurationXMLStreamReader reader, int index) {
+        final StringBuilder b = new StringBuilder();
+        try {
+            b.append(reader.getIntAttributeValue(index));
+        } catch (ConfigXMLParseException e) {
+            b.append(e.getCause());
+        }
+        b.append('/');
+        try {
+            b.append(reader.getLongAttributeValue(index));
+        } catch (ConfigXMLParseException e) {
+            b.append(e.getCause());
+        }
+        return b.append('/').append(reader.getBooleanAttributeValue(index)).toString();
+    }
+
+    @Test
+    public void testContent() throws Exception {
+        final XMLInputFactory xmlInputFactory = createXmlInputFactory();
+        final EventTape tape;
+        try (ConfigurationXMLStreamReader reader = open("/tape-config.xml", xmlInputFactory)) {
+            tape = EventTape.record(reader);
+        }
+        final ConfigurationXMLStreamReader reader = tape.newReader(null, xmlInputFactory);
+        assertEquals(START_ELEMENT, reader.nextTag());
+        reader.require(START_ELEMENT, null, "configuration");
+        assertEquals(START_ELEMENT, reader.nextTag());
+        assertEquals("the-element", reader.getLocalName());
+        assertEquals(1234, reader.getIntAttributeValue(0));
+        assertTrue(reader.getBooleanAttributeValue(1));
+        assertEquals("urn:other", reader.getAttributeNamespace(1));
+        assertArrayEquals(new int[] { 1, 2, 3 }, reader.getIntListAttributeValue(2));
+        assertEquals("urn:other", reader.getNamespaceURI("o"));
+        assertEquals("http://www.w3.org/2001/XInclude", reader.getNamespaceURI("xi"));
+        assertEquals(START_ELEMENT, reader.nextTag());
+        assertEquals("child", reader.getLocalName());
+        assertEquals(" some <CDATA> ", reader.getElementText());
+        assertEquals(START_ELEMENT, reader.nextTag());
+        assertEquals("hello", reader.getLocalName());
+        final XMLLocation includedFrom = reader.getIncludedFrom();
+        assertNotNull(includedFrom);
+        assertTrue(includedFrom.getUri().toString().endsWith("/tape-config.xml"));
+        assertTrue(reader.getUri().toString().endsWith("/xincluded-config.xml"));
+        assertEquals(includedFrom, reader.getLocation().getIncludedFrom());
+        assertEquals("Hello!", reader.getElementText().trim());
+        assertEquals(START_ELEMENT, reader.nextTag());
+        assertEquals("text", reader.getLocalName());
+        assertEquals("Hello!", reader.getElementText().trim());
+        assertEquals(END_ELEMENT, reader.nextTag());
+        assertEquals("the-element", reader.getLocalName());
+        assertEquals("urn:other", reader.getNamespaceURI("o"));
+        assertEquals(END_ELEMENT, reader.nextTag());
+        assertEquals(null, reader.getNamespaceURI("o"));
+    }
+
+    @Test
+    public void testPrefetchMatchesParse() throws Exception {
+        final XMLInputFactory xmlInputFactory = createXmlInputFactory();
+        for (String resource : RESOURCES) {
+            final URI uri = TestEventTape.class.getResource(resource).toURI();
+            try (ConfigurationXMLStreamReader expected = open(resource, xmlInputFactory)) {
+                try (ConfigurationXMLStreamReader actual = IncludePrefetcher.open(uri, xmlInputFactory, ClientConfiguration.openStream(uri, "application/xml", null), null, null)) {
+                    assertSameEvents(expected, actual);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testPrefetchFailure() throws Exception {
+        final XMLInputFactory xmlInputFactory = createXmlInputFactory();
+        final Path file = Files.createTempFile("wildfly-config", ".xml");
+        try {
+            Files.write(file, "<configuration xmlns:xi=\"http://www.w3.org/2001/XInclude\">\n<xi:include href=\"missing.xml\"/></configuration>".getBytes(StandardCharsets.UTF_8));
+            final URI uri = file.toUri();
+            String expected = null;
+            try (ConfigurationXMLStreamReader reader = new XIncludeXMLStreamReader(ClientConfiguration.openUri(uri, xmlInputFactory))) {
+                while (reader.hasNext()) reader.next();
+                fail("Expected exception");
+            } catch (ConfigXMLParseException e) {
+                expected = e.getMessage();
+            }
+            try (ConfigurationXMLStreamReader reader = IncludePrefetcher.open(uri, xmlInputFactory, ClientConfiguration.openStream(uri, "application/xml", null), null, null)) {
+                while (reader.hasNext()) reader.next();
+                fail("Expected exception");
+            } catch (ConfigXMLParseException e) {
+                assertEquals(expected, e.getMessage());
+                // the failure of the prefetch is reported as well
+                assertEquals(1, e.getSuppressed().length);
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test(timeout = 60_000L)
+    public void testPrefetchSelected() throws Exception {
+        final XMLInputFactory xmlInputFactory = createXmlInputFactory();
+        final Map<String, String> documents = new HashMap<>();
+        documents.put("/top-skipped.xml", "<c xmlns='urn:c' xmlns:xi='http://www.w3.org/2001/XInclude'><xi:include href='nested-skipped.xml'/></c>");
+        documents.put("/top-selected.xml", "<a xmlns='urn:a' xmlns:xi='http://www.w3.org/2001/XInclude'><xi:include href='nested-selected.xml'/></a>");
+        final Set<String> requested = ConcurrentHashMap.newKeySet();
+        final HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", exchange -> {
+            try {
+                final String path = exchange.getRequestURI().getPath();
+                requested.add(path);
+                final byte[] bytes = documents.getOrDefault(path, "<x/>").getBytes(StandardCharsets.UTF_8);
+                exchange.sendResponseHeaders(200, bytes.length);
+                try (OutputStream os = exchange.getResponseBody()) {
+                    os.write(bytes);
+                }
+            } finally {
+                exchange.close();
+            }
+        });
+        server.start();
+        final Path file = Files.createTempFile("wildfly-config", ".xml");
+        try {
+            final InetSocketAddress address = server.getAddress();
+            final String base = "http://" + address.getHostString() + ":" + address.getPort();
+            Files.write(file, ("<configuration xmlns:xi='http://www.w3.org/2001/XInclude'>"
+                + "<a xmlns='urn:a'><xi:include href='" + base + "/selected.xml'/></a>"
+                + "<b xmlns='urn:b'><xi:include href='" + base + "/skipped.xml'/></b>"
+                + "<xi:include href='" + base + "/top-skipped.xml'/>"
+                + "<xi:include href='" + base + "/top-selected.xml'/>"
+                + "</configuration>").getBytes(StandardCharsets.UTF_8));
+            final URI uri = file.toUri();
+            try (ConfigurationXMLStreamReader reader = IncludePrefetcher.open(uri, xmlInputFactory, ClientConfiguration.openStream(uri, "application/xml", null), null, Collections.singleton("urn:a"))) {
+                while (! requested.containsAll(Arrays.asList("/selected.xml", "/top-skipped.xml", "/top-selected.xml", "/nested-selected.xml"))) {
+                    Thread.sleep(10L);
+                }
+                // give any wrongly submitted fetch the time to arrive
+                Thread.sleep(200L);
+                assertFalse(requested.toString(), requested.contains("/skipped.xml"));
+                assertFalse(requested.toString(), requested.contains("/nested-skipped.xml"));
+            }
+        } finally {
+            server.stop(0);
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test(timeout = 60_000L)
+    public void testPrefetchRecursion() throws Exception {
+        final XMLInputFactory xmlInputFactory = createXmlInputFactory();
+        final Path dir = Files.createTempDirectory("wildfly-config");
+        final Path a = dir.resolve("a.xml");
+        final Path b = dir.resolve("b.xml");
+        final Path c = dir.resolve("c.xml");
+        try {
+            Files.write(a, include("b.xml").getBytes(StandardCharsets.UTF_8));
+            Files.write(b, include("a.xml").getBytes(StandardCharsets.UTF_8));
+            Files.write(c, include("c.xml").getBytes(StandardCharsets.UTF_8));
+            // mutual and self inclusion
+            for (Path file : new Path[] { a, c }) {
+                final URI uri = file.toUri();
+                String expected = null;
+                try (ConfigurationXMLStreamReader reader = new XIncludeXMLStreamReader(ClientConfiguration.openUri(uri, xmlInputFactory))) {
+                    while (reader.hasNext()) reader.next();
+                    fail("Expected exception");
+                } catch (ConfigXMLParseException e) {
+                    expected = e.getMessage();
+                    assertTrue(expected, expected.contains("Recursive inclusion"));
+                }
+                try (ConfigurationXMLStreamReader reader = IncludePrefetcher.open(uri, xmlInputFactory, ClientConfiguration.openStream(uri, "application/xml", null), null, null)) {
+                    while (reader.hasNext()) reader.next();
+                    fail("Expected exception");
+                } catch (ConfigXMLParseException e) {
+                    assertEquals(expected, e.getMessage());
+                }
+            }
+        } finally {
+            IncludeCache.clear();
+            Files.deleteIfExists(a);
+            Files.deleteIfExists(b);
+            Files.deleteIfExists(c);
+            Files.deleteIfExists(dir);
+        }
+    }
+
+    @Test(timeout = 60_000L)
+    public void testPrefetchContextClassLoader() throws Exception {
+        final XMLInputFactory xmlInputFactory = createXmlInputFactory();
+        final Path dir = Files.createTempDirectory("wildfly-config");
+        final Path main = dir.resolve("main.xml");
+        final int count = 2 * Math.max(8, Integer.getInteger("wildfly.config.include-prefetch.threads", 8).intValue());
+        final StringBuilder b = new StringBuilder("<configuration xmlns:xi='http://www.w3.org/2001/XInclude'>");
+        for (int i = 0; i < count; i ++) {
+            Files.write(dir.resolve(i + ".xml"), ("<e" + i + " xmlns='urn:e'/>").getBytes(StandardCharsets.UTF_8));
+            b.append("<xi:include href='").append(i).append(".xml'/>");
+        }
+        Files.write(main, b.append("</configuration>").toString().getBytes(StandardCharsets.UTF_8));
+        // the context class loader of the thread which read each source
+        final Map<URI, ClassLoader> loaders = new ConcurrentHashMap<>();
+        ClientConfiguration.registerMetrics(new ConfigurationMetrics() {
+            public void sourceRead(final URI uri, final long bytes, final long characters, final long events) {
+                loaders.put(uri, Thread.currentThread().getContextClassLoader());
+            }
+        });
+        final Thread thread = Thread.currentThread();
+        final ClassLoader old = thread.getContextClassLoader();
+        try {
+            final URI uri = main.toUri();
+            // the second document is fetched by threads which may have been started while reading the first one
+            for (int round = 0; round < 2; round ++) {
+                final ClassLoader loader = new URLClassLoader(new URL[0], null);
+                thread.setContextClassLoader(loader);
+                loaders.clear();
+                IncludeCache.clear();
+                try (ConfigurationXMLStreamReader reader = IncludePrefetcher.open(uri, xmlInputFactory, ClientConfiguration.openStream(uri, "application/xml", null), null, null)) {
+                    // wait for the background fetches, so that none of them is run by this thread instead
+                    while (loaders.size() < count) {
+                        Thread.sleep(10L);
+                    }
+                    while (reader.hasNext()) reader.next();
+                }
+                for (int i = 0; i < count; i ++) {
+                    assertSame(loader, loaders.get(dir.resolve(i + ".xml").toUri()));
+                }
+            }
+        } finally {
+            thread.setContextClassLoader(old);
+            ClientConfiguration.registerMetrics(null);
+            IncludeCache.clear();
+            for (int i = 0; i < count; i ++) {
+                Files.deleteIfExists(dir.resolve(i + ".xml"));
+            }
+            Files.deleteIfExists(main);
+            Files.deleteIfExists(dir);
+        }
+    }
+
+    @Test(timeout = 60_000L)
+    public void testPrefetchCancel() throws Exception {
+        final XMLInputFactory xmlInputFactory = createXmlInputFactory();
+        final int threads = Integer.getInteger("wildfly.config.include-prefetch.threads", 8).intValue();
+        final int count = threads + 16;
+        final AtomicInteger requests = new AtomicInteger();
+        final CountDownLatch closed = new CountDownLatch(1);
+        // the server handles one request at a time, so every fetch waits until the reader has been closed
+        final HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", exchange -> {
+            try {
+                requests.incrementAndGet();
+                closed.await();
+                final byte[] bytes = "<x/>".getBytes(StandardCharsets.UTF_8);
+                exchange.sendResponseHeaders(200, bytes.length);
+                try (OutputStream os = exchange.getResponseBody()) {
+                    os.write(bytes);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                exchange.close();
+            }
+        });
+        server.start();
+        final Path file = Files.createTempFile("wildfly-config", ".xml");
+        try {
+            final InetSocketAddress address = server.getAddress();
+            final String base = "http://" + address.getHostString() + ":" + address.getPort();
+            final StringBuilder b = new StringBuilder("<configuration xmlns:xi='http://www.w3.org/2001/XInclude'>");
+            for (int i = 0; i < count; i ++) {
+                b.append("<xi:include href='").append(base).append('/').append(i).append(".xml'/>");
+            }
+            Files.write(file, b.append("</configuration>").toString().getBytes(StandardCharsets.UTF_8));
+            final URI uri = file.toUri();
+            try (ConfigurationXMLStreamReader ignored = IncludePrefetcher.open(uri, xmlInputFactory, ClientConfiguration.openStream(uri, "application/xml", null), null, null)) {
+                while (requests.get() == 0) {
+                    Thread.sleep(10L);
+                }
+            }
+            closed.countDown();
+            // give any fetch which was not cancelled the time to arrive
+            Thread.sleep(500L);
+            // only the fetches which had already started when the reader was closed are completed
+            assertTrue(requests.toString(), requests.get() <= threads);
+        } finally {
+            closed.countDown();
+            server.stop(0);
+            IncludeCache.clear();
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static String include(String href) {
+        return "<configuration xmlns:xi=\"http://www.w3.org/2001/XInclude\"><e xmlns=\"urn:e\"><xi:include href=\"" + href + "\"/></e></configuration>";
+    }
+
+    @Test
+    public void testCompiledMatchesParse() throws Exception {
+        final XMLInputFactory xmlInputFactory = createXmlInputFactory();
+        final Path compiled = Files.createTempFile("wildfly-config", ".bin");
+        try {
+            for (String resource : RESOURCES) {
+                final URI uri = TestEventTape.class.getResource(resource).toURI();
+                ConfigurationCompiler.compile(uri, compiled);
+                final EventTape tape = EventTape.readFrom(ByteBuffer.wrap(Files.readAllBytes(compiled)), uri);
+                try (ConfigurationXMLStreamReader expected = open(resource, xmlInputFactory)) {
+                    assertSameEvents(expected, tape.newReader(null, null));
+                }
+            }
+            final byte[] bytes = Files.readAllBytes(compiled);
+            bytes[7] ++;
+            try {
+                EventTape.readFrom(ByteBuffer.wrap(bytes), compiled.toUri());
+                fail("Expected exception");
+            } catch (IOException expected) {
+            }
+            EventTape tape = EventTape.readFrom(ByteBuffer.wrap(Files.readAllBytes(compiled)), compiled.toUri());
+            tape.getSymbols()[1] = null;
+            assertRejected(tape, compiled.toUri());
+            // out of range counts, symbols and text
+            final int[] corruptions = { 3, -1, 4, -1, 0, Integer.MAX_VALUE };
+            for (int i = 0; i < corruptions.length; i += 2) {
+                tape = EventTape.readFrom(ByteBuffer.wrap(Files.readAllBytes(compiled)), compiled.toUri());
+                final int[] ops = tape.getOps();
+                int pos = 0;
+                while ((ops[pos] & 0xff) != START_ELEMENT) {
+                    pos += tape.recordLength(pos);
+                }
+                ops[pos + EventTape.HEADER_LENGTH + corruptions[i]] = corruptions[i + 1];
+                assertRejected(tape, compiled.toUri());
+            }
+            tape = EventTape.readFrom(ByteBuffer.wrap(Files.readAllBytes(compiled)), compiled.toUri());
+            final int[] ops = tape.getOps();
+            int pos = 0;
+            while ((ops[pos] & 0xff) != CHARACTERS) {
+                pos += tape.recordLength(pos);
+            }
+            ops[pos + EventTape.HEADER_LENGTH + 1] = tape.getText().length + 1;
+            assertRejected(tape, compiled.toUri());
+        } finally {
+            Files.deleteIfExists(compiled);
+        }
+        // a compiled document and its inclusions may be moved together
+        final Path from = Files.createTempDirectory("wildfly-config");
+        final Path to = Files.createTempDirectory("wildfly-config");
+        final String[] names = { "conf/wildfly-config.xml", "conf/sibling.xml", "shared/parent.xml", "conf/wildfly-config.bin" };
+        try {
+            Files.createDirectories(from.resolve("conf"));
+            Files.createDirectories(from.resolve("shared"));
+            Files.write(from.resolve(names[0]), ("<configuration xmlns:xi=\"http://www.w3.org/2001/XInclude\"><e xmlns=\"urn:e\">"
+                + "<xi:include href=\"sibling.xml\"/><xi:include href=\"../shared/parent.xml\"/></e></configuration>").getBytes(StandardCharsets.UTF_8));
+            Files.write(from.resolve(names[1]), "<sibling/>".getBytes(StandardCharsets.UTF_8));
+            Files.write(from.resolve(names[2]), "<parent/>".getBytes(StandardCharsets.UTF_8));
+            ConfigurationCompiler.compile(from.resolve(names[0]).toUri(), from.resolve(names[3]));
+            Files.createDirectories(to.resolve("conf"));
+            Files.createDirectories(to.resolve("shared"));
+            for (String name : names) {
+                Files.move(from.resolve(name), to.resolve(name));
+            }
+            final URI uri = to.resolve(names[0]).toUri();
+            final EventTape tape = EventTape.readFrom(ByteBuffer.wrap(Files.readAllBytes(to.resolve(names[3]))), uri);
+            assertEquals(3, tape.getSourceCount());
+            assertEquals(to.resolve(names[1]).toUri(), tape.getSourceUri(1));
+            assertEquals(to.resolve(names[2]).toUri(), tape.getSourceUri(2));
+            try (ConfigurationXMLStreamReader expected = new XIncludeXMLStreamReader(ClientConfiguration.openUri(uri, xmlInputFactory))) {
+                assertSameEvents(expected, tape.newReader(null, null));
+            }
+        } finally {
+            for (String name : names) {
+                Files.deleteIfExists(from.resolve(name));
+                Files.deleteIfExists(to.resolve(name));
+            }
+            for (Path dir : new Path[] { from, to }) {
+                Files.deleteIfExists(dir.resolve("conf"));
+                Files.deleteIfExists(dir.resolve("shared"));
+                Files.deleteIfExists(dir);
+            }
+        }
+    }
+
+    private static void assertRejected(EventTape tape, URI uri) throws IOException {
+        final ByteArrayOutputStream os = new ByteArrayOutputStream();
+        tape.writeTo(os, null);
+        try {
+            EventTape.readFrom(ByteBuffer.wrap(os.toByteArray()), uri);
+            fail("Expected exception");
+        } catch (IOException expected) {
+        }
+    }
+
+    @Test
+    public void testCompiledPickup() throws Exception {
+        final Path dir = Files.createTempDirectory("wildfly-config");
+        final Path xml = dir.resolve("wildfly-config.xml");
+        final Path bin = dir.resolve("wildfly-config.bin");
+        try {
+            try (InputStream is = TestEventTape.class.getResourceAsStream("/second-element-config.xml")) {
+                Files.copy(is, xml);
+            }
+            ConfigurationCompiler.main(new String[] { xml.toString() });
+            assertTrue(Files.exists(bin));
+            ClientConfiguration configuration = ClientConfiguration.getInstance(xml.toUri(), true);
+            assertTrue(configuration.isSnapshot());
+            try (ConfigurationXMLStreamReader reader = configuration.readConfiguration(Collections.singleton("urn:config-urn"))) {
+                new TestSimpleConfiguration().validateContent(reader);
+            }
+            // an out of date compiled file is ignored, even if it is newer than the document
+            final FileTime binTime = Files.getLastModifiedTime(bin);
+            Files.write(xml, "<!-- modified -->\n".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+            Files.setLastModifiedTime(xml, FileTime.fromMillis(binTime.toMillis() - 10_000L));
+            configuration = ClientConfiguration.getInstance(xml.toUri(), true);
+            assertEquals(Boolean.getBoolean("wildfly.config.snapshot"), configuration.isSnapshot());
+            try (ConfigurationXMLStreamReader reader = configuration.readConfiguration(Collections.singleton("urn:config-urn"))) {
+                new TestSimpleConfiguration().validateContent(reader);
+            }
+        } finally {
+            Files.deleteIfExists(bin);
+            Files.deleteIfExists(xml);
+            Files.deleteIfExists(dir);
+        }
+    }
+
+    static void assertSameEvents(ConfigurationXMLStreamReader expected, ConfigurationXMLStreamReader actual) throws Exception {
+        assertEquals(expected.getEventType(), actual.getEventType());
+        assertEquals(expected.getVersion(), actual.getVersion());
+        assertEquals(expected.getCharacterEncodingScheme(), actual.getCharacterEncodingScheme());
+        for (;;) {
+            final XMLLocation expectedLocation = expected.getLocation();
+            final XMLLocation actualLocation = actual.getLocation();
+            assertEquals(expectedLocation.getUri(), actualLocation.getUri());
+            assertEquals(expectedLocation.getLineNumber(), actualLocation.getLineNumber());
+            assertEquals(expectedLocation.getColumnNumber(), actualLocation.getColumnNumber());
+            assertEquals(expectedLocation.getCharacterOffset(), actualLocation.getCharacterOffset());
+            assertEquals(expectedLocation.getIncludedFrom(), actualLocation.getIncludedFrom());
+            assertEquals(expected.getUri(), actual.getUri());
+            assertEquals(expected.getIncludedFrom(), actual.getIncludedFrom());
+            switch (expected.getEventType()) {
+                case START_ELEMENT: {
+                    assertEquals(expected.getAttributeCount(), actual.getAttributeCount());
+                    for (int i = 0; i < expected.getAttributeCount(); i ++) {
+                        assertEquals(expected.getAttributeName(i), actual.getAttributeName(i));
+                        assertEquals(expected.getAttributeValue(i), actual.getAttributeValue(i));
+                        assertEquals(expected.getAttributeType(i), actual.getAttributeType(i));
+                    }
+                    // fall thru
+                }
+                case END_ELEMENT: {
+                    assertEquals(expected.getName(), actual.getName());
+                    assertEquals(expected.getNamespaceCount(), actual.getNamespaceCount());
+                    for (int i = 0; i < expected.getNamespaceCount(); i ++) {
+                        assertEquals(expected.getNamespacePrefix(i), actual.getNamespacePrefix(i));
+                        assertEquals(expected.getNamespaceURI(i), actual.getNamespaceURI(i));
+                    }
+                    break;
+                }
+                case CHARACTERS:
+                case CDATA:
+                case SPACE:
+                case COMMENT: {
+                    assertEquals(expected.getText(), actual.getText());
+                    assertEquals(expected.getTextLength(), actual.getTextLength());
+                    break;
+                }
+                case PROCESSING_INSTRUCTION: {
+                    assertEquals(expected.getPITarget(), actual.getPITarget());
+                    assertEquals(expected.getPIData(), actual.getPIData());
+                    break;
+                }
+            }
+            if (! expected.hasNext()) {
+                assertFalse(actual.hasNext());
+                return;
+            }
+            assertTrue(actual.hasNext());
+            assertEquals(expected.next(), actual.next());
+        }
+    }
+}
@@ -0,0 +1,187 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.client.config;
+
+import static javax.xml.stream.XMLStreamConstants.CHARACTERS;
+import static javax.xml.stream.XMLStreamConstants.START_ELEMENT;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.Test;
+
+/**
+ * Tests for the shared XInclude cache.
+ */
+public final class TestIncludeCache {
+
+    private static final String MAIN = "<configuration xmlns:xi=\"http://www.w3.org/2001/XInclude\">"
+        + "<b xmlns=\"urn:b\"><xi:include href=\"shared.xml\"/><t><xi:include href=\"shared.txt\" parse=\"text\"/></t></b>"
+        + "</configuration>";
+
+    @Test
+    public void testCachedInclude() throws Exception {
+        final Path dir = Files.createTempDirectory("wildfly-config");
+        final Path main = dir.resolve("main.xml");
+        final Path shared = dir.resolve("shared.xml");
+        final Path text = dir.resolve("shared.txt");
+        try {
+            Files.write(main, MAIN.getBytes(StandardCharsets.UTF_8));
+            Files.write(shared, "<shared xmlns=\"urn:b\">one</shared>".getBytes(StandardCharsets.UTF_8));
+            Files.write(text, "text one".getBytes(StandardCharsets.UTF_8));
+            final URI sharedUri = shared.toUri();
+            final IncludeCache.Key key = IncludeCache.key(sharedUri, false, StandardCharsets.UTF_8, "application/xml,text/xml,application/*+xml,text/*+xml", null);
+            assertNotNull(key);
+            assertNull(IncludeCache.get(key));
+            for (int i = 0; i < 2; i ++) {
+                // separate instances share the cache
+                assertContent(ClientConfiguration.getInstance(main.toUri()), "one", "text one");
+                assertNotNull(IncludeCache.get(key));
+            }
+            Files.write(shared, "<shared xmlns=\"urn:b\">three</shared>".getBytes(StandardCharsets.UTF_8));
+            Files.write(text, "text three".getBytes(StandardCharsets.UTF_8));
+            assertContent(ClientConfiguration.getInstance(main.toUri()), "three", "text three");
+        } finally {
+            IncludeCache.clear();
+            Files.deleteIfExists(main);
+            Files.deleteIfExists(shared);
+            Files.deleteIfExists(text);
+            Files.deleteIfExists(dir);
+        }
+    }
+
+    @Test
+    public void testRemoteNotCachedByDefault() throws Exception {
+        final List<String> requests = Collections.synchronizedList(new ArrayList<>());
+        final HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", exchange -> {
+            requests.add(exchange.getRequestMethod() + " " + exchange.getRequestURI().getPath());
+            final byte[] bytes = "<shared xmlns=\"urn:b\">remote</shared>".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("ETag", "\"1\"");
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(bytes);
+            }
+        });
+        server.start();
+        final Path main = Files.createTempFile("wildfly-config", ".xml");
+        try {
+            final InetSocketAddress address = server.getAddress();
+            final URI href = new URI("http", null, address.getHostString(), address.getPort(), "/shared.xml", null, null);
+            Files.write(main, ("<configuration xmlns:xi=\"http://www.w3.org/2001/XInclude\"><b xmlns=\"urn:b\"><xi:include href=\"" + href + "\"/></b></configuration>").getBytes(StandardCharsets.UTF_8));
+            for (int i = 0; i < 2; i ++) {
+                try (ConfigurationXMLStreamReader reader = ClientConfiguration.getInstance(main.toUri()).readConfiguration(Collections.singleton("urn:b"))) {
+                    assertEquals(START_ELEMENT, reader.nextTag());
+                    assertEquals(START_ELEMENT, reader.nextTag());
+                    assertEquals("shared", reader.getLocalName());
+                }
+            }
+            // one plain request per read, without any extra validation request
+            assertEquals(Arrays.asList("GET /shared.xml", "GET /shared.xml"), requests);
+        } finally {
+            server.stop(0);
+            IncludeCache.clear();
+            Files.deleteIfExists(main);
+        }
+    }
+
+    @Test
+    public void testLargeIncludeNotRecorded() throws Exception {
+        final Path dir = Files.createTempDirectory("wildfly-config");
+        final Path main = dir.resolve("main.xml");
+        final Path text = dir.resolve("large.txt");
+        try {
+            Files.write(main, ("<configuration xmlns:xi=\"http://www.w3.org/2001/XInclude\"><b xmlns=\"urn:b\">"
+                + "<t><xi:include href=\"large.txt\" parse=\"text\"/></t></b></configuration>").getBytes(StandardCharsets.UTF_8));
+            final byte[] bytes = new byte[5 << 20];
+            Arrays.fill(bytes, (byte) 'x');
+            Files.write(text, bytes);
+            try (ConfigurationXMLStreamReader reader = ClientConfiguration.getInstance(main.toUri()).readConfiguration(Collections.singleton("urn:b"))) {
+                assertEquals(START_ELEMENT, reader.nextTag());
+                assertEquals(START_ELEMENT, reader.nextTag());
+                long length = 0;
+                while (reader.next() == CHARACTERS) {
+                    length += reader.getTextLength();
+                }
+                assertEquals(bytes.length, length);
+            }
+            assertNull(IncludeCache.get(IncludeCache.key(text.toUri(), true, StandardCharsets.UTF_8, "text/plain,text/*", null)));
+        } finally {
+            IncludeCache.clear();
+            Files.deleteIfExists(main);
+            Files.deleteIfExists(text);
+            Files.deleteIfExists(dir);
+        }
+    }
+
+    @Test
+    public void testModifiedWhileReadNotCurrent() throws Exception {
+        final Path shared = Files.createTempFile("wildfly-config", ".xml");
+        try {
+            Files.write(shared, "<shared xmlns=\"urn:b\">one</shared>".getBytes(StandardCharsets.UTF_8));
+            final IncludeCache.Key key = IncludeCache.key(shared.toUri(), false, StandardCharsets.UTF_8, "application/xml", null);
+            final IncludeCache.Source source = IncludeCache.open(key, shared.toUri(), "application/xml", null);
+            assertTrue(source.isCacheable());
+            // modified after the include was opened, before its recording is cached
+            Files.write(shared, "<shared xmlns=\"urn:b\">three</shared>".getBytes(StandardCharsets.UTF_8));
+            final EventTape tape;
+            try (ConfigurationXMLStreamReader reader = ClientConfiguration.openUri(shared.toUri(), ClientConfiguration.getSharedXmlInputFactory(), source.getInputStream())) {
+                tape = EventTape.record(reader);
+            }
+            IncludeCache.put(key, tape, source.getStamps(), source.getValidator());
+            assertNull(IncludeCache.get(key));
+        } finally {
+            IncludeCache.clear();
+            Files.deleteIfExists(shared);
+        }
+    }
+
+    private static void assertContent(ClientConfiguration configuration, String sharedText, String text) throws Exception {
+        try (ConfigurationXMLStreamReader reader = configuration.readConfiguration(Collections.singleton("urn:b"))) {
+            assertEquals(START_ELEMENT, reader.nextTag());
+            assertEquals("b", reader.getLocalName());
+            assertEquals(START_ELEMENT, reader.nextTag());
+            assertEquals("shared", reader.getLocalName());
+            assertTrue(reader.getUri().toString().endsWith("/shared.xml"));
+            assertTrue(reader.getIncludedFrom().getUri().toString().endsWith("/main.xml"));
+            assertEquals(CHARACTERS, reader.next());
+            assertEquals(sharedText, reader.getText());
+            reader.nextTag();
+            assertEquals(START_ELEMENT, reader.nextTag());
+            assertEquals("t", reader.getLocalName());
+            assertEquals(CHARACTERS, reader.next());
+            assertEquals(text, reader.getText());
+            assertTrue(reader.getUri().toString().endsWith("/shared.txt"));
+        }
+    }
+}
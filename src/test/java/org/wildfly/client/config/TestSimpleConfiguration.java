@@ -23,18 +23,45 @@ import static javax.xml.stream.XMLStreamConstants.COMMENT;
 import static javax.xml.stream.XMLStreamConstants.END_ELEMENT;
 import static javax.xml.stream.XMLStreamConstants.SPACE;
 import static javax.xml.stream.XMLStreamConstants.START_ELEMENT;
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.lang.ref.WeakReference;
+import java.net.MalformedURLException;
 import java.net.URL;
+import java.net.URLClassLoader;
+import java.net.URLConnection;
+import java.net.URLStreamHandler;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Pattern;
 
+import javax.xml.stream.XMLInputFactory;
+
 import org.junit.Test;
+import org.wildfly.common.expression.Expression;
+import org.wildfly.common.function.ExceptionConsumer;
 
 /**
  * @author <a href="mailto:david.lloyd@redhat.com">David M. Lloyd</a>
@@ -95,6 +122,615 @@ public final class TestSimpleConfiguration {
         }
     }
 
+    @Test
+    public void testSnapshot() throws Exception {
+        URL resource = TestSimpleConfiguration.class.getResource("/second-element-config.xml");
+        assertNotNull(resource);
+        ClientConfiguration configuration = ClientConfiguration.getInstance(resource.toURI()).snapshot();
+        assertTrue(configuration.isSnapshot());
+        for (int i = 0; i < 3; i ++) {
+            try (ConfigurationXMLStreamReader reader = configuration.readConfiguration(Collections.singleton("urn:config-urn"))) {
+                validateContent(reader);
+            }
+        }
+    }
+
+    @Test
+    public void testSnapshotXInclude() throws Exception {
+        URL resource = TestSimpleConfiguration.class.getResource("/xinclude-xml-config.xml");
+        assertNotNull(resource);
+        ClientConfiguration configuration = ClientConfiguration.getInstance(resource.toURI()).snapshot();
+        for (int i = 0; i < 2; i ++) {
+            try (ConfigurationXMLStreamReader reader = configuration.readConfiguration(Collections.singleton("urn:config-urn"))) {
+                validateXIncludeContent(reader);
+            }
+        }
+        resource = TestSimpleConfiguration.class.getResource("/xinclude-config.xml");
+        assertNotNull(resource);
+        configuration = ClientConfiguration.getInstance(resource.toURI()).snapshot();
+        for (int i = 0; i < 2; i ++) {
+            try (ConfigurationXMLStreamReader reader = configuration.readConfiguration(Collections.singleton("urn:config-urn"))) {
+                validateContent(reader);
+            }
+        }
+    }
+
+    @Test
+    public void testDispatch() throws Exception {
+        URL resource = TestSimpleConfiguration.class.getResource("/second-element-config.xml");
+        assertNotNull(resource);
+        for (ClientConfiguration configuration : new ClientConfiguration[] { ClientConfiguration.getInstance(resource.toURI()), ClientConfiguration.getInstance(resource.toURI()).snapshot() }) {
+            final AtomicInteger found = new AtomicInteger();
+            final AtomicInteger other = new AtomicInteger();
+            final Map<String, ExceptionConsumer<ConfigurationXMLStreamReader, ConfigXMLParseException>> handlers = new HashMap<>();
+            handlers.put("urn:config-urn", reader -> {
+                validateContent(reader);
+                found.incrementAndGet();
+            });
+            handlers.put("urn:something-else", reader -> {
+                // read only part of the element
+                assertEquals(START_ELEMENT, reader.nextTag());
+                assertEquals("not-the-element", reader.getLocalName());
+                assertEquals(START_ELEMENT, reader.nextTag());
+                assertEquals("blah", reader.getLocalName());
+                other.incrementAndGet();
+            });
+            configuration.readConfiguration(handlers);
+            assertEquals(1, found.get());
+            assertEquals(2, other.get());
+        }
+    }
+
+    @Test
+    public void testSnapshotStale() throws Exception {
+        final Path file = Files.createTempFile("wildfly-config", ".xml");
+        try {
+            Files.write(file, "<configuration><a xmlns=\"urn:a\"/><b xmlns=\"urn:b\">one</b></configuration>".getBytes(StandardCharsets.UTF_8));
+            ClientConfiguration configuration = ClientConfiguration.getInstance(file.toUri()).snapshot();
+            try (ConfigurationXMLStreamReader reader = configuration.readConfiguration(Collections.singleton("urn:b"))) {
+                assertEquals(START_ELEMENT, reader.nextTag());
+                assertEquals("b", reader.getLocalName());
+                assertEquals(CHARACTERS, reader.next());
+                assertEquals("one", reader.getText());
+                assertEquals(END_ELEMENT, reader.next());
+                assertFalse(reader.hasNext());
+            }
+            Files.write(file, "<configuration><b xmlns=\"urn:b\">three</b></configuration>".getBytes(StandardCharsets.UTF_8));
+            try (ConfigurationXMLStreamReader reader = configuration.readConfiguration(Collections.singleton("urn:b"))) {
+                assertEquals(START_ELEMENT, reader.nextTag());
+                assertEquals("b", reader.getLocalName());
+                assertEquals(CHARACTERS, reader.next());
+                assertEquals("three", reader.getText());
+                assertEquals(END_ELEMENT, reader.next());
+                assertFalse(reader.hasNext());
+            }
+            try (ConfigurationXMLStreamReader reader = configuration.readConfiguration(Collections.singleton("urn:a"))) {
+                assertFalse(reader.hasNext());
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void testSnapshotModifiedWhileRead() throws Exception {
+        final Path file = Files.createTempFile("wildfly-config", ".xml");
+        final AtomicInteger opens = new AtomicInteger();
+        try {
+            Files.write(file, "<configuration><b xmlns=\"urn:b\">one</b></configuration>".getBytes(StandardCharsets.UTF_8));
+            final ClientConfiguration configuration = new ClientConfiguration(null, file.toUri(), () -> {
+                final InputStream is = new ByteArrayInputStream(Files.readAllBytes(file));
+                if (opens.getAndIncrement() == 0) {
+                    // modified after the document was opened
+                    Files.write(file, "<configuration><b xmlns=\"urn:b\">three</b></configuration>".getBytes(StandardCharsets.UTF_8));
+                }
+                return is;
+            }, true);
+            assertEquals("one", readB(configuration));
+            assertEquals("three", readB(configuration));
+            assertEquals(2, opens.get());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void testReloading() throws Exception {
+        final Path file = Files.createTempFile("wildfly-config", ".xml");
+        try {
+            Files.write(file, "<configuration><b xmlns=\"urn:b\">one</b></configuration>".getBytes(StandardCharsets.UTF_8));
+            final ClientConfiguration configuration = ClientConfiguration.getInstance(file.toUri()).reloading();
+            assertTrue(configuration.isReloading());
+            assertEquals(0, configuration.getGeneration());
+            try {
+                assertEquals("one", readB(configuration));
+                assertEquals(1, configuration.getGeneration());
+                Files.write(file, "<configuration><b xmlns=\"urn:b\">two</b></configuration>".getBytes(StandardCharsets.UTF_8));
+                final long deadline = System.nanoTime() + 30_000_000_000L;
+                while (configuration.getGeneration() == 1 && System.nanoTime() < deadline) {
+                    Thread.sleep(20);
+                }
+                assertTrue(configuration.getGeneration() >= 2);
+                assertEquals("two", readB(configuration));
+            } finally {
+                configuration.stopReloading();
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void testReloadingSurvivesFailure() throws Exception {
+        final Path file = Files.createTempFile("wildfly-config", ".xml");
+        final AtomicInteger opens = new AtomicInteger();
+        final AtomicInteger failures = new AtomicInteger();
+        try {
+            Files.write(file, "<configuration><b xmlns=\"urn:b\">one</b></configuration>".getBytes(StandardCharsets.UTF_8));
+            final ClientConfiguration configuration = new ClientConfiguration(null, file.toUri(), () -> {
+                opens.incrementAndGet();
+                if (failures.get() > 0) {
+                    failures.decrementAndGet();
+                    throw new IllegalStateException("simulated failure");
+                }
+                return Files.newInputStream(file);
+            }, true, true);
+            try {
+                assertEquals("one", readB(configuration));
+                assertEquals(1, configuration.getGeneration());
+                // a reload which fails with an unexpected exception keeps the previous snapshot
+                failures.set(1);
+                final int cnt = opens.get();
+                Files.write(file, "<configuration><b xmlns=\"urn:b\">two</b></configuration>".getBytes(StandardCharsets.UTF_8));
+                final long deadline = System.nanoTime() + 30_000_000_000L;
+                while (opens.get() == cnt && System.nanoTime() < deadline) {
+                    Thread.sleep(20);
+                }
+                assertEquals(0, failures.get());
+                assertEquals(1, configuration.getGeneration());
+                assertEquals("one", readB(configuration));
+                // ...and the watcher keeps running
+                Files.write(file, "<configuration><b xmlns=\"urn:b\">three</b></configuration>".getBytes(StandardCharsets.UTF_8));
+                while (configuration.getGeneration() == 1 && System.nanoTime() < deadline) {
+                    Thread.sleep(20);
+                }
+                assertTrue(configuration.getGeneration() >= 2);
+                assertEquals("three", readB(configuration));
+            } finally {
+                configuration.stopReloading();
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static String readB(ClientConfiguration configuration) throws ConfigXMLParseException {
+        try (ConfigurationXMLStreamReader reader = configuration.readConfiguration(Collections.singleton("urn:b"))) {
+            assertEquals(START_ELEMENT, reader.nextTag());
+            assertEquals(CHARACTERS, reader.next());
+            return reader.getText();
+        }
+    }
+
+    @Test
+    public void testClassLoaderInstance() throws Exception {
+        final Path dir = Files.createTempDirectory("wildfly-config");
+        final Path file = dir.resolve("wildfly-config.xml");
+        try {
+            final WeakReference<ClassLoader> ref = checkClassLoaderInstance(dir, file);
+            // the remembered instance must not keep its class loader from being collected
+            for (int i = 0; ref.get() != null && i < 100; i ++) {
+                System.gc();
+                Thread.sleep(10L);
+            }
+            assertNull(ref.get());
+        } finally {
+            ClientConfiguration.invalidateInstances();
+            Files.deleteIfExists(file);
+            Files.deleteIfExists(dir);
+        }
+    }
+
+    private static WeakReference<ClassLoader> checkClassLoaderInstance(final Path dir, final Path file) throws Exception {
+        final AtomicInteger lookups = new AtomicInteger();
+        try (URLClassLoader classLoader = new URLClassLoader(new URL[] { dir.toUri().toURL() }, null) {
+            // like the URLs of a modular class loader, resource URLs refer to their class loader through their handler
+            private final URLStreamHandler handler = new URLStreamHandler() {
+                protected URLConnection openConnection(final URL u) throws IOException {
+                    return new URL(u.toString()).openConnection();
+                }
+            };
+
+            public URL getResource(final String name) {
+                lookups.incrementAndGet();
+                final URL resource = super.getResource(name);
+                try {
+                    return resource == null ? null : new URL(null, resource.toString(), handler);
+                } catch (MalformedURLException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        }) {
+            // negative results are remembered too
+            assertNull(ClientConfiguration.getInstance(classLoader));
+            final int cnt = lookups.get();
+            assertNull(ClientConfiguration.getInstance(classLoader));
+            assertEquals(cnt, lookups.get());
+            Files.write(file, "<configuration/>".getBytes(StandardCharsets.UTF_8));
+            assertNull(ClientConfiguration.getInstance(classLoader));
+            ClientConfiguration.invalidateInstance(classLoader);
+            final ClientConfiguration configuration = ClientConfiguration.getInstance(classLoader);
+            assertNotNull(configuration);
+            assertSame(configuration, ClientConfiguration.getInstance(classLoader));
+            try (ConfigurationXMLStreamReader reader = configuration.readConfiguration(Collections.emptySet())) {
+                while (reader.hasNext()) reader.next();
+            }
+            ClientConfiguration.invalidateInstances();
+            assertNotSame(configuration, ClientConfiguration.getInstance(classLoader));
+            // leave the new instance remembered
+            return new WeakReference<>(classLoader);
+        }
+    }
+
+    @Test
+    public void testSharedXmlInputFactory() throws Exception {
+        final XMLInputFactory xmlInputFactory = ClientConfiguration.getSharedXmlInputFactory();
+        assertSame(xmlInputFactory, ClientConfiguration.getSharedXmlInputFactory());
+        assertEquals(Boolean.FALSE, xmlInputFactory.getProperty(XMLInputFactory.SUPPORT_DTD));
+        assertEquals(Boolean.FALSE, xmlInputFactory.getProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES));
+        final URL resource = TestSimpleConfiguration.class.getResource("/first-element-config.xml");
+        assertSame(xmlInputFactory, ClientConfiguration.getInstance(resource.toURI()).getXmlInputFactory());
+    }
+
+    @Test
+    public void testExpressionCache() throws Exception {
+        final Path file = Files.createTempFile("wildfly-config", ".xml");
+        try {
+            Files.write(file, "<configuration><c xmlns=\"urn:c\" value=\"${cache.test:x}\"/></configuration>".getBytes(StandardCharsets.UTF_8));
+            final ClientConfiguration configuration = ClientConfiguration.getInstance(file.toUri());
+            final long misses = ClientConfiguration.getExpressionCacheMisses();
+            final long hits = ClientConfiguration.getExpressionCacheHits();
+            Expression first = null;
+            for (int i = 0; i < 3; i ++) {
+                try (ConfigurationXMLStreamReader reader = configuration.readConfiguration(Collections.singleton("urn:c"))) {
+                    assertEquals(START_ELEMENT, reader.nextTag());
+                    final Expression expression = reader.getExpressionAttributeValue(0);
+                    assertEquals("x", expression.evaluateWithPropertiesAndEnvironment(false));
+                    if (first == null) {
+                        first = expression;
+                    } else {
+                        assertSame(first, expression);
+                    }
+                }
+            }
+            assertTrue(ClientConfiguration.getExpressionCacheMisses() - misses >= 1);
+            assertTrue(ClientConfiguration.getExpressionCacheHits() - hits >= 2);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void testOverriddenNameMangling() throws Exception {
+        final Path file = Files.createTempFile("wildfly-config", ".xml");
+        System.setProperty("custom.mangling.test", "mangled");
+        try {
+            Files.write(file, "<configuration><c xmlns=\"urn:c\" value=\"some.prop.name\"/></configuration>".getBytes(StandardCharsets.UTF_8));
+            try (ConfigurationXMLStreamReader reader = new AbstractDelegatingXMLStreamReader(true, ClientConfiguration.getInstance(file.toUri()).readConfiguration(Collections.singleton("urn:c"))) {
+                public String replaceNonAlphanumericByUnderscoresAndMakeUpperCase(final String name) {
+                    return "custom.mangling.test";
+                }
+            }) {
+                assertEquals(START_ELEMENT, reader.nextTag());
+                assertEquals("mangled", reader.getAttributeValueResolved(0));
+            }
+        } finally {
+            System.clearProperty("custom.mangling.test");
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void testExpressionCacheEviction() throws Exception {
+        ExpressionCache.clear();
+        try {
+            // literals are never cached
+            final long hits = ExpressionCache.getHits();
+            final long misses = ExpressionCache.getMisses();
+            ExpressionCache.compile("clear-text-secret");
+            ExpressionCache.compile("clear-text-secret");
+            assertEquals(hits, ExpressionCache.getHits());
+            assertEquals(misses, ExpressionCache.getMisses());
+            // an entry which was used since it was added survives the eviction of one which was not
+            final Expression first = ExpressionCache.compile("${lru.0}");
+            for (int i = 1; i < 1024; i ++) {
+                ExpressionCache.compile("${lru." + i + "}");
+            }
+            assertSame(first, ExpressionCache.compile("${lru.0}"));
+            ExpressionCache.compile("${lru.1024}");
+            assertSame(first, ExpressionCache.compile("${lru.0}"));
+            final long before = ExpressionCache.getMisses();
+            ExpressionCache.compile("${lru.1}");
+            assertEquals(before + 1, ExpressionCache.getMisses());
+        } finally {
+            ExpressionCache.clear();
+        }
+    }
+
+    @Test
+    public void testMetrics() throws Exception {
+        final Path dir = Files.createTempDirectory("wildfly-config");
+        final Path main = dir.resolve("main.xml");
+        final Path text = dir.resolve("value.txt");
+        final Path broken = dir.resolve("broken.xml");
+        final InMemoryConfigurationMetrics metrics = new InMemoryConfigurationMetrics();
+        ClientConfiguration.registerMetrics(metrics);
+        try {
+            Files.write(main, ("<configuration xmlns:xi=\"http://www.w3.org/2001/XInclude\"><m xmlns=\"urn:m\" a=\"${metrics.test:x}\"><xi:include href=\"value.txt\" parse=\"text\"/></m></configuration>").getBytes(StandardCharsets.UTF_8));
+            Files.write(text, "metered \u00e9".getBytes(StandardCharsets.UTF_8));
+            final ClientConfiguration configuration = ClientConfiguration.getInstance(main.toUri());
+            try (ConfigurationXMLStreamReader reader = configuration.readConfiguration(Collections.singleton("urn:m"))) {
+                assertEquals(START_ELEMENT, reader.nextTag());
+                assertEquals("x", reader.getAttributeValueResolved(0));
+                assertEquals(CHARACTERS, reader.next());
+                assertEquals("metered \u00e9", reader.getText());
+                assertEquals(END_ELEMENT, reader.next());
+            }
+            assertEquals(1, metrics.getConfigurationReads());
+            assertTrue(metrics.getConfigurationNanos() > 0);
+            assertEquals(1, metrics.getExpressionsResolved());
+            assertEquals(1, metrics.getCacheHits(ConfigurationMetrics.Cache.EXPRESSION) + metrics.getCacheMisses(ConfigurationMetrics.Cache.EXPRESSION));
+            assertEquals(1, metrics.getIncludeFetches(text.toUri()));
+            assertEquals(10, metrics.getBytesRead(text.toUri()));
+            assertEquals(9, metrics.getCharactersRead(text.toUri()));
+            assertEquals(1, metrics.getEventsRead(text.toUri()));
+            assertTrue(metrics.getBytesRead(main.toUri()) > 0);
+            assertTrue(metrics.getEventsRead(main.toUri()) > 0);
+            assertEquals(0, metrics.getConfigurationReadFailures());
+            // the read ends at the end of the document, even if the reader is never closed
+            final ConfigurationXMLStreamReader unclosed = configuration.readConfiguration(Collections.singleton("urn:m"));
+            while (unclosed.hasNext()) {
+                unclosed.next();
+            }
+            assertEquals(2, metrics.getConfigurationReads());
+            unclosed.close();
+            assertEquals(2, metrics.getConfigurationReads());
+            Files.write(broken, "<configuration".getBytes(StandardCharsets.UTF_8));
+            try {
+                ClientConfiguration.getInstance(broken.toUri()).readConfiguration(Collections.singleton("urn:m"));
+                fail("Expected exception");
+            } catch (ConfigXMLParseException expected) {
+            }
+            assertEquals(2, metrics.getConfigurationReads());
+            assertEquals(1, metrics.getConfigurationReadFailures());
+        } finally {
+            ClientConfiguration.registerMetrics(null);
+            Files.deleteIfExists(broken);
+            Files.deleteIfExists(main);
+            Files.deleteIfExists(text);
+            Files.deleteIfExists(dir);
+        }
+        final long reads = metrics.getConfigurationReads();
+        ClientConfiguration.getInstance(main.toUri());
+        assertEquals(reads, metrics.getConfigurationReads());
+    }
+
+    @Test
+    public void testPreload() throws Exception {
+        final Path file = Files.createTempFile("wildfly-config", ".xml");
+        try {
+            Files.write(file, "<configuration><p xmlns=\"urn:p\" a=\"preloaded\"/></configuration>".getBytes(StandardCharsets.UTF_8));
+            final ClientConfiguration configuration = ClientConfiguration.getInstance(file.toUri()).preload();
+            assertTrue(configuration.isSnapshot());
+            assertSame(configuration, configuration.preload());
+            final long deadline = System.nanoTime() + 10_000_000_000L;
+            while (configuration.getGeneration() == 0 && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            // the snapshot was published by the background thread
+            assertEquals(1, configuration.getGeneration());
+            try (ConfigurationXMLStreamReader reader = configuration.readConfiguration(Collections.singleton("urn:p"))) {
+                assertEquals(START_ELEMENT, reader.nextTag());
+                assertEquals("preloaded", reader.getAttributeValue(0));
+            }
+            assertEquals(1, configuration.getGeneration());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void testPreloadAfterFailure() throws Exception {
+        final Path file = Files.createTempFile("wildfly-config", ".xml");
+        final AtomicInteger opens = new AtomicInteger();
+        try {
+            Files.write(file, "<configuration><p xmlns=\"urn:p\" a=\"retried\"/></configuration>".getBytes(StandardCharsets.UTF_8));
+            final ClientConfiguration configuration = new ClientConfiguration(null, file.toUri(), () -> {
+                if (opens.getAndIncrement() == 0) {
+                    throw new IllegalStateException("simulated failure");
+                }
+                return Files.newInputStream(file);
+            }, true, false);
+            assertSame(configuration, configuration.preload());
+            final long deadline = System.nanoTime() + 10_000_000_000L;
+            while (configuration.isPreloading() && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            assertFalse(configuration.isPreloading());
+            assertEquals(1, opens.get());
+            assertEquals(0, configuration.getGeneration());
+            // the failed preload does not prevent a new one
+            configuration.preload();
+            while (configuration.getGeneration() == 0 && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals(1, configuration.getGeneration());
+            assertEquals(2, opens.get());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void testAsync() throws Exception {
+        final Path file = Files.createTempFile("wildfly-config", ".xml");
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Files.write(file, "<configuration><q xmlns=\"urn:q\" a=\"async\"/></configuration>".getBytes(StandardCharsets.UTF_8));
+            final ClientConfiguration configuration = ClientConfiguration.getInstance(file.toUri());
+            try (ConfigurationXMLStreamReader reader = configuration.readConfigurationAsync(Collections.singleton("urn:q"), executor).get()) {
+                assertEquals(START_ELEMENT, reader.nextTag());
+                assertEquals("async", reader.getAttributeValue(0));
+            }
+            try (ConfigurationXMLStreamReader reader = configuration.readConfigurationAsync(Collections.singleton("urn:none"), executor).get()) {
+                assertFalse(reader.hasNext());
+            }
+            final ClientConfiguration snapshot = configuration.snapshotAsync(executor).get();
+            assertTrue(snapshot.isSnapshot());
+            assertEquals(1, snapshot.getGeneration());
+            final ClientConfiguration missing = ClientConfiguration.getInstance(file.resolveSibling(file.getFileName() + ".missing").toUri());
+            try {
+                missing.snapshotAsync(executor).get();
+                fail("Expected exception");
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof ConfigXMLParseException);
+            }
+        } finally {
+            executor.shutdown();
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void testResolutionContext() throws Exception {
+        final Path file = Files.createTempFile("wildfly-config", ".xml");
+        try {
+            Files.write(file, "<configuration><d xmlns=\"urn:d\" a=\"${resolution.test:none}\" b=\"${resolution.test:none}\"/></configuration>".getBytes(StandardCharsets.UTF_8));
+            final ClientConfiguration configuration = ClientConfiguration.getInstance(file.toUri());
+            System.setProperty("resolution.test", "first");
+            try (ConfigurationXMLStreamReader reader = configuration.readConfiguration(Collections.singleton("urn:d"))) {
+                assertEquals(START_ELEMENT, reader.nextTag());
+                assertEquals("first", reader.getAttributeValueResolved(0));
+                System.setProperty("resolution.test", "second");
+                assertEquals("first", reader.getAttributeValueResolved(1));
+            }
+            try (ConfigurationXMLStreamReader reader = configuration.readConfiguration(Collections.singleton("urn:d"))) {
+                assertEquals(START_ELEMENT, reader.nextTag());
+                assertEquals("second", reader.getAttributeValueResolved(0));
+                System.clearProperty("resolution.test");
+                assertEquals("second", reader.getAttributeValueResolved(1));
+            }
+            try (ConfigurationXMLStreamReader reader = configuration.readConfiguration(Collections.singleton("urn:d"))) {
+                assertEquals(START_ELEMENT, reader.nextTag());
+                assertEquals("none", reader.getAttributeValueResolved(0));
+            }
+        } finally {
+            System.clearProperty("resolution.test");
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void testLargeTextInclude() throws Exception {
+        final Path dir = Files.createTempDirectory("wildfly-config");
+        final Path main = dir.resolve("main.xml");
+        final Path text = dir.resolve("large.txt");
+        try {
+            final StringBuilder b = new StringBuilder();
+            for (int i = 0; i < 5000; i ++) {
+                b.append("line ").append(i).append(" \u00e9\ud83d\ude00\n");
+            }
+            final String content = b.toString();
+            Files.write(main, ("<configuration xmlns:xi=\"http://www.w3.org/2001/XInclude\"><t xmlns=\"urn:t\"><v><xi:include href=\"large.txt\" parse=\"text\"/></v></t></configuration>").getBytes(StandardCharsets.UTF_8));
+            Files.write(text, content.getBytes(StandardCharsets.UTF_8));
+            final ClientConfiguration configuration = ClientConfiguration.getInstance(main.toUri());
+            try (ConfigurationXMLStreamReader reader = configuration.readConfiguration(Collections.singleton("urn:t"))) {
+                assertEquals(START_ELEMENT, reader.nextTag());
+                assertEquals(START_ELEMENT, reader.nextTag());
+                // the whole include is delivered as one event
+                assertEquals(CHARACTERS, reader.next());
+                assertEquals(content, reader.getText());
+                assertEquals(END_ELEMENT, reader.next());
+            }
+            try (ConfigurationXMLStreamReader reader = configuration.readConfiguration(Collections.singleton("urn:t"))) {
+                assertEquals(START_ELEMENT, reader.nextTag());
+                assertEquals(START_ELEMENT, reader.nextTag());
+                final StringBuilder read = new StringBuilder();
+                try (Reader textReader = reader.getElementTextReader()) {
+                    final char[] buf = new char[777];
+                    int cnt;
+                    while ((cnt = textReader.read(buf)) != -1) {
+                        read.append(buf, 0, cnt);
+                    }
+                }
+                assertEquals(content, read.toString());
+                assertEquals(END_ELEMENT, reader.getEventType());
+                assertEquals("v", reader.getLocalName());
+                assertEquals(END_ELEMENT, reader.nextTag());
+            }
+        } finally {
+            Files.deleteIfExists(main);
+            Files.deleteIfExists(text);
+            Files.deleteIfExists(dir);
+        }
+    }
+
+    @Test
+    public void testResolverProvider() throws Exception {
+        final Path file = Files.createTempFile("wildfly-config", ".xml");
+        final AtomicInteger calls = new AtomicInteger();
+        try {
+            Files.write(file, "<configuration><b xmlns=\"urn:b\" secret=\"ENC:abc\"/></configuration>".getBytes(StandardCharsets.UTF_8));
+            final ClientConfiguration configuration = ClientConfiguration.getInstance(file.toUri());
+            ClientConfiguration.registerResolverProvider(expression -> {
+                calls.incrementAndGet();
+                return expression.replace("ENC:", "decrypted-");
+            });
+            for (int i = 0; i < 2; i ++) {
+                try (ConfigurationXMLStreamReader reader = configuration.readConfiguration(Collections.singleton("urn:b"))) {
+                    assertEquals(START_ELEMENT, reader.nextTag());
+                    assertEquals("decrypted-abc", reader.getExpressionAttributeValue(0).evaluateWithPropertiesAndEnvironment(false));
+                }
+            }
+            assertEquals(2, calls.get());
+            ClientConfiguration.registerResolverProvider(null);
+            try (ConfigurationXMLStreamReader reader = configuration.readConfiguration(Collections.singleton("urn:b"))) {
+                assertEquals(START_ELEMENT, reader.nextTag());
+                reader.getExpressionAttributeValue(0);
+                fail("Expected exception");
+            } catch (ConfigXMLParseException expected) {
+            }
+        } finally {
+            ClientConfiguration.registerResolverProvider(null);
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void testLocalFileStream() throws Exception {
+        final Path file = Files.createTempFile("wildfly-config", ".xml");
+        try {
+            for (int size : new int[] { 0, 100, 3 << 20 }) {
+                final byte[] bytes = new byte[size];
+                for (int i = 0; i < size; i ++) {
+                    bytes[i] = (byte) i;
+                }
+                Files.write(file, bytes);
+                try (InputStream is = ClientConfiguration.openStream(file.toUri(), "application/xml", null)) {
+                    final ByteArrayOutputStream os = new ByteArrayOutputStream();
+                    final byte[] buf = new byte[8192];
+                    int res;
+                    while ((res = is.read(buf)) != -1) {
+                        os.write(buf, 0, res);
+                    }
+                    assertArrayEquals(bytes, os.toByteArray());
+                }
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
     public void validateContent(final ConfigurationXMLStreamReader reader) throws ConfigXMLParseException {
         assertNotNull(reader);
         assertTrue(reader.hasNext());